@@ -0,0 +1,166 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.util.SlidingWindowHeavyHitters;
+import com.pawan.urlshortner.util.SlidingWindowHeavyHitters.HeavyHitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the short codes getting the most redirects right now and keeps them
+ * pinned in the redirect cache on every node.
+ *
+ * Each node counts its own redirects in a sliding-window Count-Min sketch
+ * with a top-K candidate list, and every sub-window publishes its candidates
+ * to the {@code hot_links} collection. The cluster-wide hot list is the sum
+ * of recent reports from all nodes, cut at {@code min-hits}; every node pins
+ * it, so a link going viral behind one node is pre-warmed on the others, and
+ * a link whose traffic is spread over many nodes is still found. Turned off by
+ * {@code app.redirect.hot-links.enabled=false}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.redirect.hot-links.enabled", havingValue = "true", matchIfMissing = true)
+public class HotLinkTracker {
+
+    static final String HOT_LINKS_COLLECTION = "hot_links";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Value("${app.redirect.hot-links.capacity:32}")
+    private int capacity;
+
+    @Value("${app.redirect.hot-links.window-ms:60000}")
+    private long windowMs;
+
+    @Value("${app.redirect.hot-links.sub-windows:6}")
+    private int subWindows;
+
+    @Value("${app.redirect.hot-links.min-hits:100}")
+    private long minHits;
+
+    @Value("${app.redirect.hot-links.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${app.redirect.hot-links.sketch-width:4096}")
+    private int sketchWidth;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private SlidingWindowHeavyHitters heavyHitters;
+    private ScheduledExecutorService scheduler;
+    private volatile List<HeavyHitter> clusterHotLinks = List.of();
+
+    @PostConstruct
+    public void start() {
+        heavyHitters = new SlidingWindowHeavyHitters(sketchDepth, sketchWidth, subWindows, capacity);
+
+        try {
+            // Reports from nodes that stopped are removed by Mongo after a few windows
+            mongoTemplate.indexOps(HOT_LINKS_COLLECTION).ensureIndex(new Index()
+                    .on("reportedAt", Sort.Direction.ASC)
+                    .expire(TimeUnit.MILLISECONDS.toSeconds(windowMs * 5), TimeUnit.SECONDS));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the hot link report index: {}", e.getMessage());
+        }
+
+        long subWindowMs = windowMs / subWindows;
+        scheduler = Executors.newSingleThreadScheduledExecutor(workerThreadFactory);
+        scheduler.scheduleWithFixedDelay(this::rotate, subWindowMs, subWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Counts one redirect; lock-free unless the code enters the top-K list
+     */
+    public void record(String shortCode) {
+        heavyHitters.record(shortCode);
+    }
+
+    /**
+     * The cluster-wide hot list as of the last sub-window, hottest first
+     */
+    public List<HeavyHitter> getClusterHotLinks() {
+        return clusterHotLinks;
+    }
+
+    private void rotate() {
+        try {
+            heavyHitters.rotate();
+            // Unfiltered: min-hits applies to the cluster total, not to each node's share
+            publish(heavyHitters.top(1));
+
+            List<HeavyHitter> hotLinks = readClusterHotLinks();
+            clusterHotLinks = hotLinks;
+            redirectCache.pin(hotLinks.stream().map(HeavyHitter::key).toList());
+        } catch (Exception e) {
+            log.warn("Hot link rotation failed: {}", e.getMessage());
+        }
+    }
+
+    private void publish(List<HeavyHitter> localHotLinks) {
+        List<Document> links = new ArrayList<>();
+        for (HeavyHitter hotLink : localHotLinks) {
+            links.add(new Document("shortCode", hotLink.key()).append("hits", hotLink.count()));
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                new Update().set("links", links).set("reportedAt", new Date()),
+                HOT_LINKS_COLLECTION);
+    }
+
+    /**
+     * Sums the reports of all nodes that published within the last window,
+     * keeping codes with at least min-hits in total
+     */
+    private List<HeavyHitter> readClusterHotLinks() {
+        Query query = Query.query(Criteria.where("reportedAt").gte(new Date(System.currentTimeMillis() - windowMs)));
+
+        Map<String, Long> hits = new HashMap<>();
+        for (Document report : mongoTemplate.find(query, Document.class, HOT_LINKS_COLLECTION)) {
+            for (Document link : report.getList("links", Document.class, List.of())) {
+                hits.merge(link.getString("shortCode"), link.get("hits", Number.class).longValue(), Long::sum);
+            }
+        }
+
+        return hits.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minHits)
+                .map(entry -> new HeavyHitter(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(HeavyHitter::count).reversed())
+                .limit(capacity)
+                .toList();
+    }
+}
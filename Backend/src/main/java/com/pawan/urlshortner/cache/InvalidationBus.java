@@ -0,0 +1,291 @@
+package com.pawan.urlshortner.cache;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries redirect cache invalidations between nodes. Mutations publish the
+ * affected short codes as one document in a capped collection; every node
+ * follows that collection and evicts the codes from its own RedirectCache.
+ *
+ * Nodes follow the feed with a change stream when Mongo is a replica set and
+ * with a tailable cursor otherwise, so a single standalone mongod is enough.
+ * A tailable cursor resumes from the last event seen less a margin for clock
+ * skew between publishers; a change stream resumes from its token. When
+ * events may have been lost (the capped collection wrapped past the last
+ * event seen, or the oplog no longer holds the resume point) the node drops
+ * its whole cache instead.
+ */
+@Slf4j
+@Component
+public class InvalidationBus {
+
+    static final String COLLECTION = "cache_invalidations";
+
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Value("${app.redirect.invalidation.enabled:true}")
+    private boolean enabled;
+
+    // auto, change-stream or tailable
+    @Value("${app.redirect.invalidation.mode:auto}")
+    private String mode;
+
+    @Value("${app.redirect.invalidation.capped-size-bytes:16777216}")
+    private long cappedSizeBytes;
+
+    @Value("${app.redirect.invalidation.resume-margin-ms:5000}")
+    private long resumeMarginMs;
+
+    @Value("${app.redirect.invalidation.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    private Counter published;
+    private Counter received;
+    private Counter resyncs;
+    private Timer lag;
+
+    // Feed position, kept across reconnects; only touched by the worker
+    private ObjectId lastSeenId;
+    private BsonDocument resumeToken;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        published = meterRegistry.counter("redirect.invalidation.published");
+        received = meterRegistry.counter("redirect.invalidation.received");
+        resyncs = meterRegistry.counter("redirect.invalidation.resyncs");
+        lag = Timer.builder("redirect.invalidation.lag").register(meterRegistry);
+
+        running = true;
+        worker = workerThreadFactory.newThread(this::run);
+        worker.setName("cache-invalidation");
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void publish(String shortCode) {
+        publish(List.of(shortCode));
+    }
+
+    /**
+     * Evicts the codes locally and tells every other node to do the same
+     */
+    public void publish(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(redirectCache::invalidate);
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertOne(new Document("codes", new ArrayList<>(shortCodes))
+                    .append("origin", nodeId)
+                    .append("at", new Date()));
+            published.increment();
+        } catch (RuntimeException e) {
+            // Other nodes still drop these entries once their cache TTLs run out
+            log.warn("Could not publish invalidation of {} short codes: {}", shortCodes.size(), e.getMessage());
+        }
+    }
+
+    private void run() {
+        Boolean changeStreams = null;
+        while (running) {
+            try {
+                if (changeStreams == null) {
+                    ensureCollection();
+                    changeStreams = useChangeStreams();
+                    log.info("Following cache invalidations with a {}",
+                            changeStreams ? "change stream" : "tailable cursor");
+                }
+                if (changeStreams) {
+                    followChangeStream();
+                } else {
+                    tailCappedCollection();
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation feed interrupted, reconnecting: {}", e.getMessage());
+            }
+            sleep(retryDelayMs);
+        }
+    }
+
+    private void ensureCollection() {
+        if (mongoTemplate.collectionExists(COLLECTION)) {
+            return;
+        }
+        try {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedSizeBytes));
+            // A tailable cursor over an empty capped collection dies straight away
+            mongoTemplate.getCollection(COLLECTION).insertOne(new Document("codes", List.of())
+                    .append("origin", nodeId)
+                    .append("at", new Date()));
+        } catch (RuntimeException e) {
+            // Lost the race to another node, which seeds the collection itself
+            if (!mongoTemplate.collectionExists(COLLECTION)) {
+                throw e;
+            }
+        }
+    }
+
+    private boolean useChangeStreams() {
+        if (!mode.equals("auto")) {
+            return mode.equals("change-stream");
+        }
+        Document hello = mongoTemplate.getDb().runCommand(new Document("hello", 1));
+        return hello.containsKey("setName");
+    }
+
+    private void tailCappedCollection() {
+        MongoCollection<Document> events = mongoTemplate.getCollection(COLLECTION);
+        if (lastSeenId == null) {
+            Document newest = events.find().sort(new Document("$natural", -1)).limit(1).first();
+            lastSeenId = newest != null ? newest.getObjectId("_id") : new ObjectId();
+        } else if (missedEvents(events)) {
+            resync("the invalidation collection wrapped past the last event seen");
+        }
+
+        long resumeFrom = TimeUnit.SECONDS.toMillis(lastSeenId.getTimestamp()) - resumeMarginMs;
+        try (MongoCursor<Document> cursor = events.find(Filters.gte("_id", idAt(resumeFrom)))
+                .cursorType(CursorType.TailableAwait)
+                .maxAwaitTime(500, TimeUnit.MILLISECONDS)
+                .noCursorTimeout(true)
+                .iterator()) {
+            while (running && cursor.getServerCursor() != null) {
+                Document event = cursor.tryNext();
+                if (event != null) {
+                    apply(event);
+                    lastSeenId = event.getObjectId("_id");
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the oldest event left is newer than the last one applied, so
+     * anything published in between may have been overwritten
+     */
+    private boolean missedEvents(MongoCollection<Document> events) {
+        Document oldest = events.find().sort(new Document("$natural", 1)).limit(1).first();
+        return oldest == null || oldest.getObjectId("_id").getTimestamp() > lastSeenId.getTimestamp();
+    }
+
+    private void followChangeStream() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(COLLECTION)
+                .watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))))
+                .maxAwaitTime(500, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null && change.getFullDocument() != null) {
+                    apply(change.getFullDocument());
+                }
+                if (cursor.getResumeToken() != null) {
+                    resumeToken = cursor.getResumeToken();
+                }
+            }
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != CHANGE_STREAM_HISTORY_LOST) {
+                throw e;
+            }
+            resumeToken = null;
+            resync("the oplog no longer holds the change stream resume point");
+        }
+    }
+
+    private void apply(Document event) {
+        if (nodeId.equals(event.getString("origin"))) {
+            return;
+        }
+        event.getList("codes", String.class).forEach(redirectCache::invalidate);
+        received.increment();
+        lag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - event.getDate("at").getTime())));
+    }
+
+    private void resync(String reason) {
+        resyncs.increment();
+        redirectCache.invalidateAll();
+        log.warn("Dropped the local redirect cache because {}", reason);
+    }
+
+    /**
+     * Smallest ObjectId generated at the given time
+     */
+    private static ObjectId idAt(long epochMillis) {
+        return new ObjectId(String.format("%08x%016x", TimeUnit.MILLISECONDS.toSeconds(epochMillis), 0));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
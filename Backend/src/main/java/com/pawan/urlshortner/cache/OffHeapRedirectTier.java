@@ -0,0 +1,72 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.util.OffHeapHashStore;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Second tier behind RedirectCache's on-heap entries, keeping redirect targets
+ * off the heap so millions of links cost no GC time. Short codes are packed
+ * into a long key; codes that do not pack (long custom aliases) are simply not
+ * kept here.
+ *
+ * Each value records when it was loaded. Entries older than the TTL are misses
+ * for normal lookups, so edits made by other nodes are picked up, but can
+ * still be served while Mongo is unavailable.
+ */
+class OffHeapRedirectTier {
+
+    private final OffHeapHashStore store;
+    private final long ttlMs;
+
+    OffHeapRedirectTier(int segments, int initialSlotsPerSegment, int slabSize, long ttlMs) {
+        this.store = new OffHeapHashStore(segments, initialSlotsPerSegment, slabSize);
+        this.ttlMs = ttlMs;
+    }
+
+    void put(RedirectEntry entry, long nowMillis) {
+        long key = UrlShortenerUtil.packShortCode(entry.shortCode());
+        byte[] value = key == -1 ? null : RedirectEntryCodec.encode(entry.urlMappingId(), entry.expiresAtMillis(),
+                entry.policy(), entry.originalUrl(), Long.BYTES);
+        if (value != null) {
+            ByteBuffer.wrap(value).putLong(nowMillis);
+            store.put(key, value);
+        }
+    }
+
+    /**
+     * The entry for the short code, or null if absent or, unless stale entries
+     * are allowed, loaded longer ago than the TTL
+     */
+    RedirectEntry get(String shortCode, long nowMillis, boolean allowStale) {
+        long key = UrlShortenerUtil.packShortCode(shortCode);
+        byte[] value = key == -1 ? null : store.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (!allowStale && nowMillis - ByteBuffer.wrap(value).getLong() > ttlMs) {
+            return null;
+        }
+        return RedirectEntryCodec.decode(shortCode, value, Long.BYTES);
+    }
+
+    void invalidate(String shortCode) {
+        long key = UrlShortenerUtil.packShortCode(shortCode);
+        if (key != -1) {
+            store.remove(key);
+        }
+    }
+
+    void clear() {
+        store.clear();
+    }
+
+    long size() {
+        return store.size();
+    }
+
+    long memoryBytes() {
+        return store.memoryBytes();
+    }
+}
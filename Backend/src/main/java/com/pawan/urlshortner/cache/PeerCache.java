@@ -0,0 +1,252 @@
+package com.pawan.urlshortner.cache;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.pawan.urlshortner.util.ConsistentHashRing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Partitions the redirect cache across app nodes. Every node heartbeats into
+ * the cache_peers collection and builds the same consistent-hash ring from
+ * the live members, so each short code has one owner. A miss for a code
+ * another node owns asks that owner over /internal/peer-cache before going
+ * to Mongo; only the owner loads the link into its larger tiers, so total
+ * cache capacity grows with the number of nodes. Answers from owners are
+ * kept in the small on-heap tier only.
+ *
+ * An owner that does not answer within {@code timeout-ms} is skipped and the
+ * code is read from Mongo as usual. Members drop out of the ring once their
+ * heartbeat is {@code member-ttl-ms} old, or straight away on a clean
+ * shutdown. Several JVMs on one machine work as long as each advertises its
+ * own port.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.redirect.peer-cache.enabled", havingValue = "true")
+public class PeerCache {
+
+    public static final String SECRET_HEADER = "X-Peer-Secret";
+
+    static final String COLLECTION = "cache_peers";
+    static final String PATH = "/internal/peer-cache/";
+
+    private static final RedirectResult.Outcome[] OUTCOMES = RedirectResult.Outcome.values();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    // Base URL other nodes reach this one at, context path included; also its member id
+    @Value("${app.redirect.peer-cache.advertised-url}")
+    private String advertisedUrl;
+
+    @Value("${app.redirect.peer-cache.secret}")
+    private String secret;
+
+    @Value("${app.redirect.peer-cache.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${app.redirect.peer-cache.heartbeat-interval-ms:2000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${app.redirect.peer-cache.member-ttl-ms:10000}")
+    private long memberTtlMs;
+
+    @Value("${app.redirect.peer-cache.timeout-ms:100}")
+    private long timeoutMs;
+
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+    private volatile ConsistentHashRing ring;
+    private boolean indexEnsured;
+
+    private Counter ownerHits;
+    private Counter ownerMisses;
+    private Counter ownerErrors;
+    private Counter served;
+
+    @PostConstruct
+    public void start() {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("app.redirect.peer-cache.secret must be set when the peer cache is enabled");
+        }
+        ring = new ConsistentHashRing(List.of(advertisedUrl), virtualNodes);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+
+        ownerHits = meterRegistry.counter("redirect.peer-cache.requests", "outcome", "found");
+        ownerMisses = meterRegistry.counter("redirect.peer-cache.requests", "outcome", "not-followable");
+        ownerErrors = meterRegistry.counter("redirect.peer-cache.requests", "outcome", "error");
+        served = meterRegistry.counter("redirect.peer-cache.served");
+        Gauge.builder("redirect.peer-cache.members", this, peers -> peers.ring.getMembers().size())
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(workerThreadFactory);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        redirectCache.attachPeers(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        redirectCache.attachPeers(null);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            mongoTemplate.getCollection(COLLECTION).deleteOne(Filters.eq("_id", advertisedUrl));
+        } catch (RuntimeException e) {
+            log.debug("Could not remove peer heartbeat: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Asks the code's owner to resolve it. Returns null when this node owns
+     * the code or the owner could not answer, so the caller reads Mongo itself.
+     */
+    RedirectResult fetch(String shortCode) {
+        String owner = ring.ownerOf(shortCode);
+        if (owner == null || owner.equals(advertisedUrl)) {
+            return null;
+        }
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(owner + PATH + URLEncoder.encode(shortCode, StandardCharsets.UTF_8)))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .header(SECRET_HEADER, secret)
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                ownerErrors.increment();
+                return null;
+            }
+            RedirectResult result = decode(shortCode, response.body());
+            if (result == null) {
+                ownerErrors.increment();
+                return null;
+            }
+            (result.isFound() ? ownerHits : ownerMisses).increment();
+            return result;
+        } catch (IOException | RuntimeException e) {
+            ownerErrors.increment();
+            log.debug("Peer {} did not resolve {}: {}", owner, shortCode, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Owner side: resolves a code for another node without asking peers
+     * again. Null when Mongo could not be asked, so the caller tries itself.
+     */
+    public byte[] answer(String shortCode) {
+        RedirectResult result = redirectCache.resolveForPeer(shortCode);
+        if (result.outcome() == RedirectResult.Outcome.UNAVAILABLE) {
+            return null;
+        }
+        served.increment();
+        if (!result.isFound()) {
+            return new byte[]{(byte) result.outcome().ordinal()};
+        }
+        RedirectEntry entry = result.entry();
+        byte[] encoded = RedirectEntryCodec.encode(entry.urlMappingId(), entry.expiresAtMillis(), entry.policy(),
+                entry.originalUrl(), 1);
+        if (encoded == null) {
+            return null;
+        }
+        encoded[0] = (byte) RedirectResult.Outcome.FOUND.ordinal();
+        return encoded;
+    }
+
+    public boolean isTrusted(String presentedSecret) {
+        return presentedSecret != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RedirectResult decode(String shortCode, byte[] body) {
+        RedirectResult.Outcome outcome = OUTCOMES[body[0]];
+        return switch (outcome) {
+            case FOUND -> RedirectResult.found(RedirectEntryCodec.decode(shortCode, body, 1));
+            case NOT_FOUND -> RedirectResult.NOT_FOUND;
+            case INACTIVE -> RedirectResult.INACTIVE;
+            case EXPIRED -> RedirectResult.EXPIRED;
+            case UNAVAILABLE -> null;
+        };
+    }
+
+    /**
+     * Refreshes this node's heartbeat and rebuilds the ring if the live members changed
+     */
+    private void heartbeat() {
+        try {
+            if (!indexEnsured) {
+                // Heartbeats of nodes that died without cleaning up are removed eventually
+                mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index().on("at", Sort.Direction.ASC)
+                        .expire(Duration.ofMillis(memberTtlMs * 6)));
+                indexEnsured = true;
+            }
+            MongoCollection<Document> peers = mongoTemplate.getCollection(COLLECTION);
+            long now = System.currentTimeMillis();
+            peers.replaceOne(Filters.eq("_id", advertisedUrl),
+                    new Document("_id", advertisedUrl).append("at", new Date(now)),
+                    new ReplaceOptions().upsert(true));
+
+            Set<String> live = new HashSet<>();
+            live.add(advertisedUrl);
+            for (Document peer : peers.find(Filters.gte("at", new Date(now - memberTtlMs)))) {
+                live.add(peer.getString("_id"));
+            }
+            if (!live.equals(ring.getMembers())) {
+                ring = new ConsistentHashRing(live, virtualNodes);
+                log.info("Peer cache ring now has {} members", live.size());
+            }
+        } catch (RuntimeException e) {
+            // Keep the last ring; unreachable owners are skipped per request
+            log.warn("Peer cache heartbeat failed: {}", e.getMessage());
+        }
+    }
+}
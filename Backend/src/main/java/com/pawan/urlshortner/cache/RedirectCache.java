@@ -0,0 +1,410 @@
+package com.pawan.urlshortner.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.repository.RedirectStore;
+import com.pawan.urlshortner.service.RedirectRules;
+import com.pawan.urlshortner.util.CircuitBreaker;
+import com.pawan.urlshortner.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache of active short links, shared by the servlet fast lane
+ * and the standalone Netty server. Only links that can be followed are cached.
+ *
+ * A code is looked up in pinned hot links, then the on-heap entries, the
+ * off-heap tier, the startup snapshot, the owning peer and finally the
+ * RedirectStore, behind a circuit breaker. When the store cannot answer, the
+ * stale tier does. Changes made through this app invalidate every tier, and
+ * the InvalidationBus carries them to the other nodes within its lag; only
+ * changes made outside the app wait for the entry's TTL to run out.
+ */
+@Slf4j
+@Component
+public class RedirectCache {
+
+    @Autowired
+    private RedirectStore redirectStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.redirect.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${app.redirect.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.redirect.cache.load-wait-timeout-ms:2000}")
+    private long loadWaitTimeoutMs;
+
+    @Value("${app.redirect.cache.stale.max-size:500000}")
+    private long staleMaxSize;
+
+    @Value("${app.redirect.cache.stale.ttl-ms:86400000}")
+    private long staleTtlMs;
+
+    @Value("${app.redirect.cache.offheap.enabled:true}")
+    private boolean offHeapEnabled;
+
+    @Value("${app.redirect.cache.offheap.segments:64}")
+    private int offHeapSegments;
+
+    @Value("${app.redirect.cache.offheap.initial-slots:1024}")
+    private int offHeapInitialSlots;
+
+    @Value("${app.redirect.cache.offheap.slab-size-bytes:1048576}")
+    private int offHeapSlabSize;
+
+    @Value("${app.redirect.cache.offheap.ttl-ms:600000}")
+    private long offHeapTtlMs;
+
+    @Value("${app.redirect.lookup.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${app.redirect.lookup.breaker.open-ms:5000}")
+    private long breakerOpenMs;
+
+    @Value("${app.redirect.lookup.breaker.slow-call-ms:1000}")
+    private long breakerSlowCallMs;
+
+    private Cache<String, RedirectEntry> entries;
+    // Every loaded entry, kept long after the on-heap TTL for when the store is unavailable
+    private Cache<String, RedirectEntry> stale;
+    private OffHeapRedirectTier offHeap;
+    private Counter offHeapHits;
+    private volatile RedirectSnapshot snapshot;
+    private volatile PeerCache peers;
+    private Counter snapshotHits;
+    private CircuitBreaker lookupBreaker;
+    private Counter staleServed;
+    private Counter lookupFailures;
+    // Hot links from HotLinkTracker, kept outside the size bound so they are never evicted
+    private final Map<String, RedirectEntry> pinned = new ConcurrentHashMap<>();
+    private final SingleFlight<String, RedirectResult> loads = new SingleFlight<>();
+    // Separate from loads, so a peer's request never waits on a load that is asking a peer
+    private final SingleFlight<String, RedirectResult> peerLoads = new SingleFlight<>();
+    // Invalidation counts, striped by code; a load only caches what it read if its stripe has not moved since
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private static final int GENERATION_STRIPES = 4096;
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "redirect.cache");
+        stale = Caffeine.newBuilder()
+                .maximumSize(staleMaxSize)
+                .expireAfterWrite(Duration.ofMillis(staleTtlMs))
+                .build();
+        if (offHeapEnabled) {
+            offHeap = new OffHeapRedirectTier(offHeapSegments, offHeapInitialSlots, offHeapSlabSize, offHeapTtlMs);
+            offHeapHits = meterRegistry.counter("redirect.cache.offheap.hits");
+            Gauge.builder("redirect.cache.offheap.size", offHeap, OffHeapRedirectTier::size)
+                    .register(meterRegistry);
+            Gauge.builder("redirect.cache.offheap.bytes", offHeap, OffHeapRedirectTier::memoryBytes)
+                    .register(meterRegistry);
+        }
+        snapshotHits = meterRegistry.counter("redirect.cache.snapshot.hits");
+        lookupBreaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMs, breakerSlowCallMs);
+
+        staleServed = meterRegistry.counter("redirect.cache.stale.served");
+        lookupFailures = meterRegistry.counter("redirect.lookup.failures");
+        Gauge.builder("redirect.lookup.breaker.open", lookupBreaker,
+                        breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+        Gauge.builder("redirect.cache.stale.size", stale, Cache::estimatedSize).register(meterRegistry);
+        FunctionCounter.builder("redirect.cache.load.coalesced", loads, SingleFlight::coalescedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("redirect.cache.load.timeouts", loads, SingleFlight::timedOutCount)
+                .register(meterRegistry);
+        Gauge.builder("redirect.cache.load.in-flight", loads, SingleFlight::inFlightCount)
+                .register(meterRegistry);
+        Gauge.builder("redirect.cache.pinned", pinned, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached entry if present and not expired, without touching Mongo
+     */
+    public RedirectEntry getIfPresent(String shortCode, long nowMillis) {
+        RedirectEntry entry = cached(shortCode);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(nowMillis)) {
+            invalidate(shortCode);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Resolves a short code, loading it from Mongo on a cache miss. Only
+     * followable links are cached. Throws SingleFlight.WaitTimeoutException
+     * if another caller's load of the same code does not finish in time.
+     */
+    public RedirectResult resolve(String shortCode) {
+        return resolve(shortCode, loads, true);
+    }
+
+    /**
+     * Resolves a code on behalf of a peer that takes this node for its owner
+     */
+    RedirectResult resolveForPeer(String shortCode) {
+        return resolve(shortCode, peerLoads, false);
+    }
+
+    private RedirectResult resolve(String shortCode, SingleFlight<String, RedirectResult> flights, boolean askPeers) {
+        long now = System.currentTimeMillis();
+        RedirectEntry cached = cached(shortCode);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return RedirectResult.found(cached);
+            }
+            invalidate(shortCode);
+            return RedirectResult.EXPIRED;
+        }
+
+        // Concurrent misses for the same code share one Mongo load
+        return flights.load(shortCode, () -> load(shortCode, askPeers), loadWaitTimeoutMs);
+    }
+
+    private RedirectResult load(String shortCode, boolean askPeers) {
+        long generation = generation(shortCode);
+        long now = System.currentTimeMillis();
+        RedirectEntry offHeapEntry = offHeap != null ? offHeap.get(shortCode, now, false) : null;
+        if (offHeapEntry != null) {
+            if (offHeapEntry.isExpired(now)) {
+                invalidate(shortCode);
+                return RedirectResult.EXPIRED;
+            }
+            offHeapHits.increment();
+            cacheLoaded(offHeapEntry, generation, false);
+            return RedirectResult.found(offHeapEntry);
+        }
+
+        RedirectSnapshot currentSnapshot = snapshot;
+        RedirectEntry snapshotEntry = currentSnapshot != null ? currentSnapshot.get(shortCode, now) : null;
+        if (snapshotEntry != null && !snapshotEntry.isExpired(now)) {
+            snapshotHits.increment();
+            cacheLoaded(snapshotEntry, generation, false);
+            return RedirectResult.found(snapshotEntry);
+        }
+
+        PeerCache currentPeers = askPeers ? peers : null;
+        RedirectResult fromOwner = currentPeers != null ? currentPeers.fetch(shortCode) : null;
+        if (fromOwner != null) {
+            if (fromOwner.isFound()) {
+                // The owner keeps it in the larger tiers
+                cacheLoaded(fromOwner.entry(), generation, false);
+            }
+            return fromOwner;
+        }
+
+        if (!lookupBreaker.tryAcquire()) {
+            return fromStale(shortCode);
+        }
+
+        UrlMapping urlMapping;
+        long startedAt = System.nanoTime();
+        try {
+            urlMapping = redirectStore.findByShortCode(shortCode).orElse(null);
+        } catch (RuntimeException e) {
+            lookupBreaker.onFailure();
+            lookupFailures.increment();
+            log.debug("Redirect lookup failed for {}: {}", shortCode, e.getMessage());
+            return fromStale(shortCode);
+        }
+        lookupBreaker.onSuccess(System.nanoTime() - startedAt);
+
+        // Expired links are flipped inactive by LinkExpirationScheduler, never here
+        if (urlMapping == null) {
+            return RedirectResult.NOT_FOUND;
+        }
+        if (!urlMapping.isActive()) {
+            return RedirectResult.INACTIVE;
+        }
+        if (RedirectRules.isExpired(urlMapping, LocalDateTime.now())) {
+            return RedirectResult.EXPIRED;
+        }
+
+        // Cached before the load completes, so callers arriving after it hit the cache
+        RedirectEntry entry = RedirectEntry.from(urlMapping);
+        cacheLoaded(entry, generation, true);
+        return RedirectResult.found(entry);
+    }
+
+    /**
+     * Caches an entry read by a load that started at the given generation,
+     * unless the code was invalidated since: the entry may predate the change
+     * that invalidated it. An invalidation racing the put takes it back out.
+     */
+    private void cacheLoaded(RedirectEntry entry, long generation, boolean allTiers) {
+        String shortCode = entry.shortCode();
+        if (generation(shortCode) != generation) {
+            return;
+        }
+        if (allTiers) {
+            put(entry);
+        } else {
+            entries.put(shortCode, entry);
+        }
+        if (generation(shortCode) != generation) {
+            entries.asMap().remove(shortCode, entry);
+            stale.asMap().remove(shortCode, entry);
+            if (allTiers && offHeap != null) {
+                offHeap.invalidate(shortCode);
+            }
+        }
+    }
+
+    private long generation(String shortCode) {
+        return generations.get(stripe(shortCode));
+    }
+
+    private static int stripe(String shortCode) {
+        int hash = shortCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * Answers a miss the store could not, from the stale tier or an off-heap
+     * entry past its TTL. The known expiry is still honoured; codes never
+     * seen before come back UNAVAILABLE.
+     */
+    private RedirectResult fromStale(String shortCode) {
+        RedirectEntry entry = stale.getIfPresent(shortCode);
+        // Off-heap entries are decoded, so built just now
+        boolean builtEarlier = entry != null;
+        if (entry == null && offHeap != null) {
+            entry = offHeap.get(shortCode, System.currentTimeMillis(), true);
+        }
+        if (entry == null) {
+            return RedirectResult.UNAVAILABLE;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            return RedirectResult.EXPIRED;
+        }
+        staleServed.increment();
+        // Built when last loaded, up to the stale TTL ago, when max-age had more time left
+        return RedirectResult.found(builtEarlier ? entry.rebuilt() : entry);
+    }
+
+    private RedirectEntry cached(String shortCode) {
+        RedirectEntry entry = pinned.get(shortCode);
+        return entry != null ? entry : entries.getIfPresent(shortCode);
+    }
+
+    public void put(RedirectEntry entry) {
+        entries.put(entry.shortCode(), entry);
+        stale.put(entry.shortCode(), entry);
+        if (offHeap != null) {
+            offHeap.put(entry, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Replaces the pinned set with the given codes, reloading their entries.
+     * Codes that are missing or cannot be followed are not pinned, and
+     * neither are codes invalidated while they were being reloaded.
+     */
+    public void pin(Collection<String> shortCodes) {
+        Map<String, Long> generationsAtLoad = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            generationsAtLoad.put(shortCode, generation(shortCode));
+        }
+
+        Map<String, RedirectEntry> loaded = new HashMap<>();
+        if (!shortCodes.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            for (UrlMapping urlMapping : redirectStore.findByShortCodes(shortCodes)) {
+                if (RedirectRules.isRedirectable(urlMapping, now)) {
+                    loaded.put(urlMapping.getShortCode(), RedirectEntry.from(urlMapping));
+                }
+            }
+        }
+
+        pinned.keySet().retainAll(loaded.keySet());
+        loaded.forEach((shortCode, entry) -> {
+            // Same checks as cacheLoaded: skip what was invalidated since, take back what races the put
+            long generation = generationsAtLoad.get(shortCode);
+            if (generation(shortCode) != generation) {
+                pinned.remove(shortCode);
+                return;
+            }
+            pinned.put(shortCode, entry);
+            if (generation(shortCode) != generation) {
+                pinned.remove(shortCode, entry);
+            }
+        });
+    }
+
+    /**
+     * Answers misses from the snapshot ahead of Mongo; null detaches it
+     */
+    void attachSnapshot(RedirectSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Routes misses for codes owned by other nodes through them; null detaches
+     */
+    void attachPeers(PeerCache peers) {
+        this.peers = peers;
+    }
+
+    /**
+     * Drops everything this node serves without asking Mongo, for when
+     * invalidations may have been missed. The stale tier is kept since it is
+     * only used while Mongo cannot be reached.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        snapshot = null;
+        pinned.clear();
+        entries.invalidateAll();
+        if (offHeap != null) {
+            offHeap.clear();
+        }
+    }
+
+    public void invalidate(String shortCode) {
+        // Bumped first, so a load that read the old value can no longer cache it
+        generations.incrementAndGet(stripe(shortCode));
+        RedirectSnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            currentSnapshot.override(shortCode);
+        }
+        pinned.remove(shortCode);
+        entries.invalidate(shortCode);
+        stale.invalidate(shortCode);
+        if (offHeap != null) {
+            offHeap.invalidate(shortCode);
+        }
+        log.debug("Redirect cache invalidated for short code: {}", shortCode);
+    }
+}
@@ -0,0 +1,134 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.model.RedirectPolicy;
+import com.pawan.urlshortner.model.UrlMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * What the redirect path needs to know about an active short link. Immutable,
+ * so one instance can be shared by every request that hits it.
+ *
+ * The response is prepared once when the entry is built: the Location value
+ * is validated and percent-encoded to plain ASCII, and {@code httpResponse}
+ * holds the complete HTTP/1.1 keep-alive response for servers that write raw
+ * bytes. A Cache-Control max-age derived from the expiration date is only
+ * as fresh as the entry: entries loaded or decoded into the on-heap cache are
+ * rebuilt once its TTL runs out, and entries served from the day-long stale
+ * tier are rebuilt each time they are served.
+ */
+public record RedirectEntry(String urlMappingId, String shortCode, String originalUrl, long expiresAtMillis,
+                            RedirectPolicy policy, int status, String location, String cacheControl,
+                            byte[] httpResponse) {
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    public static RedirectEntry from(UrlMapping urlMapping) {
+        return create(urlMapping.getId(), urlMapping.getShortCode(), urlMapping.getOriginalUrl(),
+                toMillis(urlMapping.getExpirationDate()), urlMapping.getRedirectPolicy());
+    }
+
+    public static RedirectEntry create(String urlMappingId, String shortCode, String originalUrl,
+                                       long expiresAtMillis, RedirectPolicy redirectPolicy) {
+        RedirectPolicy policy = RedirectPolicy.orDefault(redirectPolicy);
+        long secondsUntilExpiry = expiresAtMillis == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : (expiresAtMillis - System.currentTimeMillis()) / 1000;
+
+        String location = encodeLocation(originalUrl);
+        String cacheControl = policy.cacheControl(secondsUntilExpiry);
+        return new RedirectEntry(urlMappingId, shortCode, originalUrl, expiresAtMillis, policy,
+                policy.getStatus(), location, cacheControl, httpResponse(policy.getStatus(), location, cacheControl));
+    }
+
+    /**
+     * The same link with its Cache-Control and response prepared as of now
+     */
+    public RedirectEntry rebuilt() {
+        return create(urlMappingId, shortCode, originalUrl, expiresAtMillis, policy);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+
+    /**
+     * UrlMapping carrying only the id and short code, enough to reference it from a click
+     */
+    public UrlMapping toUrlMappingReference() {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setId(urlMappingId);
+        urlMapping.setShortCode(shortCode);
+        return urlMapping;
+    }
+
+    /**
+     * Percent-encodes everything that may not appear literally in a URI,
+     * including non-ASCII characters and CR/LF, so the value can be written
+     * into a header as is. Existing escapes are kept.
+     */
+    static String encodeLocation(String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            throw new IllegalArgumentException("Redirect target must be an absolute http(s) URL");
+        }
+
+        StringBuilder encoded = null;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (isUriChar(c)) {
+                if (encoded != null) {
+                    encoded.append(c);
+                }
+                continue;
+            }
+
+            if (encoded == null) {
+                encoded = new StringBuilder(url.length() + 16).append(url, 0, i);
+            }
+            int end = Character.isHighSurrogate(c) && i + 1 < url.length() ? i + 2 : i + 1;
+            for (byte b : url.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                encoded.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            i = end - 1;
+        }
+        return encoded != null ? encoded.toString() : url;
+    }
+
+    /**
+     * RFC 3986 unreserved and reserved characters, plus '%' for existing escapes
+     */
+    private static boolean isUriChar(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        return "-._~:/?#[]@!$&'()*+,;=%".indexOf(c) >= 0;
+    }
+
+    private static byte[] httpResponse(int status, String location, String cacheControl) {
+        String response = "HTTP/1.1 " + status + " " + reasonPhrase(status) + "\r\n"
+                + "location: " + location + "\r\n"
+                + "cache-control: " + cacheControl + "\r\n"
+                + "content-length: 0\r\n"
+                + "\r\n";
+        return response.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String reasonPhrase(int status) {
+        return switch (status) {
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 307 -> "Temporary Redirect";
+            case 308 -> "Permanent Redirect";
+            default -> throw new IllegalArgumentException("Unsupported redirect status: " + status);
+        };
+    }
+
+    static long toMillis(LocalDateTime expirationDate) {
+        if (expirationDate == null) {
+            return Long.MAX_VALUE;
+        }
+        return expirationDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
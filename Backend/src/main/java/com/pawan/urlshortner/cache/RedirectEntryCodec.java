@@ -0,0 +1,52 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.model.RedirectPolicy;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of a redirect target, shared by the off-heap tier and
+ * the snapshot file: expiry, policy, the 12-byte ObjectId and the UTF-8 URL.
+ * The short code is the lookup key and is not repeated. Callers may reserve
+ * a prefix of their own in front of the encoded bytes.
+ */
+final class RedirectEntryCodec {
+
+    private static final int ENCODED_HEADER_BYTES = Long.BYTES + 1 + 12;
+    private static final RedirectPolicy[] POLICIES = RedirectPolicy.values();
+
+    private RedirectEntryCodec() {
+    }
+
+    /**
+     * Encodes the target after {@code prefixBytes} zeroed bytes, or returns
+     * null if the mapping id is not an ObjectId
+     */
+    static byte[] encode(String urlMappingId, long expiresAtMillis, RedirectPolicy policy, String originalUrl,
+                         int prefixBytes) {
+        if (!ObjectId.isValid(urlMappingId)) {
+            return null;
+        }
+        byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(prefixBytes + ENCODED_HEADER_BYTES + url.length);
+        buffer.position(prefixBytes);
+        buffer.putLong(expiresAtMillis)
+                .put((byte) RedirectPolicy.orDefault(policy).ordinal())
+                .put(new ObjectId(urlMappingId).toByteArray())
+                .put(url);
+        return buffer.array();
+    }
+
+    static RedirectEntry decode(String shortCode, byte[] value, int offset) {
+        ByteBuffer buffer = ByteBuffer.wrap(value, offset, value.length - offset);
+        long expiresAtMillis = buffer.getLong();
+        RedirectPolicy policy = POLICIES[buffer.get()];
+        byte[] id = new byte[12];
+        buffer.get(id);
+        int urlOffset = offset + ENCODED_HEADER_BYTES;
+        String url = new String(value, urlOffset, value.length - urlOffset, StandardCharsets.UTF_8);
+        return RedirectEntry.create(new ObjectId(id).toHexString(), shortCode, url, expiresAtMillis, policy);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pawan.urlshortner.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts redirect outcomes per type and logs misses by sampling: at most one
+ * line per {@code miss-log-interval-ms}, carrying the number of misses that
+ * were not logged since the previous line. Successful redirects also feed
+ * HotLinkTracker.
+ */
+@Slf4j
+@Component
+public class RedirectOutcomeRecorder {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Absent in the reactive edge, which has no redirect cache to pin into
+    @Autowired(required = false)
+    private HotLinkTracker hotLinkTracker;
+
+    @Value("${app.redirect.miss-log-interval-ms:10000}")
+    private long missLogIntervalMs;
+
+    private Counter[] counters;
+    private final AtomicLong nextMissLogAt = new AtomicLong();
+    private final AtomicLong unloggedMisses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        RedirectResult.Outcome[] outcomes = RedirectResult.Outcome.values();
+        counters = new Counter[outcomes.length];
+        for (RedirectResult.Outcome outcome : outcomes) {
+            counters[outcome.ordinal()] = meterRegistry.counter("redirect.outcome", "outcome", outcome.name());
+        }
+    }
+
+    public void record(RedirectResult.Outcome outcome, String shortCode) {
+        counters[outcome.ordinal()].increment();
+        if (outcome == RedirectResult.Outcome.FOUND) {
+            if (hotLinkTracker != null) {
+                hotLinkTracker.record(shortCode);
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long logAt = nextMissLogAt.get();
+        if (now < logAt || !nextMissLogAt.compareAndSet(logAt, now + missLogIntervalMs)) {
+            unloggedMisses.incrementAndGet();
+            return;
+        }
+        log.info("Redirect miss for short code {}: {} ({} more misses since last sample)",
+                shortCode, outcome, unloggedMisses.getAndSet(0));
+    }
+}
@@ -0,0 +1,26 @@
+package com.pawan.urlshortner.cache;
+
+/**
+ * Outcome of resolving a short code. Misses are ordinary results rather than
+ * exceptions, so scanner traffic for unknown codes costs no stack traces.
+ * UNAVAILABLE means Mongo could not be asked and nothing stale was known.
+ */
+public record RedirectResult(Outcome outcome, RedirectEntry entry) {
+
+    public enum Outcome {
+        FOUND, NOT_FOUND, INACTIVE, EXPIRED, UNAVAILABLE
+    }
+
+    public static final RedirectResult NOT_FOUND = new RedirectResult(Outcome.NOT_FOUND, null);
+    public static final RedirectResult INACTIVE = new RedirectResult(Outcome.INACTIVE, null);
+    public static final RedirectResult EXPIRED = new RedirectResult(Outcome.EXPIRED, null);
+    public static final RedirectResult UNAVAILABLE = new RedirectResult(Outcome.UNAVAILABLE, null);
+
+    public static RedirectResult found(RedirectEntry entry) {
+        return new RedirectResult(Outcome.FOUND, entry);
+    }
+
+    public boolean isFound() {
+        return outcome == Outcome.FOUND;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.util.SortedMappedFile;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A mapped snapshot of active links, served until it is {@code maxAgeMs} old.
+ * Codes changed since the snapshot was taken, whether found by the catch-up
+ * query or invalidated on this node, are overridden and left to Mongo.
+ */
+class RedirectSnapshot {
+
+    private final SortedMappedFile file;
+    private final long serveUntilMillis;
+    private final Set<String> overridden = ConcurrentHashMap.newKeySet();
+
+    RedirectSnapshot(SortedMappedFile file, long maxAgeMs) {
+        this.file = file;
+        this.serveUntilMillis = file.getCreatedAtMillis() + maxAgeMs;
+    }
+
+    RedirectEntry get(String shortCode, long nowMillis) {
+        if (nowMillis > serveUntilMillis || overridden.contains(shortCode)) {
+            return null;
+        }
+        long key = UrlShortenerUtil.packShortCode(shortCode);
+        byte[] record = key == -1 ? null : file.get(key);
+        return record == null ? null : RedirectEntryCodec.decode(shortCode, record, 0);
+    }
+
+    void override(String shortCode) {
+        overridden.add(shortCode);
+    }
+
+    boolean isServable(long nowMillis) {
+        return nowMillis <= serveUntilMillis;
+    }
+
+    long getCreatedAtMillis() {
+        return file.getCreatedAtMillis();
+    }
+
+    long size() {
+        return file.size();
+    }
+}
@@ -0,0 +1,202 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.util.SortedMappedFile;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Warm start for the redirect cache. Writer nodes periodically stream every
+ * active link, in short code order, into a memory-mapped snapshot file. On
+ * startup a node maps the newest snapshot and attaches it to RedirectCache
+ * straight away, then catches up in the background: every link updated since
+ * the snapshot was taken is overridden so it is read from Mongo instead.
+ *
+ * Deleted links are not visible to the catch-up query, so a snapshot is only
+ * served until it is {@code max-age-ms} old. Codes that cannot be packed
+ * into a long key (custom aliases over 9 characters) are left out.
+ */
+@Slf4j
+@Component
+public class RedirectSnapshotManager {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Value("${app.redirect.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.redirect.snapshot.path:data/redirect-snapshot.bin}")
+    private String path;
+
+    @Value("${app.redirect.snapshot.write-interval-ms:900000}")
+    private long writeIntervalMs;
+
+    @Value("${app.redirect.snapshot.max-age-ms:3600000}")
+    private long maxAgeMs;
+
+    @Value("${app.redirect.snapshot.catch-up-skew-ms:60000}")
+    private long catchUpSkewMs;
+
+    private ScheduledExecutorService scheduler;
+    private volatile RedirectSnapshot snapshot;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("redirect.snapshot.entries", this, manager -> {
+            RedirectSnapshot current = manager.snapshot;
+            return current != null ? current.size() : 0;
+        }).register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(workerThreadFactory);
+        attachExisting();
+        if (writeIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::writeAndExpire, writeIntervalMs, writeIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            scheduler.scheduleWithFixedDelay(this::detachIfAged, maxAgeMs, maxAgeMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Maps the snapshot file if there is a fresh enough one and schedules the catch-up
+     */
+    private void attachExisting() {
+        Path file = Path.of(path);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            RedirectSnapshot mapped = new RedirectSnapshot(SortedMappedFile.open(file), maxAgeMs);
+            if (!mapped.isServable(System.currentTimeMillis())) {
+                log.info("Redirect snapshot {} is older than {} ms, not using it", file, maxAgeMs);
+                return;
+            }
+            snapshot = mapped;
+            redirectCache.attachSnapshot(mapped);
+            log.info("Attached redirect snapshot {} with {} links", file, mapped.size());
+            scheduler.execute(() -> catchUp(mapped));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not map redirect snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Overrides every link updated since the snapshot was taken, less a margin for clock skew
+     */
+    private void catchUp(RedirectSnapshot mapped) {
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(mapped.getCreatedAtMillis() - catchUpSkewMs), ZoneId.systemDefault());
+        Query query = Query.query(Criteria.where("updatedAt").gte(since));
+        query.fields().include("shortCode");
+
+        int overridden = 0;
+        try {
+            mongoTemplate.indexOps(UrlMapping.class).ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the updatedAt index: {}", e.getMessage());
+        }
+        try (Stream<UrlMapping> changed = mongoTemplate.stream(query, UrlMapping.class)) {
+            for (Iterator<UrlMapping> it = changed.iterator(); it.hasNext(); overridden++) {
+                mapped.override(it.next().getShortCode());
+            }
+            log.info("Redirect snapshot caught up: {} links changed since it was taken", overridden);
+        } catch (RuntimeException e) {
+            // Serving a few changed links for a while beats hammering Mongo on a cold start
+            log.warn("Redirect snapshot catch-up failed after {} links: {}", overridden, e.getMessage());
+        }
+    }
+
+    private void writeAndExpire() {
+        try {
+            writeSnapshot();
+        } catch (Exception e) {
+            log.warn("Redirect snapshot write failed: {}", e.getMessage());
+        }
+        detachIfAged();
+    }
+
+    private void detachIfAged() {
+        RedirectSnapshot current = snapshot;
+        if (current != null && !current.isServable(System.currentTimeMillis())) {
+            snapshot = null;
+            redirectCache.attachSnapshot(null);
+            log.info("Detached redirect snapshot taken at {}", Instant.ofEpochMilli(current.getCreatedAtMillis()));
+        }
+    }
+
+    /**
+     * Streams every active, unexpired link into a new snapshot file. Mongo
+     * sorts short codes bytewise, which is the order of their packed keys.
+     */
+    private void writeSnapshot() throws IOException {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("isActive").is(true)
+                        .orOperator(Criteria.where("expirationDate").is(null), Criteria.where("expirationDate").gt(now)))
+                .with(Sort.by("shortCode"))
+                .cursorBatchSize(1000);
+        query.fields().include("originalUrl", "shortCode", "expirationDate", "redirectPolicy");
+
+        try (SortedMappedFile.Writer writer = new SortedMappedFile.Writer(Path.of(path), startedAt);
+             Stream<UrlMapping> mappings = mongoTemplate.stream(query, UrlMapping.class)) {
+            for (Iterator<UrlMapping> it = mappings.iterator(); it.hasNext(); ) {
+                UrlMapping urlMapping = it.next();
+                long key = UrlShortenerUtil.packShortCode(urlMapping.getShortCode());
+                byte[] record = key == -1 ? null : RedirectEntryCodec.encode(urlMapping.getId(),
+                        RedirectEntry.toMillis(urlMapping.getExpirationDate()), urlMapping.getRedirectPolicy(),
+                        urlMapping.getOriginalUrl(), 0);
+                if (record != null) {
+                    writer.append(key, record);
+                }
+            }
+            writer.commit();
+            log.info("Wrote redirect snapshot of {} links in {} ms", writer.getCount(),
+                    System.currentTimeMillis() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pawan.urlshortner.config;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.config.AdmissionControlFilter.RouteGroup;
+import com.pawan.urlshortner.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    /**
+     * Registers admission control right after client rate limiting, with
+     * one limiter per route group configured under app.admission.{group}
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            Environment environment, MeterRegistry meterRegistry, RedirectCache redirectCache) {
+        Map<RouteGroup, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(RouteGroup.class);
+        Map<RouteGroup, Counter> rejections = new EnumMap<>(RouteGroup.class);
+
+        for (RouteGroup group : RouteGroup.values()) {
+            String prefix = "app.admission." + group.name().toLowerCase() + ".";
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    environment.getProperty(prefix + "initial-limit", Integer.class, 20),
+                    environment.getProperty(prefix + "min-limit", Integer.class, 5),
+                    environment.getProperty(prefix + "max-limit", Integer.class, 200));
+            limiters.put(group, limiter);
+
+            String tag = group.name().toLowerCase();
+            rejections.put(group, meterRegistry.counter("admission.rejected", "group", tag));
+            Gauge.builder("admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("group", tag)
+                    .register(meterRegistry);
+            Gauge.builder("admission.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("group", tag)
+                    .register(meterRegistry);
+        }
+
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(limiters, rejections, redirectCache));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setName("admissionControlFilter");
+        return registration;
+    }
+}
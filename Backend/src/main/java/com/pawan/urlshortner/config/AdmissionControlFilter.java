@@ -0,0 +1,103 @@
+package com.pawan.urlshortner.config;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Sheds load before a request takes a worker for long. Each route group has
+ * its own adaptive concurrency limit, so slow redirects cannot starve the API
+ * or the admin pages; requests over the limit get an immediate 503 with
+ * Retry-After. Redirects already in the cache are always admitted because
+ * they never wait on Mongo, and actuator endpoints are never limited.
+ */
+public class AdmissionControlFilter implements Filter {
+
+    public enum RouteGroup {
+        REDIRECT, API, ADMIN
+    }
+
+    private static final byte[] REJECTED_BODY = ("{\"success\":false,"
+            + "\"message\":\"Server is busy, please retry shortly\","
+            + "\"error\":\"SERVICE_UNAVAILABLE\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final Map<RouteGroup, AdaptiveConcurrencyLimiter> limiters;
+    private final Map<RouteGroup, Counter> rejections;
+    private final RedirectCache redirectCache;
+
+    public AdmissionControlFilter(Map<RouteGroup, AdaptiveConcurrencyLimiter> limiters,
+                                  Map<RouteGroup, Counter> rejections, RedirectCache redirectCache) {
+        this.limiters = limiters;
+        this.rejections = rejections;
+        this.redirectCache = redirectCache;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/actuator")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RouteGroup group = routeGroup(path);
+        if (group == RouteGroup.REDIRECT) {
+            String shortCode = RedirectFastLaneFilter.extractShortCode(request);
+            if (shortCode != null && redirectCache.getIfPresent(shortCode, System.currentTimeMillis()) != null) {
+                chain.doFilter(request, response);
+                return;
+            }
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            rejections.get(group).increment();
+            reject(response, group);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - startedAt);
+        }
+    }
+
+    static RouteGroup routeGroup(String path) {
+        if (path.startsWith(RedirectFastLaneFilter.REDIRECT_PREFIX)) {
+            return RouteGroup.REDIRECT;
+        }
+        if (path.equals("/admin") || path.startsWith("/admin/")) {
+            return RouteGroup.ADMIN;
+        }
+        return RouteGroup.API;
+    }
+
+    private static void reject(HttpServletResponse response, RouteGroup group) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        if (group == RouteGroup.REDIRECT) {
+            response.setContentLength(0);
+            return;
+        }
+        response.setContentType("application/json");
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+}
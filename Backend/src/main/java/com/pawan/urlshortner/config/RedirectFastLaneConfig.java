@@ -0,0 +1,27 @@
+package com.pawan.urlshortner.config;
+
+import com.pawan.urlshortner.service.RedirectService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "app.redirect.fast-lane.enabled", havingValue = "true", matchIfMissing = true)
+public class RedirectFastLaneConfig {
+
+    /**
+     * Registers the redirect fast lane right after admission control, ahead
+     * of every other servlet filter including the Spring Security filter chain
+     */
+    @Bean
+    public FilterRegistrationBean<RedirectFastLaneFilter> redirectFastLaneFilter(RedirectService redirectService) {
+        FilterRegistrationBean<RedirectFastLaneFilter> registration =
+                new FilterRegistrationBean<>(new RedirectFastLaneFilter(redirectService));
+        registration.addUrlPatterns(RedirectFastLaneFilter.REDIRECT_PREFIX + "*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        registration.setName("redirectFastLaneFilter");
+        return registration;
+    }
+}
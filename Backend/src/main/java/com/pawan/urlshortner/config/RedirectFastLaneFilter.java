@@ -0,0 +1,69 @@
+package com.pawan.urlshortner.config;
+
+import com.pawan.urlshortner.service.RedirectService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Answers public short-link redirects before Spring Security, CORS and MVC
+ * dispatch run. Anything that is not a GET or HEAD for a single
+ * {@code /s/{shortCode}} segment is passed down the normal chain.
+ */
+public class RedirectFastLaneFilter implements Filter {
+
+    static final String REDIRECT_PREFIX = "/s/";
+
+    private final RedirectService redirectService;
+
+    public RedirectFastLaneFilter(RedirectService redirectService) {
+        this.redirectService = redirectService;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        String shortCode = extractShortCode(request);
+        if (shortCode == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        redirectService.redirect(shortCode, request, response);
+    }
+
+    /**
+     * Returns the short code for a redirect request, or null if the request
+     * should take the regular path
+     */
+    static String extractShortCode(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + REDIRECT_PREFIX.length();
+        if (uri.length() <= start || !uri.startsWith(REDIRECT_PREFIX, start - REDIRECT_PREFIX.length())) {
+            return null;
+        }
+
+        // Nested paths, trailing slashes and path parameters go through MVC as before
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '/' || c == ';' || c == '%') {
+                return null;
+            }
+        }
+        return uri.substring(start);
+    }
+}
@@ -0,0 +1,65 @@
+package com.pawan.urlshortner.config;
+
+import com.pawan.urlshortner.repository.EmbeddedRedirectStore;
+import com.pawan.urlshortner.repository.InMemoryRedirectStore;
+import com.pawan.urlshortner.repository.MongoRedirectStore;
+import com.pawan.urlshortner.repository.RedirectStore;
+import com.pawan.urlshortner.repository.UrlMappingRepository;
+import com.pawan.urlshortner.util.LsmStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class RedirectStoreConfig {
+
+    private static final String BACKEND = "app.redirect.store.backend";
+
+    @Bean
+    @ConditionalOnProperty(name = BACKEND, havingValue = "mongo", matchIfMissing = true)
+    public RedirectStore mongoRedirectStore(UrlMappingRepository urlMappingRepository) {
+        return new MongoRedirectStore(urlMappingRepository);
+    }
+
+    /**
+     * Local on-disk store; nothing is shared with other nodes, so every node
+     * serves the links written through it
+     */
+    @Bean
+    @ConditionalOnProperty(name = BACKEND, havingValue = "embedded")
+    public RedirectStore embeddedRedirectStore(
+            ApplicationContext context,
+            @Value("${app.redirect.store.embedded.path:data/redirect-store}") String path,
+            @Value("${app.redirect.store.embedded.memtable-bytes:8388608}") long memtableBytes,
+            @Value("${app.redirect.store.embedded.max-tables:8}") int maxTables,
+            @Value("${app.redirect.store.embedded.sync-writes:true}") boolean syncWrites) throws IOException {
+        requireRedirectOnly(context, "embedded");
+        return new EmbeddedRedirectStore(new LsmStore(Path.of(path), memtableBytes, maxTables, syncWrites));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = BACKEND, havingValue = "memory")
+    public RedirectStore inMemoryRedirectStore(ApplicationContext context) {
+        requireRedirectOnly(context, "memory");
+        return new InMemoryRedirectStore();
+    }
+
+    /**
+     * Link paging, statistics and expiry read and write Mongo directly, so
+     * only the redirect-only server, which has none of them, may use a
+     * backend other than mongo
+     */
+    private static void requireRedirectOnly(ApplicationContext context, String backend) {
+        if (context instanceof WebApplicationContext || context instanceof ReactiveWebApplicationContext) {
+            throw new IllegalStateException(BACKEND + "=" + backend
+                    + " is only supported by the redirect-only server (RedirectServerApplication)");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.pawan.urlshortner.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ThreadingConfig {
+
+    /**
+     * Thread factory for long-running background workers such as the click
+     * pipeline. Creates virtual threads when spring.threads.virtual.enabled is
+     * set and the app runs on Java 21 (see the java21 Maven profile), daemon
+     * platform threads otherwise.
+     */
+    @Bean
+    public ThreadFactory workerThreadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor("worker-").getVirtualThreadFactory();
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
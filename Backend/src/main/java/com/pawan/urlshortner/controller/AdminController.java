@@ -1,16 +1,21 @@
 package com.pawan.urlshortner.controller;
 
 import com.pawan.urlshortner.dto.response.ApiResponse;
+import com.pawan.urlshortner.dto.response.CleanupTaskResponse;
+import com.pawan.urlshortner.dto.response.ClickStorageReportResponse;
 import com.pawan.urlshortner.dto.response.DashboardStatsResponse;
+import com.pawan.urlshortner.dto.response.JobStatusResponse;
 import com.pawan.urlshortner.dto.response.UrlResponse;
 import com.pawan.urlshortner.dto.response.UserResponse;
 import com.pawan.urlshortner.security.UserPrincipal;
 import com.pawan.urlshortner.service.AdminService;
+import com.pawan.urlshortner.service.ClickSchemaMigrationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -28,6 +33,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private ClickSchemaMigrationService clickSchemaMigrationService;
+
     /**
      * Get admin dashboard statistics
      */
@@ -207,21 +215,65 @@ public class AdminController {
     }
 
     /**
-     * Cleanup expired URLs
+     * Get the schedule, lease and last run of every background job
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<ApiResponse<List<JobStatusResponse>>> getJobStatuses(
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        log.info("Job statuses requested by admin: {}", currentUser.getUsername());
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Job statuses fetched successfully", adminService.getJobStatuses())
+        );
+    }
+
+    /**
+     * Start an expired URL cleanup in the background and return the task to poll;
+     * 409 if the cleanup job is already running
      */
     @PostMapping("/cleanup-expired-urls")
-    public ResponseEntity<ApiResponse<String>> cleanupExpiredUrls(
+    public ResponseEntity<ApiResponse<CleanupTaskResponse>> cleanupExpiredUrls(
             @AuthenticationPrincipal UserPrincipal currentUser) {
 
         log.info("Expired URLs cleanup requested by admin: {}", currentUser.getUsername());
 
-        int cleanedUpCount = adminService.cleanupExpiredUrls();
+        CleanupTaskResponse task = adminService.cleanupExpiredUrls();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                ApiResponse.success("Expired URL cleanup started", task)
+        );
+    }
+
+    /**
+     * Get the progress of an expired URL cleanup task
+     */
+    @GetMapping("/cleanup-expired-urls/{taskId}")
+    public ResponseEntity<ApiResponse<CleanupTaskResponse>> getCleanupStatus(
+            @PathVariable String taskId,
+            @AuthenticationPrincipal UserPrincipal currentUser) {
+
+        log.info("Cleanup task {} status requested by admin: {}", taskId, currentUser.getUsername());
 
         return ResponseEntity.ok(
-                ApiResponse.success(
-                        String.format("Successfully cleaned up %d expired URLs", cleanedUpCount),
-                        String.valueOf(cleanedUpCount)
-                )
+                ApiResponse.success("Cleanup task status fetched successfully", adminService.getCleanupStatus(taskId))
+        );
+    }
+
+    /**
+     * Migrate click documents to the compact schema and report storage sizes
+     */
+    @PostMapping("/clicks/compact-schema")
+    public ResponseEntity<ApiResponse<ClickStorageReportResponse>> migrateClickSchema(
+            @AuthenticationPrincipal UserPrincipal currentUser,
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+
+        log.info("Click schema migration requested by admin: {}, dryRun: {}", currentUser.getUsername(), dryRun);
+
+        ClickStorageReportResponse report = clickSchemaMigrationService.migrate(dryRun);
+
+        return ResponseEntity.ok(
+                ApiResponse.success("Click storage report generated successfully", report)
         );
     }
 
@@ -0,0 +1,43 @@
+package com.pawan.urlshortner.controller;
+
+import com.pawan.urlshortner.cache.PeerCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Internal endpoint other nodes call to resolve the short codes this node
+ * owns in the peer cache ring. Callers prove they are peers with the shared
+ * secret rather than a user JWT.
+ */
+@RestController
+@RequestMapping("/internal/peer-cache")
+@ConditionalOnProperty(name = "app.redirect.peer-cache.enabled", havingValue = "true")
+public class PeerCacheController {
+
+    @Autowired
+    private PeerCache peerCache;
+
+    @GetMapping("/{shortCode}")
+    public ResponseEntity<byte[]> resolve(
+            @PathVariable String shortCode,
+            @RequestHeader(value = PeerCache.SECRET_HEADER, required = false) String secret) {
+        if (!peerCache.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        byte[] answer = peerCache.answer(shortCode);
+        if (answer == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(answer);
+    }
+}
@@ -8,6 +8,7 @@ import com.pawan.urlshortner.model.UrlMapping;
 import com.pawan.urlshortner.repository.UrlMappingRepository;
 import com.pawan.urlshortner.security.UserPrincipal;
 import com.pawan.urlshortner.service.ClickService;
+import com.pawan.urlshortner.service.RedirectService;
 import com.pawan.urlshortner.service.UrlService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -206,50 +207,18 @@ public class UrlController {
 class UrlRedirectController {
 
     @Autowired
-    private UrlService urlService;
-
-    @Autowired
-    private ClickService clickService;
-
-    @Autowired
-    private UrlMappingRepository urlMappingRepository;
+    private RedirectService redirectService;
 
     /**
-     * Redirect short URL to original URL and record click
+     * Redirect short URL to original URL and record click. With the fast lane
+     * enabled, GET and HEAD requests are answered by RedirectFastLaneFilter
+     * before they reach this controller.
      */
     @GetMapping("/s/{shortCode}")
     public void redirectToOriginalUrl(
             @PathVariable String shortCode,
             HttpServletRequest request,
             HttpServletResponse response) throws IOException {
-
-        log.info("Redirect request for short code: {}", shortCode);
-
-        try {
-            // Get original URL
-            String originalUrl = urlService.getOriginalUrl(shortCode);
-
-            // Record the click asynchronously
-            UrlMapping urlMapping = urlMappingRepository.findByShortCode(shortCode)
-                    .orElseThrow(() -> new RuntimeException("URL not found"));
-
-            // Record click in background
-            new Thread(() -> {
-                try {
-                    clickService.recordClick(urlMapping, request);
-                } catch (Exception e) {
-                    log.error("Failed to record click for short code: " + shortCode, e);
-                }
-            }).start();
-
-            log.info("Redirecting {} to {}", shortCode, originalUrl);
-
-            // Perform redirect
-            response.sendRedirect(originalUrl);
-
-        } catch (Exception e) {
-            log.error("Failed to redirect short code: " + shortCode, e);
-            response.sendError(HttpServletResponse.SC_NOT_FOUND, "URL not found or expired");
-        }
+        redirectService.redirect(shortCode, request, response);
     }
-}
\ No newline at end of file
+}
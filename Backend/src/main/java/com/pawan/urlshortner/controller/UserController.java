@@ -76,7 +76,7 @@ public class UserController {
 
         log.info("Fetching dashboard stats for user: {}", currentUser.getUsername());
 
-        User user = userService.findById(currentUser.getId());
+        User user = currentUser.toUserReference();
 
         DashboardStatsResponse dashboardStats = new DashboardStatsResponse();
 
@@ -150,7 +150,7 @@ public class UserController {
 
         log.info("Fetching analytics for user: {} for {} days", currentUser.getUsername(), days);
 
-        User user = userService.findById(currentUser.getId());
+        User user = currentUser.toUserReference();
 
         Map<String, Object> analytics = new java.util.HashMap<>();
 
@@ -1,6 +1,7 @@
 
 package com.pawan.urlshortner.dto.request;
 
+import com.pawan.urlshortner.model.RedirectPolicy;
 import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -19,6 +20,8 @@ public class CreateUrlRequest {
     private String description;
 
     private LocalDateTime expirationDate;
+
+    private RedirectPolicy redirectPolicy;
 }
 
 
@@ -0,0 +1,25 @@
+package com.pawan.urlshortner.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CleanupTaskResponse {
+    private String taskId;
+    private String status;
+    private LocalDateTime cutoff;
+    private long estimatedTotal;
+    private long expired;
+    private int chunks;
+    private double percentComplete;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
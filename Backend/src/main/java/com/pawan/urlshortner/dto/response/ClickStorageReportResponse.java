@@ -0,0 +1,22 @@
+
+package com.pawan.urlshortner.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickStorageReportResponse {
+    private boolean dryRun;
+    private long documentsScanned;
+    private long documentsMigrated;
+    private long legacyBytes;
+    private long compactBytes;
+    private double legacyAvgBytes;
+    private double compactAvgBytes;
+    private double savingsPercent;
+    private long userAgentDictionarySize;
+    private long refererHostDictionarySize;
+}
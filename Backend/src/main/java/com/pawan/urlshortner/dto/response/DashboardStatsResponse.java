@@ -19,6 +19,7 @@ public class DashboardStatsResponse {
     private Long thisMonthClicks;
     private List<UrlResponse> recentUrls;
     private List<UrlResponse> topUrls;
+    private List<TrendingUrlResponse> trendingUrls;
     private Map<String, Long> clicksByDate;
     private Map<String, Long> clicksByCountry;
     private Map<String, Long> clicksByDevice;
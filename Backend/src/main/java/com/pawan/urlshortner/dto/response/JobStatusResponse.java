@@ -0,0 +1,25 @@
+package com.pawan.urlshortner.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatusResponse {
+    private String name;
+    private String schedule;
+    private LocalDateTime nextRunAt;
+    private String leaseOwner;
+    private LocalDateTime leaseExpiresAt;
+    private Long fencingToken;
+    private String lastRunNode;
+    private LocalDateTime lastRunStartedAt;
+    private Long lastRunDurationMs;
+    private String lastRunOutcome;
+    private Long lastRunProcessed;
+    private String lastRunError;
+}
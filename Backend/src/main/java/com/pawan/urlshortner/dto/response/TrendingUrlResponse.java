@@ -0,0 +1,16 @@
+package com.pawan.urlshortner.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingUrlResponse {
+    private String shortCode;
+    private String shortUrl;
+    private String originalUrl;
+    private String title;
+    private Long recentClicks;
+}
@@ -1,6 +1,7 @@
 
 package com.pawan.urlshortner.dto.response;
 
+import com.pawan.urlshortner.model.RedirectPolicy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,7 @@ public class UrlResponse {
     private String description;
     private boolean isActive;
     private LocalDateTime expirationDate;
+    private RedirectPolicy redirectPolicy;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long clickCount;
@@ -0,0 +1,130 @@
+package com.pawan.urlshortner.edge;
+
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.service.ClickCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking sink for click events on the reactive redirect edge.
+ *
+ * Redirects emit raw clicks without waiting; a single subscriber batches
+ * them, encodes them into the compact schema and appends them with the
+ * click-count increments. Enrichment is left to the main app's click
+ * pipeline, which periodically picks up unenriched clicks from Mongo.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveClickSink {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private ClickCodec clickCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.clicks.raw.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${app.clicks.raw.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.clicks.raw.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private Sinks.Many<Click> sink;
+
+    private Counter droppedClicks;
+    private Counter appendedClicks;
+
+    @PostConstruct
+    public void start() {
+        sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<Click>get(queueCapacity).get());
+        droppedClicks = meterRegistry.counter("clicks.raw.dropped");
+        appendedClicks = meterRegistry.counter("clicks.raw.appended");
+
+        sink.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(flushIntervalMs))
+                .publishOn(Schedulers.boundedElastic())
+                .concatMap(this::append)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        sink.tryEmitComplete();
+    }
+
+    /**
+     * Hands a click to the writer without blocking; drops it if the buffer is full
+     */
+    public void emit(Click click) {
+        while (true) {
+            Sinks.EmitResult result = sink.tryEmitNext(click);
+            if (result == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                // Another redirect is emitting at this instant
+                Thread.onSpinWait();
+                continue;
+            }
+            if (result.isFailure()) {
+                droppedClicks.increment();
+            }
+            return;
+        }
+    }
+
+    private Mono<Void> append(List<Click> batch) {
+        // Dictionary interning blocks, which is why this runs on bounded-elastic
+        for (Click click : batch) {
+            clickCodec.encode(click);
+        }
+
+        return reactiveMongoTemplate.insertAll(batch)
+                .then(incrementClickCounts(batch))
+                .doOnSuccess(ignored -> appendedClicks.increment(batch.size()))
+                .onErrorResume(e -> {
+                    log.error("Failed to append {} raw clicks", batch.size(), e);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> incrementClickCounts(List<Click> batch) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Click click : batch) {
+            counts.merge(click.getUrlMapping().getId(), 1L, Long::sum);
+        }
+
+        ReactiveBulkOperations ops = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class);
+        counts.forEach((urlMappingId, count) -> ops.updateOne(
+                Query.query(Criteria.where("_id").is(urlMappingId)),
+                new Update().inc("clickCount", count)));
+        return ops.execute().then();
+    }
+}
@@ -0,0 +1,132 @@
+package com.pawan.urlshortner.edge;
+
+import com.pawan.urlshortner.cache.RedirectEntry;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.cache.RedirectResult;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.service.RedirectRules;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRedirectHandler {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Autowired
+    private ReactiveClickSink clickSink;
+
+    @Autowired
+    private RedirectOutcomeRecorder outcomeRecorder;
+
+    /**
+     * Redirect short URL to original URL and emit a click event
+     */
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        String shortCode = request.pathVariable("shortCode");
+
+        return findByShortCode(shortCode)
+                .flatMap(urlMapping -> {
+                    RedirectResult.Outcome outcome = outcomeOf(urlMapping);
+                    outcomeRecorder.record(outcome, shortCode);
+                    if (outcome != RedirectResult.Outcome.FOUND) {
+                        return notFound();
+                    }
+
+                    clickSink.emit(toClick(urlMapping, request.exchange().getRequest()));
+                    RedirectEntry entry = RedirectEntry.from(urlMapping);
+                    return ServerResponse.status(entry.status())
+                            .header(HttpHeaders.LOCATION, entry.location())
+                            .header(HttpHeaders.CACHE_CONTROL, entry.cacheControl())
+                            .build();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    outcomeRecorder.record(RedirectResult.Outcome.NOT_FOUND, shortCode);
+                    return notFound();
+                }))
+                .onErrorResume(e -> {
+                    // A lookup failure says nothing about the link, so do not answer 404
+                    log.error("Failed to redirect short code: " + shortCode, e);
+                    outcomeRecorder.record(RedirectResult.Outcome.UNAVAILABLE, shortCode);
+                    return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .build();
+                });
+    }
+
+    private static RedirectResult.Outcome outcomeOf(UrlMapping urlMapping) {
+        if (!urlMapping.isActive()) {
+            return RedirectResult.Outcome.INACTIVE;
+        }
+        if (RedirectRules.isExpired(urlMapping, LocalDateTime.now())) {
+            return RedirectResult.Outcome.EXPIRED;
+        }
+        return RedirectResult.Outcome.FOUND;
+    }
+
+    private static Mono<ServerResponse> notFound() {
+        return ServerResponse.status(HttpStatus.NOT_FOUND).bodyValue("URL not found or expired");
+    }
+
+    /**
+     * Loads only the fields the redirect needs; createdBy is a DBRef, which the
+     * reactive driver cannot resolve
+     */
+    private Mono<UrlMapping> findByShortCode(String shortCode) {
+        Query query = Query.query(Criteria.where("shortCode").is(shortCode));
+        query.fields().include("originalUrl", "shortCode", "isActive", "expirationDate", "redirectPolicy");
+        return reactiveMongoTemplate.findOne(query, UrlMapping.class);
+    }
+
+    private static Click toClick(UrlMapping urlMapping, ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+
+        Click click = new Click();
+        click.setUrlMapping(urlMapping);
+        click.setIpAddress(getClientIpAddress(request));
+        String userAgent = headers.getFirst(HttpHeaders.USER_AGENT);
+        click.setUserAgent(userAgent != null ? userAgent : "Unknown");
+        String referer = headers.getFirst(HttpHeaders.REFERER);
+        click.setReferer(referer != null ? referer : "Direct");
+        click.setClickedAt(LocalDateTime.now());
+        return click;
+    }
+
+    /**
+     * Same header precedence as ClickService on the servlet path
+     */
+    private static String getClientIpAddress(ServerHttpRequest request) {
+        String xForwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+
+        String xRealIp = request.getHeaders().getFirst("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : null;
+    }
+}
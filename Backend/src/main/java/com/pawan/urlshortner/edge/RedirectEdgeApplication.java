@@ -0,0 +1,36 @@
+package com.pawan.urlshortner.edge;
+
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Redirect-only edge application serving {@code GET /s/{shortCode}} on WebFlux
+ * and the reactive Mongo driver. It shares the Mongo database, UrlMapping and
+ * redirect rules with the main app and runs next to it as a separate process,
+ * configured from redirect-edge.properties.
+ *
+ * Run from the same jar as the main app:
+ * <pre>
+ * java -Dloader.main=com.pawan.urlshortner.edge.RedirectEdgeApplication -jar url-shortener.jar
+ * mvn spring-boot:run -Dstart-class=com.pawan.urlshortner.edge.RedirectEdgeApplication
+ * </pre>
+ *
+ * The reactive-web condition keeps the main servlet app, which scans this
+ * package too, from picking up any of the edge beans.
+ */
+@SpringBootApplication
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import(RedirectOutcomeRecorder.class)
+public class RedirectEdgeApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(RedirectEdgeApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .properties("spring.config.name=redirect-edge")
+                .run(args);
+    }
+}
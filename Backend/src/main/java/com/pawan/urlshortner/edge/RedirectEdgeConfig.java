@@ -0,0 +1,55 @@
+package com.pawan.urlshortner.edge;
+
+import com.pawan.urlshortner.service.ClickCodec;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class RedirectEdgeConfig {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Same stored shape as the main app: no _class field
+        MappingMongoConverter converter = (MappingMongoConverter) reactiveMongoTemplate.getConverter();
+        converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    }
+
+    /**
+     * Reactor Netty rather than the Tomcat that is also on the classpath for the main app
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> redirectRoutes(ReactiveRedirectHandler redirectHandler) {
+        return RouterFunctions.route(GET("/s/{shortCode}"), redirectHandler::redirect);
+    }
+
+    /**
+     * Click encoding shared with the main app so both write the same compact
+     * schema and dictionary ids. Dictionary lookups block, so the click sink
+     * only calls it from its bounded-elastic writer.
+     */
+    @Bean
+    public ClickCodec clickCodec() {
+        return new ClickCodec();
+    }
+}
@@ -0,0 +1,136 @@
+package com.pawan.urlshortner.edge.server;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.service.ClickPipeline;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Standalone redirect server on plain Netty: an HTTP/1.1 request decoder and
+ * RedirectHttpHandler, nothing else. Shares the redirect cache, UrlMapping
+ * persistence and click pipeline with the main app.
+ */
+@Slf4j
+@Component
+@ConditionalOnNotWebApplication
+public class NettyRedirectServer implements SmartLifecycle {
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private RedirectOutcomeRecorder outcomeRecorder;
+
+    // Absent without Mongo or when app.clicks.enabled is false
+    @Autowired(required = false)
+    private ClickPipeline clickPipeline;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Value("${app.redirect.server.port:8082}")
+    private int port;
+
+    // 0 lets Netty pick twice the number of cores
+    @Value("${app.redirect.server.io-threads:0}")
+    private int ioThreads;
+
+    @Value("${app.redirect.server.lookup-threads:32}")
+    private int lookupThreads;
+
+    // Misses waiting for a lookup thread; beyond this they are answered 503
+    @Value("${app.redirect.server.lookup-queue-capacity:1024}")
+    private int lookupQueueCapacity;
+
+    @Value("${app.redirect.server.path-prefix:/s/}")
+    private String pathPrefix;
+
+    @Value("${app.redirect.server.idle-timeout-seconds:60}")
+    private int idleTimeoutSeconds;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private ExecutorService lookupExecutor;
+    private Channel serverChannel;
+
+    @Override
+    public void start() {
+        Consumer<Click> clickSink = clickPipeline != null ? clickPipeline::submit : click -> { };
+        if (clickPipeline == null) {
+            log.info("Click recording is off; redirects are served without recording clicks");
+        }
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(ioThreads);
+        lookupExecutor = new ThreadPoolExecutor(lookupThreads, lookupThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(lookupQueueCapacity),
+                workerThreadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 4096)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(new ReadTimeoutHandler(idleTimeoutSeconds))
+                                .addLast(new HttpRequestDecoder())
+                                .addLast(new RedirectHttpHandler(redirectCache, outcomeRecorder, lookupExecutor,
+                                        clickSink, pathPrefix));
+                    }
+                });
+
+        serverChannel = bootstrap.bind(port).syncUninterruptibly().channel();
+        log.info("Netty redirect server listening on port {}", getLocalPort());
+    }
+
+    /**
+     * Port the server is bound to, which differs from the configured one when that is 0
+     */
+    int getLocalPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @Override
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+        bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        lookupExecutor.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return serverChannel != null;
+    }
+}
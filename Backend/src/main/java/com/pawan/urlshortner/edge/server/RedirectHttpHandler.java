@@ -0,0 +1,293 @@
+package com.pawan.urlshortner.edge.server;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectEntry;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.cache.RedirectResult;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.util.SingleFlight;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Serves {@code GET /s/{code}} on a single connection. Responses are written
+ * as raw bytes, redirects straight from the bytes prepared in the cache entry,
+ * so nothing is encoded per request. Cache hits are answered on the event loop; misses are resolved on the
+ * blocking executor with reads paused. Pipelined requests already decoded while a miss is pending are
+ * queued and answered after it, so responses leave in request order. A miss the executor has no room
+ * for is answered 503 with Retry-After straight away.
+ *
+ * One instance per connection; its state is only touched on the channel's event loop.
+ */
+@Slf4j
+public class RedirectHttpHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+    private static final byte[] CONNECTION_CLOSE = ascii("connection: close\r\n\r\n");
+
+    private static final ByteBuf NOT_FOUND = constant(
+            "HTTP/1.1 404 Not Found\r\ncontent-type: text/plain\r\ncontent-length: 24\r\n\r\nURL not found or expired");
+    private static final ByteBuf NOT_FOUND_HEAD = constant(
+            "HTTP/1.1 404 Not Found\r\ncontent-type: text/plain\r\ncontent-length: 24\r\n\r\n");
+    private static final ByteBuf METHOD_NOT_ALLOWED = constant(
+            "HTTP/1.1 405 Method Not Allowed\r\nallow: GET, HEAD\r\ncontent-length: 0\r\n\r\n");
+    private static final ByteBuf SERVICE_UNAVAILABLE = constant(
+            "HTTP/1.1 503 Service Unavailable\r\nretry-after: 1\r\ncontent-length: 0\r\n\r\n");
+    private static final ByteBuf BAD_REQUEST = constant(
+            "HTTP/1.1 400 Bad Request\r\ncontent-length: 0\r\nconnection: close\r\n\r\n");
+
+    private final RedirectCache redirectCache;
+    private final RedirectOutcomeRecorder outcomeRecorder;
+    private final Executor lookupExecutor;
+    private final Consumer<Click> clickSink;
+    private final String pathPrefix;
+
+    // Requests decoded while a miss is being resolved, answered in order once it is written
+    private final ArrayDeque<HttpRequest> queued = new ArrayDeque<>();
+    private boolean lookupPending;
+
+    public RedirectHttpHandler(RedirectCache redirectCache, RedirectOutcomeRecorder outcomeRecorder,
+                               Executor lookupExecutor, Consumer<Click> clickSink, String pathPrefix) {
+        this.redirectCache = redirectCache;
+        this.outcomeRecorder = outcomeRecorder;
+        this.lookupExecutor = lookupExecutor;
+        this.clickSink = clickSink;
+        this.pathPrefix = pathPrefix;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) {
+        // Request bodies (HttpContent) are ignored and released by the superclass
+        if (!(msg instanceof HttpRequest request)) {
+            return;
+        }
+
+        if (lookupPending) {
+            queued.add(request);
+            return;
+        }
+        handle(ctx, request);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        queued.clear();
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * Answers one request, or starts resolving a miss and returns with
+     * lookupPending set
+     */
+    private void handle(ChannelHandlerContext ctx, HttpRequest request) {
+        if (request.decoderResult().isFailure()) {
+            queued.clear();
+            ctx.writeAndFlush(BAD_REQUEST.duplicate()).addListener(ChannelFutureListener.CLOSE);
+            return;
+        }
+
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        if (!keepAlive) {
+            // Requests pipelined after one that closes the connection are never answered
+            queued.clear();
+        }
+        HttpMethod method = request.method();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD) {
+            writeConstant(ctx, METHOD_NOT_ALLOWED, keepAlive);
+            return;
+        }
+
+        ByteBuf notFound = method == HttpMethod.HEAD ? NOT_FOUND_HEAD : NOT_FOUND;
+        String shortCode = extractShortCode(request.uri(), pathPrefix);
+        if (shortCode == null) {
+            outcomeRecorder.record(RedirectResult.Outcome.NOT_FOUND, request.uri());
+            writeConstant(ctx, notFound, keepAlive);
+            return;
+        }
+
+        RedirectEntry entry = redirectCache.getIfPresent(shortCode, System.currentTimeMillis());
+        if (entry != null) {
+            outcomeRecorder.record(RedirectResult.Outcome.FOUND, shortCode);
+            writeRedirect(ctx, entry, keepAlive);
+            recordClick(ctx, request.headers(), entry);
+            return;
+        }
+
+        // Cache miss: Mongo lookups block, so pause reads until the response is written
+        HttpHeaders headers = request.headers();
+        lookupPending = true;
+        ctx.channel().config().setAutoRead(false);
+        try {
+            resolveMiss(ctx, shortCode, headers, keepAlive, notFound);
+        } catch (RejectedExecutionException e) {
+            // Lookup threads and queue are full: shed the miss rather than let work pile up
+            outcomeRecorder.record(RedirectResult.Outcome.UNAVAILABLE, shortCode);
+            writeConstant(ctx, SERVICE_UNAVAILABLE, keepAlive);
+            lookupDone(ctx, keepAlive);
+        }
+    }
+
+    /**
+     * Resolves a miss on the lookup executor and answers it back on the event loop
+     */
+    private void resolveMiss(ChannelHandlerContext ctx, String shortCode, HttpHeaders headers, boolean keepAlive,
+                             ByteBuf notFound) {
+        lookupExecutor.execute(() -> {
+            RedirectResult resolved;
+            ByteBuf failure = SERVICE_UNAVAILABLE;
+            try {
+                resolved = redirectCache.resolve(shortCode);
+                outcomeRecorder.record(resolved.outcome(), shortCode);
+                if (resolved.outcome() != RedirectResult.Outcome.UNAVAILABLE) {
+                    failure = notFound;
+                }
+            } catch (SingleFlight.WaitTimeoutException e) {
+                log.warn("Redirect lookup for {} timed out waiting for a concurrent load", shortCode);
+                resolved = null;
+            } catch (Exception e) {
+                log.error("Failed to resolve short code: " + shortCode, e);
+                resolved = null;
+            }
+
+            RedirectResult result = resolved;
+            ByteBuf miss = failure;
+            ctx.executor().execute(() -> {
+                if (result != null && result.isFound()) {
+                    writeRedirect(ctx, result.entry(), keepAlive);
+                    recordClick(ctx, headers, result.entry());
+                } else {
+                    writeConstant(ctx, miss, keepAlive);
+                }
+                lookupDone(ctx, keepAlive);
+            });
+        });
+    }
+
+    /**
+     * Answers the requests queued behind a miss once its response is written,
+     * resuming reads unless one of them is a miss too
+     */
+    private void lookupDone(ChannelHandlerContext ctx, boolean keepAlive) {
+        lookupPending = false;
+        if (!keepAlive) {
+            return;
+        }
+        while (!lookupPending && !queued.isEmpty()) {
+            handle(ctx, queued.poll());
+        }
+        if (!lookupPending) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.debug("Closing redirect connection after error", cause);
+        ctx.close();
+    }
+
+    /**
+     * Returns the short code from a request URI, or null if it is not a single segment under the prefix
+     */
+    static String extractShortCode(String uri, String pathPrefix) {
+        if (!uri.startsWith(pathPrefix)) {
+            return null;
+        }
+        int end = uri.length();
+        for (int i = pathPrefix.length(); i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+            if (c == '/' || c == '%' || c == ';') {
+                return null;
+            }
+        }
+        return end > pathPrefix.length() ? uri.substring(pathPrefix.length(), end) : null;
+    }
+
+    /**
+     * Writes the entry's prepared response as is, appending the close header when needed
+     */
+    private static void writeRedirect(ChannelHandlerContext ctx, RedirectEntry entry, boolean keepAlive) {
+        byte[] response = entry.httpResponse();
+        if (keepAlive) {
+            ctx.writeAndFlush(Unpooled.wrappedBuffer(response), ctx.voidPromise());
+            return;
+        }
+
+        // Replace the final blank line with the close header
+        ByteBuf buffer = Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(response, 0, response.length - 2),
+                Unpooled.wrappedBuffer(CONNECTION_CLOSE));
+        ctx.writeAndFlush(buffer).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private static void writeConstant(ChannelHandlerContext ctx, ByteBuf response, boolean keepAlive) {
+        if (keepAlive) {
+            ctx.writeAndFlush(response.duplicate(), ctx.voidPromise());
+        } else {
+            ctx.writeAndFlush(response.duplicate()).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private void recordClick(ChannelHandlerContext ctx, HttpHeaders headers, RedirectEntry entry) {
+        Click click = new Click();
+        click.setUrlMapping(entry.toUrlMappingReference());
+        click.setIpAddress(getClientIpAddress(ctx, headers));
+        String userAgent = headers.get(HttpHeaderNames.USER_AGENT);
+        click.setUserAgent(userAgent != null ? userAgent : "Unknown");
+        String referer = headers.get(HttpHeaderNames.REFERER);
+        click.setReferer(referer != null ? referer : "Direct");
+        click.setClickedAt(LocalDateTime.now());
+        clickSink.accept(click);
+    }
+
+    /**
+     * Same header precedence as ClickService on the servlet path
+     */
+    private static String getClientIpAddress(ChannelHandlerContext ctx, HttpHeaders headers) {
+        String xForwardedFor = headers.get("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            int comma = xForwardedFor.indexOf(',');
+            return (comma >= 0 ? xForwardedFor.substring(0, comma) : xForwardedFor).trim();
+        }
+
+        String xRealIp = headers.get("X-Real-IP");
+        if (xRealIp != null && !xRealIp.isEmpty()) {
+            return xRealIp;
+        }
+
+        SocketAddress remoteAddress = ctx.channel().remoteAddress();
+        if (remoteAddress instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            return inet.getAddress().getHostAddress();
+        }
+        return null;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuf constant(String value) {
+        return Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(ascii(value)).asReadOnly());
+    }
+}
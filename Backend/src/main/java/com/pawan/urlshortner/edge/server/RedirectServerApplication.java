@@ -0,0 +1,68 @@
+package com.pawan.urlshortner.edge.server;
+
+import com.pawan.urlshortner.cache.HotLinkTracker;
+import com.pawan.urlshortner.cache.InvalidationBus;
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.cache.RedirectSnapshotManager;
+import com.pawan.urlshortner.config.MongoConverterConfig;
+import com.pawan.urlshortner.config.RedirectStoreConfig;
+import com.pawan.urlshortner.config.ThreadingConfig;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.repository.UrlMappingRepository;
+import com.pawan.urlshortner.service.ClickCodec;
+import com.pawan.urlshortner.service.ClickEnricher;
+import com.pawan.urlshortner.service.ClickPipeline;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+/**
+ * Minimal redirect server: no servlet container, no Spring MVC or WebFlux,
+ * just NettyRedirectServer with the shared redirect cache and click pipeline.
+ * Configured from redirect-server.properties.
+ * <pre>
+ * java -Dloader.main=com.pawan.urlshortner.edge.server.RedirectServerApplication -jar url-shortener.jar
+ * </pre>
+ */
+@SpringBootApplication(exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+        MongoRepositoriesAutoConfiguration.class})
+@ConditionalOnNotWebApplication
+@Import({RedirectCache.class, RedirectOutcomeRecorder.class, ThreadingConfig.class, RedirectStoreConfig.class,
+        RedirectServerApplication.MongoServices.class})
+public class RedirectServerApplication {
+
+    public static void main(String[] args) {
+        application().run(args);
+    }
+
+    static SpringApplicationBuilder application() {
+        return new SpringApplicationBuilder(RedirectServerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.name=redirect-server");
+    }
+
+    /**
+     * Mongo and everything that needs it: the mongo store, clicks, hot links,
+     * the snapshot, cross-node invalidations and jobs. None of it is loaded
+     * with the embedded or memory backend, so the server then starts and
+     * serves without any network dependency, and without recording clicks.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "app.redirect.store.backend", havingValue = "mongo", matchIfMissing = true)
+    @EnableMongoRepositories(basePackageClasses = UrlMappingRepository.class)
+    // Imported as plain configuration: auto-configuration exclusions apply across the whole context
+    @Import({MongoAutoConfiguration.class, MongoDataAutoConfiguration.class, HotLinkTracker.class,
+            RedirectSnapshotManager.class, InvalidationBus.class, ClickPipeline.class, ClickCodec.class,
+            ClickEnricher.class, MongoConverterConfig.class, JobScheduler.class})
+    static class MongoServices {
+    }
+}
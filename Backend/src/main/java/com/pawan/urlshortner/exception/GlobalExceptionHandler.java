@@ -3,6 +3,7 @@ package com.pawan.urlshortner.exception;
 
 import com.pawan.urlshortner.dto.response.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -25,28 +26,41 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(CustomException.class)
     public ResponseEntity<ApiResponse<Object>> handleCustomException(CustomException ex, WebRequest request) {
-        log.error("Custom exception occurred: ", ex);
+        if (ex.getStatus().is5xxServerError()) {
+            log.error("Custom exception occurred: ", ex);
+        } else {
+            log.warn("Custom exception occurred: {}", ex.getMessage());
+        }
         ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), ex.getClass().getSimpleName());
         return new ResponseEntity<>(response, ex.getStatus());
     }
 
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ApiResponse<Object>> handleResourceNotFoundException(ResourceNotFoundException ex, WebRequest request) {
-        log.error("Resource not found: ", ex);
+        log.warn("Resource not found: {}", ex.getMessage());
         ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), "RESOURCE_NOT_FOUND");
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ApiResponse<Object>> handleBadRequestException(BadRequestException ex, WebRequest request) {
-        log.error("Bad request: ", ex);
+        log.warn("Bad request: {}", ex.getMessage());
         ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), "BAD_REQUEST");
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceUnavailableException(ServiceUnavailableException ex, WebRequest request) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+        ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), "SERVICE_UNAVAILABLE");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        log.error("Validation error: ", ex);
+        log.warn("Validation error: {} field error(s)", ex.getBindingResult().getErrorCount());
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -61,7 +75,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(DuplicateKeyException.class)
     public ResponseEntity<ApiResponse<Object>> handleDuplicateKeyException(DuplicateKeyException ex, WebRequest request) {
-        log.error("Duplicate key error: ", ex);
+        log.warn("Duplicate key error: {}", ex.getMessage());
         String message = "Resource already exists";
         if (ex.getMessage().contains("username")) {
             message = "Username already exists";
@@ -77,21 +91,21 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<ApiResponse<Object>> handleAuthenticationException(AuthenticationException ex, WebRequest request) {
-        log.error("Authentication error: ", ex);
+        log.warn("Authentication error: {}", ex.getMessage());
         ApiResponse<Object> response = ApiResponse.error("Authentication failed", "AUTHENTICATION_ERROR");
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ApiResponse<Object>> handleBadCredentialsException(BadCredentialsException ex, WebRequest request) {
-        log.error("Bad credentials: ", ex);
+        log.warn("Bad credentials: {}", ex.getMessage());
         ApiResponse<Object> response = ApiResponse.error("Invalid username or password", "INVALID_CREDENTIALS");
         return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ApiResponse<Object>> handleAccessDeniedException(AccessDeniedException ex, WebRequest request) {
-        log.error("Access denied: ", ex);
+        log.warn("Access denied: {}", ex.getMessage());
         ApiResponse<Object> response = ApiResponse.error("Access denied", "ACCESS_DENIED");
         return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
     }
@@ -0,0 +1,11 @@
+package com.pawan.urlshortner.jobs;
+
+/**
+ * Periodic work run by JobScheduler on whichever node holds the job's
+ * lease. Returns how many items it handled, which is recorded with the run.
+ */
+@FunctionalInterface
+public interface Job {
+
+    long run(JobContext context) throws Exception;
+}
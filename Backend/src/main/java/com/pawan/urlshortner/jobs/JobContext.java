@@ -0,0 +1,44 @@
+package com.pawan.urlshortner.jobs;
+
+/**
+ * What a running job knows about its lease. The fencing token grows with
+ * every acquisition of the lease, so writes tagged with it can be rejected
+ * once a newer holder exists. Long jobs should check the lease between
+ * batches and stop once it is lost.
+ */
+public class JobContext {
+
+    private final String jobName;
+    private final long fencingToken;
+    private volatile boolean leaseLost;
+
+    JobContext(String jobName, long fencingToken) {
+        this.jobName = jobName;
+        this.fencingToken = fencingToken;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public boolean isLeaseHeld() {
+        return !leaseLost;
+    }
+
+    /**
+     * Throws if the lease could not be renewed and another node may have taken over
+     */
+    public void checkLease() {
+        if (leaseLost) {
+            throw new IllegalStateException("Lease for job " + jobName + " was lost");
+        }
+    }
+
+    void leaseLost() {
+        leaseLost = true;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pawan.urlshortner.jobs;
+
+/**
+ * Result of one run of a job on this node
+ */
+public record JobRun(Outcome outcome, long processed, long durationMs, String error) {
+
+    public enum Outcome {
+        SUCCEEDED, FAILED, LEASE_LOST
+    }
+}
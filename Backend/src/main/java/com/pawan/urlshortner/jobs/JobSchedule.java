@@ -0,0 +1,73 @@
+package com.pawan.urlshortner.jobs;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * When a job is due: a fixed rate or a Spring cron expression. Every node
+ * computes the same slots, so the lease only has to settle which node runs
+ * each one. Fixed-rate slots are aligned to the epoch; cron slots follow the
+ * system time zone, which must match across nodes.
+ */
+public final class JobSchedule {
+
+    private final Duration rate;
+    private final CronExpression cron;
+    private final String text;
+
+    private JobSchedule(Duration rate, CronExpression cron, String text) {
+        this.rate = rate;
+        this.cron = cron;
+        this.text = text;
+    }
+
+    public static JobSchedule fixedRate(Duration rate) {
+        if (rate.isNegative() || rate.isZero()) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        return new JobSchedule(rate, null, "every " + rate);
+    }
+
+    public static JobSchedule cron(String expression) {
+        return new JobSchedule(null, CronExpression.parse(expression), "cron " + expression);
+    }
+
+    /**
+     * An ISO-8601 duration such as PT15M, or plain milliseconds, for a fixed
+     * rate; anything else is read as a cron expression
+     */
+    public static JobSchedule parse(String value) {
+        String trimmed = value.trim();
+        if (trimmed.startsWith("P") || trimmed.startsWith("p")) {
+            return fixedRate(Duration.parse(trimmed));
+        }
+        if (trimmed.chars().allMatch(Character::isDigit)) {
+            return fixedRate(Duration.ofMillis(Long.parseLong(trimmed)));
+        }
+        return cron(trimmed);
+    }
+
+    /**
+     * The first slot strictly after the given instant
+     */
+    public Instant nextAfter(Instant instant) {
+        if (rate != null) {
+            long period = rate.toMillis();
+            return Instant.ofEpochMilli((Math.floorDiv(instant.toEpochMilli(), period) + 1) * period);
+        }
+        ZonedDateTime next = cron.next(ZonedDateTime.ofInstant(instant, ZoneId.systemDefault()));
+        if (next == null) {
+            throw new IllegalStateException("Cron schedule " + text + " has no further runs");
+        }
+        return next.toInstant();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
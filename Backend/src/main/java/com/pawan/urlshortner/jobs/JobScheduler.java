@@ -0,0 +1,337 @@
+package com.pawan.urlshortner.jobs;
+
+import com.pawan.urlshortner.dto.response.JobStatusResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs periodic jobs on one node at a time. Each job has a lease document in
+ * the job_leases collection; when a slot comes up every node tries to take
+ * the lease with one conditional findAndModify, and only the winner runs the
+ * job. The lease records the last slot run, so a node that wakes up late
+ * cannot run a slot again once another node has released it.
+ *
+ * A run holds its lease for {@code lease-ms} and renews it every third of
+ * that; each acquisition increments a fencing token handed to the job. Runs
+ * end by releasing the lease and recording node, duration, outcome and item
+ * count on the lease document, guarded by the token so a holder that lost
+ * its lease cannot overwrite its successor. Lease expiry compares node
+ * clocks, so leases must be much longer than the clock skew between nodes.
+ */
+@Slf4j
+@Component
+public class JobScheduler {
+
+    static final String COLLECTION = "job_leases";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    // Turns off scheduled runs on this node; runInBackground still works
+    @Value("${app.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jobs.lease-ms:60000}")
+    private long leaseMs;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+    private final Map<String, Registration> jobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService timer;
+
+    private record Registration(String name, JobSchedule schedule, Job job, AtomicBoolean running) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // Triggers and lease renewals only; jobs run on their own threads
+        timer = Executors.newSingleThreadScheduledExecutor(workerThreadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    public void register(String name, JobSchedule schedule, Job job) {
+        Registration registration = new Registration(name, schedule, job, new AtomicBoolean());
+        if (jobs.putIfAbsent(name, registration) != null) {
+            throw new IllegalArgumentException("Job already registered: " + name);
+        }
+        log.info("Registered job {} ({})", name, schedule);
+        if (enabled) {
+            scheduleNext(registration, Instant.now());
+        }
+    }
+
+    /**
+     * Takes the job's lease and starts a run on a worker thread, outside its
+     * schedule. Returns false, without running anything, when the job is
+     * already running here or on another node.
+     */
+    public boolean runInBackground(String name) {
+        Registration registration = jobs.get(name);
+        if (registration == null) {
+            throw new IllegalArgumentException("Unknown job: " + name);
+        }
+        if (!registration.running().compareAndSet(false, true)) {
+            return false;
+        }
+
+        Long token;
+        try {
+            token = acquire(name, -1);
+        } catch (RuntimeException e) {
+            registration.running().set(false);
+            throw e;
+        }
+        if (token == null) {
+            registration.running().set(false);
+            return false;
+        }
+
+        Thread thread = workerThreadFactory.newThread(() -> {
+            try {
+                run(registration, token);
+            } finally {
+                registration.running().set(false);
+            }
+        });
+        thread.setName("job-" + name);
+        thread.start();
+        return true;
+    }
+
+    public List<JobStatusResponse> status() {
+        Map<String, Document> leases = new HashMap<>();
+        for (Document lease : mongoTemplate.getCollection(COLLECTION).find()) {
+            leases.put(lease.getString("_id"), lease);
+        }
+
+        List<JobStatusResponse> statuses = new ArrayList<>();
+        for (Registration registration : jobs.values()) {
+            JobStatusResponse status = new JobStatusResponse();
+            status.setName(registration.name());
+            status.setSchedule(registration.schedule().toString());
+            if (enabled) {
+                status.setNextRunAt(toLocal(Date.from(registration.schedule().nextAfter(Instant.now()))));
+            }
+            Document lease = leases.get(registration.name());
+            if (lease != null) {
+                status.setLeaseOwner(lease.getString("owner"));
+                status.setLeaseExpiresAt(toLocal(lease.getDate("expiresAt")));
+                status.setFencingToken(toLong(lease.get("token")));
+                Document lastRun = lease.get("lastRun", Document.class);
+                if (lastRun != null) {
+                    status.setLastRunNode(lastRun.getString("node"));
+                    status.setLastRunStartedAt(toLocal(lastRun.getDate("startedAt")));
+                    status.setLastRunDurationMs(toLong(lastRun.get("durationMs")));
+                    status.setLastRunOutcome(lastRun.getString("outcome"));
+                    status.setLastRunProcessed(toLong(lastRun.get("processed")));
+                    status.setLastRunError(lastRun.getString("error"));
+                }
+            }
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    private void scheduleNext(Registration registration, Instant after) {
+        Instant slot = registration.schedule().nextAfter(after);
+        long delay = Math.max(0, slot.toEpochMilli() - System.currentTimeMillis());
+        try {
+            timer.schedule(() -> fire(registration, slot), delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Shutting down
+            log.debug("Job {} not rescheduled: {}", registration.name(), e.getMessage());
+        }
+    }
+
+    private void fire(Registration registration, Instant slot) {
+        start(registration, slot);
+
+        // Slots missed while this node was stalled are skipped rather than queued
+        Instant now = Instant.now();
+        scheduleNext(registration, now.isAfter(slot) ? now : slot);
+    }
+
+    private void start(Registration registration, Instant slot) {
+        Thread thread = workerThreadFactory.newThread(() -> {
+            try {
+                runIfLeader(registration, slot.toEpochMilli());
+            } catch (RuntimeException e) {
+                log.warn("Job {} could not be started: {}", registration.name(), e.getMessage());
+            }
+        });
+        thread.setName("job-" + registration.name());
+        thread.start();
+    }
+
+    private JobRun runIfLeader(Registration registration, long slot) {
+        if (!registration.running().compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            Long token = acquire(registration.name(), slot);
+            if (token == null) {
+                return null;
+            }
+            return run(registration, token);
+        } finally {
+            registration.running().set(false);
+        }
+    }
+
+    /**
+     * Takes the job's lease if it is free or already ours and, for scheduled
+     * runs, the slot has not been run yet. Returns the new fencing token, or
+     * null if another node holds the lease or already ran the slot.
+     */
+    private Long acquire(String name, long slot) {
+        long now = System.currentTimeMillis();
+        Criteria criteria = Criteria.where("_id").is(name);
+        if (slot >= 0) {
+            criteria = criteria.and("lastSlot").lt(slot);
+        }
+        criteria = criteria.orOperator(
+                Criteria.where("expiresAt").lte(new Date(now)),
+                Criteria.where("owner").is(nodeId));
+
+        Update update = new Update()
+                .set("owner", nodeId)
+                .set("expiresAt", new Date(now + leaseMs))
+                .inc("token", 1L);
+        if (slot >= 0) {
+            update.set("lastSlot", slot);
+        } else {
+            update.setOnInsert("lastSlot", 0L);
+        }
+
+        try {
+            // When the filter does not match an existing lease, the upsert
+            // collides with it on _id
+            Document lease = mongoTemplate.findAndModify(Query.query(criteria), update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLLECTION);
+            return lease != null ? toLong(lease.get("token")) : null;
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private JobRun run(Registration registration, long token) {
+        String name = registration.name();
+        JobContext context = new JobContext(name, token);
+        long renewEvery = Math.max(1, leaseMs / 3);
+        ScheduledFuture<?> renewal = timer.scheduleAtFixedRate(() -> renew(context), renewEvery, renewEvery,
+                TimeUnit.MILLISECONDS);
+
+        Date startedAt = new Date();
+        long started = System.nanoTime();
+        JobRun result;
+        try {
+            long processed = registration.job().run(context);
+            result = new JobRun(context.isLeaseHeld() ? JobRun.Outcome.SUCCEEDED : JobRun.Outcome.LEASE_LOST,
+                    processed, elapsedMs(started), null);
+        } catch (Exception e) {
+            log.error("Job {} failed", name, e);
+            result = new JobRun(context.isLeaseHeld() ? JobRun.Outcome.FAILED : JobRun.Outcome.LEASE_LOST,
+                    0, elapsedMs(started), String.valueOf(e.getMessage()));
+        } finally {
+            renewal.cancel(false);
+        }
+
+        Timer.builder("jobs.run")
+                .tag("job", name)
+                .tag("outcome", result.outcome().name().toLowerCase())
+                .register(meterRegistry)
+                .record(result.durationMs(), TimeUnit.MILLISECONDS);
+        release(name, token, startedAt, result);
+        log.info("Job {} {} in {} ms, {} items (token {})", name, result.outcome(), result.durationMs(),
+                result.processed(), token);
+        return result;
+    }
+
+    private void renew(JobContext context) {
+        try {
+            long matched = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(context.getJobName())
+                            .and("token").is(context.getFencingToken())),
+                    new Update().set("expiresAt", new Date(System.currentTimeMillis() + leaseMs)),
+                    COLLECTION).getMatchedCount();
+            if (matched == 0) {
+                context.leaseLost();
+                log.warn("Job {} lost its lease (token {})", context.getJobName(), context.getFencingToken());
+            }
+        } catch (RuntimeException e) {
+            // The lease may still be ours; the next renewal tries again
+            log.warn("Could not renew the lease of job {}: {}", context.getJobName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Frees the lease for the next slot and records the run, unless a newer
+     * token has taken the lease meanwhile
+     */
+    private void release(String name, long token, Date startedAt, JobRun result) {
+        Document lastRun = new Document("node", nodeId)
+                .append("token", token)
+                .append("startedAt", startedAt)
+                .append("durationMs", result.durationMs())
+                .append("outcome", result.outcome().name())
+                .append("processed", result.processed())
+                .append("error", result.error());
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(name).and("token").is(token)),
+                    new Update().set("expiresAt", new Date()).set("lastRun", lastRun), COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Could not record the run of job {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static LocalDateTime toLocal(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
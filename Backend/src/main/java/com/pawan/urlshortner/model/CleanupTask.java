@@ -0,0 +1,55 @@
+package com.pawan.urlshortner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one expired URL cleanup. The task walks url_mappings in _id
+ * order and checkpoints the last id it handled, so an interrupted task can
+ * be resumed where it stopped.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cleanup_tasks")
+public class CleanupTask {
+    @Id
+    private String id;
+
+    private Status status;
+
+    // Links that expired at or before this time are flipped
+    private LocalDateTime cutoff;
+
+    // Last url_mappings _id handled; null until the first chunk is done
+    private String lastId;
+
+    // Expired active links when the task started, for progress
+    private long estimatedTotal;
+
+    private long expired;
+
+    private int chunks;
+
+    // Lease token of the job run that owns the task
+    private Long fencingToken;
+
+    private String error;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    public enum Status {
+        PENDING, RUNNING, INTERRUPTED, COMPLETED
+    }
+}
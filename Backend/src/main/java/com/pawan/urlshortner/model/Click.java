@@ -5,11 +5,18 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 
+/**
+ * Click document in its compact stored form. User agents and referer hosts are
+ * stored as ids into dictionary collections and the IP as raw address bytes;
+ * the readable values live in transient fields filled in by ClickCodec.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,21 +26,42 @@ public class Click {
     private String id;
 
     @DBRef
+    @Field("m")
     private UrlMapping urlMapping;
 
-    private String ipAddress;
+    @Field("ip")
+    private byte[] ip;
 
-    private String userAgent;
+    @Field("ua")
+    private Integer userAgentId;
 
-    private String referer;
+    @Field("rh")
+    private Integer refererHostId;
 
+    @Field("co")
     private String country;
 
+    @Field("ci")
     private String city;
 
+    @Field("dv")
     private String device;
 
+    @Field("br")
     private String browser;
 
+    @Field("ts")
     private LocalDateTime clickedAt;
-}
\ No newline at end of file
+
+    @Field("ea")
+    private LocalDateTime enrichedAt;
+
+    @Transient
+    private String ipAddress;
+
+    @Transient
+    private String userAgent;
+
+    @Transient
+    private String referer;
+}
@@ -0,0 +1,43 @@
+package com.pawan.urlshortner.model;
+
+/**
+ * How a short link's redirect may be cached by browsers and CDNs. Cached
+ * redirects never reach the server, so their clicks are not counted; links
+ * that need exact click counts stay UNCACHEABLE, which is also the default.
+ *
+ * max-age is capped by the policy and never runs past the link's expirationDate.
+ */
+public enum RedirectPolicy {
+    PERMANENT(301, "public", 86_400),
+    TEMPORARY(302, "private", 300),
+    UNCACHEABLE(302, null, 0);
+
+    private final int status;
+    private final String visibility;
+    private final long maxAgeSeconds;
+
+    RedirectPolicy(int status, String visibility, long maxAgeSeconds) {
+        this.status = status;
+        this.visibility = visibility;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public static RedirectPolicy orDefault(RedirectPolicy policy) {
+        return policy != null ? policy : UNCACHEABLE;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Cache-Control value for a link with the given seconds left before it expires
+     */
+    public String cacheControl(long secondsUntilExpiry) {
+        long maxAge = Math.min(maxAgeSeconds, secondsUntilExpiry);
+        if (maxAge <= 0) {
+            return "no-store";
+        }
+        return visibility + ", max-age=" + maxAge;
+    }
+}
@@ -40,6 +40,8 @@ public class UrlMapping {
 
     private LocalDateTime expirationDate;
 
+    private RedirectPolicy redirectPolicy;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
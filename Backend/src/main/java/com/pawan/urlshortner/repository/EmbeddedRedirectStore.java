@@ -0,0 +1,176 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.util.LsmStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * RedirectStore in a local LsmStore directory, so a redirect node can serve
+ * without any network dependency. Links are keyed by short code.
+ *
+ * Two secondary keys live in the same store, under a prefix no short code
+ * may start with: the short code per link id, and the short codes per owner.
+ * They are written after the link itself, and every read through them
+ * checks the link it finds, so a write cut short by a crash leaves at worst
+ * an index entry that is ignored.
+ */
+public class EmbeddedRedirectStore implements RedirectStore, Closeable {
+
+    private static final String INDEX_PREFIX = "\u0000";
+    private static final String ID_PREFIX = INDEX_PREFIX + "id:";
+    private static final String OWNER_PREFIX = INDEX_PREFIX + "owner:";
+
+    private final LsmStore store;
+
+    public EmbeddedRedirectStore(LsmStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Optional<UrlMapping> findByShortCode(String shortCode) {
+        byte[] encoded = isReserved(shortCode) ? null : store.get(shortCode);
+        return encoded == null ? Optional.empty() : Optional.of(UrlMappingCodec.decode(encoded));
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return !isReserved(shortCode) && store.get(shortCode) != null;
+    }
+
+    @Override
+    public List<UrlMapping> findByShortCodes(Collection<String> shortCodes) {
+        return shortCodes.stream().distinct().map(this::findByShortCode).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public Optional<UrlMapping> findById(String id) {
+        byte[] shortCode = store.get(ID_PREFIX + id);
+        return shortCode == null
+                ? Optional.empty()
+                : findByShortCode(new String(shortCode, StandardCharsets.UTF_8))
+                        .filter(urlMapping -> id.equals(urlMapping.getId()));
+    }
+
+    @Override
+    public List<UrlMapping> findByOwner(String userId) {
+        List<UrlMapping> owned = new ArrayList<>();
+        for (String shortCode : codesOf(userId)) {
+            findByShortCode(shortCode)
+                    .filter(urlMapping -> userId.equals(UrlMappingCodec.ownerId(urlMapping)))
+                    .ifPresent(owned::add);
+        }
+        owned.sort(UrlMappingCodec.NEWEST_FIRST);
+        return owned;
+    }
+
+    @Override
+    public synchronized UrlMapping save(UrlMapping urlMapping) {
+        if (isReserved(urlMapping.getShortCode())) {
+            throw new IllegalArgumentException("Short code may not start with a NUL character");
+        }
+        UrlMapping stored = UrlMappingCodec.withId(urlMapping);
+        String shortCode = stored.getShortCode();
+        UrlMapping previous = findByShortCode(shortCode).orElse(null);
+
+        store.put(shortCode, UrlMappingCodec.encode(stored));
+        store.put(ID_PREFIX + stored.getId(), shortCode.getBytes(StandardCharsets.UTF_8));
+        if (previous != null && !previous.getId().equals(stored.getId())) {
+            store.delete(ID_PREFIX + previous.getId());
+        }
+        String ownerId = UrlMappingCodec.ownerId(stored);
+        if (previous != null && !Objects.equals(UrlMappingCodec.ownerId(previous), ownerId)) {
+            removeCode(UrlMappingCodec.ownerId(previous), shortCode);
+        }
+        addCode(ownerId, shortCode);
+        return stored;
+    }
+
+    @Override
+    public synchronized void delete(UrlMapping urlMapping) {
+        UrlMapping previous = findByShortCode(urlMapping.getShortCode()).orElse(null);
+        if (previous == null) {
+            return;
+        }
+        store.delete(previous.getShortCode());
+        store.delete(ID_PREFIX + previous.getId());
+        removeCode(UrlMappingCodec.ownerId(previous), previous.getShortCode());
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private void addCode(String ownerId, String shortCode) {
+        if (ownerId == null) {
+            return;
+        }
+        List<String> codes = codesOf(ownerId);
+        if (!codes.contains(shortCode)) {
+            codes.add(shortCode);
+            store.put(OWNER_PREFIX + ownerId, encodeCodes(codes));
+        }
+    }
+
+    private void removeCode(String ownerId, String shortCode) {
+        if (ownerId == null) {
+            return;
+        }
+        List<String> codes = codesOf(ownerId);
+        if (!codes.remove(shortCode)) {
+            return;
+        }
+        if (codes.isEmpty()) {
+            store.delete(OWNER_PREFIX + ownerId);
+        } else {
+            store.put(OWNER_PREFIX + ownerId, encodeCodes(codes));
+        }
+    }
+
+    private List<String> codesOf(String ownerId) {
+        byte[] encoded = store.get(OWNER_PREFIX + ownerId);
+        List<String> codes = new ArrayList<>();
+        if (encoded == null) {
+            return codes;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                codes.add(in.readUTF());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return codes;
+    }
+
+    private static byte[] encodeCodes(List<String> codes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(codes.size());
+            for (String code : codes) {
+                out.writeUTF(code);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean isReserved(String shortCode) {
+        return shortCode.startsWith(INDEX_PREFIX);
+    }
+}
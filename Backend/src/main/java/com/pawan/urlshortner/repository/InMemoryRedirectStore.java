@@ -0,0 +1,75 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.UrlMapping;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RedirectStore held on the heap, for tests and local benchmarks. Links are
+ * kept encoded, so callers never share mutable state with the store. Listing
+ * a user's links scans every link.
+ */
+public class InMemoryRedirectStore implements RedirectStore {
+
+    private final Map<String, byte[]> links = new ConcurrentHashMap<>();
+    // Short code per link id
+    private final Map<String, String> codesById = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<UrlMapping> findByShortCode(String shortCode) {
+        byte[] encoded = links.get(shortCode);
+        return encoded == null ? Optional.empty() : Optional.of(UrlMappingCodec.decode(encoded));
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return links.containsKey(shortCode);
+    }
+
+    @Override
+    public List<UrlMapping> findByShortCodes(Collection<String> shortCodes) {
+        return shortCodes.stream().distinct().map(this::findByShortCode).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public Optional<UrlMapping> findById(String id) {
+        String shortCode = codesById.get(id);
+        return shortCode == null
+                ? Optional.empty()
+                : findByShortCode(shortCode).filter(urlMapping -> id.equals(urlMapping.getId()));
+    }
+
+    @Override
+    public List<UrlMapping> findByOwner(String userId) {
+        return links.values().stream()
+                .map(UrlMappingCodec::decode)
+                .filter(urlMapping -> Objects.equals(userId, UrlMappingCodec.ownerId(urlMapping)))
+                .sorted(UrlMappingCodec.NEWEST_FIRST)
+                .toList();
+    }
+
+    @Override
+    public synchronized UrlMapping save(UrlMapping urlMapping) {
+        UrlMapping stored = UrlMappingCodec.withId(urlMapping);
+        byte[] encoded = UrlMappingCodec.encode(stored);
+        byte[] previous = links.put(stored.getShortCode(), encoded);
+        if (previous != null) {
+            codesById.remove(UrlMappingCodec.decode(previous).getId());
+        }
+        codesById.put(stored.getId(), stored.getShortCode());
+        return UrlMappingCodec.decode(encoded);
+    }
+
+    @Override
+    public synchronized void delete(UrlMapping urlMapping) {
+        byte[] previous = links.remove(urlMapping.getShortCode());
+        if (previous != null) {
+            codesById.remove(UrlMappingCodec.decode(previous).getId());
+        }
+    }
+}
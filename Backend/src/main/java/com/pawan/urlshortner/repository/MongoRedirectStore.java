@@ -0,0 +1,58 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * RedirectStore over the url_mappings collection
+ */
+public class MongoRedirectStore implements RedirectStore {
+
+    private final UrlMappingRepository urlMappingRepository;
+
+    public MongoRedirectStore(UrlMappingRepository urlMappingRepository) {
+        this.urlMappingRepository = urlMappingRepository;
+    }
+
+    @Override
+    public Optional<UrlMapping> findByShortCode(String shortCode) {
+        return urlMappingRepository.findByShortCode(shortCode);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return Boolean.TRUE.equals(urlMappingRepository.existsByShortCode(shortCode));
+    }
+
+    @Override
+    public List<UrlMapping> findByShortCodes(Collection<String> shortCodes) {
+        return shortCodes.isEmpty() ? List.of() : urlMappingRepository.findByShortCodeIn(shortCodes);
+    }
+
+    @Override
+    public Optional<UrlMapping> findById(String id) {
+        return urlMappingRepository.findById(id);
+    }
+
+    @Override
+    public List<UrlMapping> findByOwner(String userId) {
+        // createdBy is a DBRef, matched on the referenced id alone
+        User owner = new User();
+        owner.setId(userId);
+        return urlMappingRepository.findByCreatedByOrderByCreatedAtDesc(owner);
+    }
+
+    @Override
+    public UrlMapping save(UrlMapping urlMapping) {
+        return urlMappingRepository.save(urlMapping);
+    }
+
+    @Override
+    public void delete(UrlMapping urlMapping) {
+        urlMappingRepository.delete(urlMapping);
+    }
+}
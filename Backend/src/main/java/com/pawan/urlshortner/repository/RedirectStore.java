@@ -0,0 +1,45 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.UrlMapping;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage behind the redirect path and link CRUD: looking a link up by short
+ * code or id, listing a user's links and creating, updating or deleting
+ * them. Paging, statistics and expiry stay on Mongo, so the embedded and
+ * memory backends are only accepted by the redirect-only server.
+ *
+ * The backend is picked by {@code app.redirect.store.backend}: mongo (the
+ * default), embedded (an on-disk LSM store, no network needed) or memory.
+ * Implementations must pass RedirectStoreConformanceTest.
+ */
+public interface RedirectStore {
+
+    Optional<UrlMapping> findByShortCode(String shortCode);
+
+    boolean existsByShortCode(String shortCode);
+
+    /**
+     * Links for the given short codes, in no particular order; codes with no
+     * link are left out
+     */
+    List<UrlMapping> findByShortCodes(Collection<String> shortCodes);
+
+    Optional<UrlMapping> findById(String id);
+
+    /**
+     * Links created by the user, newest first
+     */
+    List<UrlMapping> findByOwner(String userId);
+
+    /**
+     * Creates or replaces the link with the same short code, assigning an id
+     * if it has none, and returns the stored copy
+     */
+    UrlMapping save(UrlMapping urlMapping);
+
+    void delete(UrlMapping urlMapping);
+}
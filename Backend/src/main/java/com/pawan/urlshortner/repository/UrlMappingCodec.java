@@ -0,0 +1,134 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.RedirectPolicy;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.model.User;
+import org.bson.types.ObjectId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+
+/**
+ * Binary form of a UrlMapping for the local RedirectStore backends. The
+ * creator is kept as its id only, which is all ownership checks look at.
+ */
+final class UrlMappingCodec {
+
+    private static final int VERSION = 1;
+
+    // The order of RedirectStore.findByOwner
+    static final Comparator<UrlMapping> NEWEST_FIRST = Comparator.comparing(UrlMapping::getCreatedAt,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private UrlMappingCodec() {
+    }
+
+    /**
+     * A copy of the link, with a fresh ObjectId if it has no id yet
+     */
+    static UrlMapping withId(UrlMapping urlMapping) {
+        UrlMapping copy = decode(encode(urlMapping));
+        if (copy.getId() == null) {
+            copy.setId(new ObjectId().toHexString());
+        }
+        return copy;
+    }
+
+    static String ownerId(UrlMapping urlMapping) {
+        return urlMapping.getCreatedBy() != null ? urlMapping.getCreatedBy().getId() : null;
+    }
+
+    static byte[] encode(UrlMapping urlMapping) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, urlMapping.getId());
+            writeString(out, urlMapping.getShortCode());
+            writeString(out, urlMapping.getOriginalUrl());
+            writeString(out, urlMapping.getCreatedBy() != null ? urlMapping.getCreatedBy().getId() : null);
+            writeString(out, urlMapping.getTitle());
+            writeString(out, urlMapping.getDescription());
+            out.writeBoolean(urlMapping.isActive());
+            writeTime(out, urlMapping.getExpirationDate());
+            out.writeByte(urlMapping.getRedirectPolicy() != null ? urlMapping.getRedirectPolicy().ordinal() : -1);
+            writeTime(out, urlMapping.getCreatedAt());
+            writeTime(out, urlMapping.getUpdatedAt());
+            out.writeLong(urlMapping.getClickCount() != null ? urlMapping.getClickCount() : -1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static UrlMapping decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unknown link encoding");
+            }
+            UrlMapping urlMapping = new UrlMapping();
+            urlMapping.setId(readString(in));
+            urlMapping.setShortCode(readString(in));
+            urlMapping.setOriginalUrl(readString(in));
+            String createdBy = readString(in);
+            if (createdBy != null) {
+                User user = new User();
+                user.setId(createdBy);
+                urlMapping.setCreatedBy(user);
+            }
+            urlMapping.setTitle(readString(in));
+            urlMapping.setDescription(readString(in));
+            urlMapping.setActive(in.readBoolean());
+            urlMapping.setExpirationDate(readTime(in));
+            byte policy = in.readByte();
+            urlMapping.setRedirectPolicy(policy >= 0 ? RedirectPolicy.values()[policy] : null);
+            urlMapping.setCreatedAt(readTime(in));
+            urlMapping.setUpdatedAt(readTime(in));
+            long clickCount = in.readLong();
+            urlMapping.setClickCount(clickCount >= 0 ? clickCount : null);
+            return urlMapping;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,7 +32,9 @@ public interface UrlMappingRepository extends MongoRepository<UrlMapping, String
 
     // Admin methods
     Page<UrlMapping> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    List<UrlMapping> findTop5ByOrderByClickCountDesc();
+    List<UrlMapping> findByShortCodeIn(Collection<String> shortCodes);
 
-    @Query("{ 'expirationDate': { $lt: ?0 }, 'isActive': true }")
-    List<UrlMapping> findExpiredUrls(LocalDateTime currentDate);
+    @Query(value = "{ 'expirationDate': { $lt: ?0 }, 'isActive': true }", count = true)
+    long countExpiredUrls(LocalDateTime currentDate);
 }
\ No newline at end of file
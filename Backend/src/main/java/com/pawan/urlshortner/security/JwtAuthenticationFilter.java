@@ -1,6 +1,7 @@
 package com.pawan.urlshortner.security;
 
 import com.pawan.urlshortner.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -26,6 +29,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private ApplicationContext applicationContext;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     private UserService userService;
 
     private UserService getUserService() {
@@ -41,10 +47,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String userId = tokenProvider.getUserIdFromToken(jwt);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.verify(jwt) : null;
 
-                UserDetails userDetails = getUserService().loadUserById(userId);
+            if (claims != null) {
+                UserDetails userDetails = resolvePrincipal(claims);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -58,6 +64,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Resolves the principal from the cache, then from the token claims, and
+     * only falls back to Mongo when the claims cannot be trusted
+     */
+    private UserPrincipal resolvePrincipal(Claims claims) {
+        String userId = claims.getSubject();
+
+        UserPrincipal principal = principalCache.get(userId);
+        if (principal != null) {
+            return principal;
+        }
+
+        String username = claims.get(JwtTokenProvider.USERNAME_CLAIM, String.class);
+        List<?> roles = claims.get(JwtTokenProvider.ROLES_CLAIM, List.class);
+        long validAsOf;
+        if (username != null && roles != null && principalCache.trustsClaims(userId, claims.getIssuedAt())) {
+            principal = UserPrincipal.fromClaims(userId, username,
+                    roles.stream().map(String::valueOf).collect(Collectors.toList()));
+            validAsOf = claims.getIssuedAt().getTime();
+        } else {
+            validAsOf = System.currentTimeMillis();
+            principal = (UserPrincipal) getUserService().loadUserById(userId);
+        }
+
+        principalCache.put(userId, principal, validAsOf);
+        return principal;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
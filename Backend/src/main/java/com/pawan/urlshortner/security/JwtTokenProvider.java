@@ -2,19 +2,29 @@ package com.pawan.urlshortner.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
 public class JwtTokenProvider {
 
+    public static final String USERNAME_CLAIM = "username";
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -24,7 +34,39 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration}")
     private int refreshTokenExpirationInMs;
 
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 digest of a recently verified token -> its claims, kept until the token expires
+    private final ConcurrentHashMap<ByteBuffer, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        signingKey = buildSigningKey();
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    private SecretKey buildSigningKey() {
         // Option 1: If your secret is base64 encoded
         try {
             byte[] keyBytes = Base64.getDecoder().decode(jwtSecret);
@@ -54,6 +96,8 @@ public class JwtTokenProvider {
 
         return Jwts.builder()
                 .setSubject(userPrincipal.getId())
+                .claim(USERNAME_CLAIM, userPrincipal.getUsername())
+                .claim(ROLES_CLAIM, userPrincipal.getRoleNames())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -74,33 +118,75 @@ public class JwtTokenProvider {
     }
 
     public String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        Claims claims = verify(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
     public boolean validateToken(String authToken) {
+        return verify(authToken) != null;
+    }
+
+    /**
+     * Verifies the token with a single parse and returns its claims, or null
+     * if it is invalid or expired. Recently verified tokens are answered from
+     * a bounded digest cache until they expire.
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            log.error("JWT claims string is empty");
+            return null;
+        }
+
+        ByteBuffer digest = digest(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(digest, cached);
+            log.error("Expired JWT token");
+            return null;
+        }
+
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() != null) {
+                remember(digest, new VerifiedToken(claims, claims.getExpiration().getTime()), now);
+            }
+            return claims;
         } catch (ExpiredJwtException ex) {
             log.error("Expired JWT token");
+        } catch (MalformedJwtException ex) {
+            log.error("Invalid JWT token");
         } catch (UnsupportedJwtException ex) {
             log.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty");
+        } catch (JwtException | SecurityException ex) {
+            log.error("Invalid JWT signature");
+        }
+        return null;
+    }
+
+    private void remember(ByteBuffer digest, VerifiedToken token, long now) {
+        if (verifiedCacheSize <= 0) {
+            return;
         }
-        return false;
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(cached -> cached.expiresAt() <= now);
+            Iterator<ByteBuffer> iterator = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() >= verifiedCacheSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        verifiedTokens.put(digest, token);
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.pawan.urlshortner.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of authenticated principals keyed by user id.
+ *
+ * It also decides whether the roles in a JWT can be trusted. A role, status
+ * or profile change records a revocation time for the user in the
+ * token_revocations collection; every node loads those on startup and polls
+ * for new ones, dropping cached principals as they arrive. Tokens issued
+ * before a user's revocation are answered from Mongo instead of their
+ * claims, and so is every token while this node's view of the revocations
+ * is out of date. Revocations expire with the tokens they cover.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    static final String REVOCATIONS_COLLECTION = "token_revocations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Value("${app.security.principal-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.jwt.expiration}")
+    private long jwtExpirationInMs;
+
+    @Value("${app.security.revocations.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    // Re-read margin covering clock skew between the nodes recording revocations
+    @Value("${app.security.revocations.skew-ms:5000}")
+    private long skewMs;
+
+    private final ConcurrentHashMap<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService poller;
+    // Newest revocation read so far; only touched by the poller
+    private long lastRevocationSeen;
+    private volatile long syncedAt;
+
+    /**
+     * A principal and the time it reflects the user as of: the token issue
+     * time for one built from claims, the load time for one read from Mongo
+     */
+    private record CachedPrincipal(UserPrincipal principal, long validAsOf, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            mongoTemplate.indexOps(REVOCATIONS_COLLECTION).ensureIndex(new Index().on("at", Sort.Direction.ASC)
+                    .expire(jwtExpirationInMs, TimeUnit.MILLISECONDS));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the token revocation index: {}", e.getMessage());
+        }
+
+        lastRevocationSeen = System.currentTimeMillis() - jwtExpirationInMs;
+        poller = Executors.newSingleThreadScheduledExecutor(workerThreadFactory);
+        poller.scheduleWithFixedDelay(this::pollRevocations, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Returns the cached principal, or null if absent, expired or older than
+     * the user's last revocation
+     */
+    public UserPrincipal get(String userId) {
+        CachedPrincipal cached = principals.get(userId);
+        if (cached == null) {
+            return null;
+        }
+        Long changedAt = invalidatedAt.get(userId);
+        if (cached.expiresAt() < System.currentTimeMillis()
+                || (changedAt != null && changedAt >= cached.validAsOf())) {
+            principals.remove(userId, cached);
+            return null;
+        }
+        return cached.principal();
+    }
+
+    public void put(String userId, UserPrincipal principal, long validAsOf) {
+        long now = System.currentTimeMillis();
+        if (principals.size() >= maxSize) {
+            principals.values().removeIf(cached -> cached.expiresAt() < now);
+            if (principals.size() >= maxSize) {
+                return;
+            }
+        }
+        principals.put(userId, new CachedPrincipal(principal, validAsOf, now + ttlMs));
+    }
+
+    /**
+     * Stops trusting claims issued before now for the user, on every node
+     */
+    public void invalidate(String userId) {
+        long now = System.currentTimeMillis();
+        invalidatedAt.merge(userId, now, Math::max);
+        principals.remove(userId);
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                new Update().max("at", new Date(now)), REVOCATIONS_COLLECTION);
+        log.debug("Principal cache invalidated for user: {}", userId);
+    }
+
+    /**
+     * True if the roles in a token issued at the given time can be used as
+     * they are: the user has not changed since, as far as a current view of
+     * the revocations shows
+     */
+    public boolean trustsClaims(String userId, Date issuedAt) {
+        if (issuedAt == null || System.currentTimeMillis() - syncedAt > 3 * pollIntervalMs) {
+            return false;
+        }
+        Long changedAt = invalidatedAt.get(userId);
+        return changedAt == null || issuedAt.getTime() > changedAt;
+    }
+
+    private void pollRevocations() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            Query query = Query.query(Criteria.where("at").gte(new Date(lastRevocationSeen - skewMs)));
+            long newest = lastRevocationSeen;
+            for (Document revocation : mongoTemplate.find(query, Document.class, REVOCATIONS_COLLECTION)) {
+                String userId = String.valueOf(revocation.get("_id"));
+                long at = revocation.getDate("at").getTime();
+                Long previous = invalidatedAt.get(userId);
+                if (previous == null || at > previous) {
+                    invalidatedAt.merge(userId, at, Math::max);
+                    principals.remove(userId);
+                }
+                newest = Math.max(newest, at);
+            }
+            lastRevocationSeen = newest;
+
+            // Tokens older than their own lifetime are rejected anyway
+            invalidatedAt.values().removeIf(time -> time < startedAt - jwtExpirationInMs);
+            syncedAt = startedAt;
+        } catch (RuntimeException e) {
+            // Claims stop being trusted once the view is too old
+            log.warn("Could not poll token revocations: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.pawan.urlshortner.security;
+
+import com.pawan.urlshortner.util.TokenBucketStore;
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiting per route group. Redirects and auth calls are
+ * keyed by client address and run before anything else; link creation is
+ * keyed by the authenticated user, so that group must sit behind JWT
+ * authentication. Limited responses carry X-RateLimit-Limit and
+ * X-RateLimit-Remaining; rejections are a 429 with Retry-After and
+ * X-RateLimit-Reset.
+ */
+public class RateLimitFilter implements Filter {
+
+    public enum RouteGroup {
+        REDIRECT, AUTH, CREATE
+    }
+
+    private static final String REDIRECT_PREFIX = "/s/";
+
+    private static final byte[] REJECTED_BODY = ("{\"success\":false,"
+            + "\"message\":\"Too many requests, please slow down\","
+            + "\"error\":\"TOO_MANY_REQUESTS\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final Map<RouteGroup, TokenBucketStore> buckets;
+    private final Map<RouteGroup, Counter> rejections;
+
+    public RateLimitFilter(Map<RouteGroup, TokenBucketStore> buckets, Map<RouteGroup, Counter> rejections) {
+        this.buckets = buckets;
+        this.rejections = rejections;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        RouteGroup group = routeGroup(request);
+        TokenBucketStore store = group == null ? null : buckets.get(group);
+        if (store == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long remaining = store.tryConsume(clientKey(request, group));
+        response.setHeader("X-RateLimit-Limit", Long.toString(store.getCapacity()));
+        if (remaining < 0) {
+            rejections.get(group).increment();
+            reject(response, group, -remaining, store.nanosUntilFull(0));
+            return;
+        }
+        response.setHeader("X-RateLimit-Remaining", Long.toString(remaining));
+        response.setHeader("X-RateLimit-Reset", Long.toString(seconds(store.nanosUntilFull(remaining))));
+        chain.doFilter(request, response);
+    }
+
+    static RouteGroup routeGroup(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(REDIRECT_PREFIX)) {
+            return RouteGroup.REDIRECT;
+        }
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        if (path.equals("/auth/login") || path.equals("/auth/signup")) {
+            return RouteGroup.AUTH;
+        }
+        if (path.equals("/url/create")) {
+            return RouteGroup.CREATE;
+        }
+        return null;
+    }
+
+    /**
+     * The authenticated user id for per-user groups, otherwise the remote
+     * address. Forwarded headers are deliberately ignored here since clients
+     * could rotate them to dodge the limit.
+     */
+    private static String clientKey(HttpServletRequest request, RouteGroup group) {
+        if (group == RouteGroup.CREATE) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+                return principal.getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, RouteGroup group, long retryNanos,
+                               long resetNanos) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(seconds(retryNanos)));
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setHeader("X-RateLimit-Reset", Long.toString(seconds(resetNanos)));
+        if (group == RouteGroup.REDIRECT) {
+            response.setContentLength(0);
+            return;
+        }
+        response.setContentType("application/json");
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -1,10 +1,19 @@
 package com.pawan.urlshortner.security;
 
+import com.pawan.urlshortner.security.RateLimitFilter.RouteGroup;
 import com.pawan.urlshortner.service.UserService;
+import com.pawan.urlshortner.util.TokenBucketStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -19,6 +28,9 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
@@ -34,6 +46,30 @@ public class SecurityConfig {
     @Autowired
     private CorsConfigurationSource corsConfigurationSource;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.security.password-hashing.threads:4}")
+    private int passwordHashingThreads;
+
+    @Value("${app.security.password-hashing.queue-capacity:32}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.security.password-hashing.timeout-ms:5000}")
+    private long passwordHashingTimeoutMs;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${app.rate-limit.max-keys:100000}")
+    private int rateLimitMaxKeys;
+
+    @Value("${app.rate-limit.stripes:64}")
+    private int rateLimitStripes;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
@@ -41,7 +77,9 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // BCrypt runs on its own bounded pool so login bursts cannot tie up request threads
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingThreads,
+                passwordHashingQueueCapacity, passwordHashingTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -57,6 +95,20 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * Rate limits keyed by client address, registered ahead of admission
+     * control so abusive clients are turned away before they take a slot
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> clientRateLimitFilter() {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(rateLimitFilter(RouteGroup.REDIRECT, RouteGroup.AUTH));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setName("clientRateLimitFilter");
+        registration.setEnabled(rateLimitEnabled);
+        return registration;
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource))
@@ -66,6 +118,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/s/**").permitAll() // Allow public access to short URL redirects
+                        .requestMatchers("/internal/peer-cache/**").permitAll() // Peers present the shared secret instead
                         .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
@@ -73,7 +126,34 @@ public class SecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        if (rateLimitEnabled) {
+            // Per-user limits need the principal, so they run once the JWT has been verified
+            http.addFilterAfter(rateLimitFilter(RouteGroup.CREATE), JwtAuthenticationFilter.class);
+        }
 
         return http.build();
     }
+
+    /**
+     * Builds a rate limit filter for the given route groups, each with the
+     * token-bucket policy configured under app.rate-limit.{group}
+     */
+    private RateLimitFilter rateLimitFilter(RouteGroup... groups) {
+        Map<RouteGroup, TokenBucketStore> buckets = new EnumMap<>(RouteGroup.class);
+        Map<RouteGroup, Counter> rejections = new EnumMap<>(RouteGroup.class);
+        for (RouteGroup group : groups) {
+            String tag = group.name().toLowerCase();
+            String prefix = "app.rate-limit." + tag + ".";
+            TokenBucketStore store = new TokenBucketStore(
+                    environment.getProperty(prefix + "capacity", Long.class, 60L),
+                    environment.getProperty(prefix + "refill-per-second", Double.class, 1.0),
+                    rateLimitMaxKeys, rateLimitStripes);
+            buckets.put(group, store);
+            rejections.put(group, meterRegistry.counter("rate-limit.rejected", "group", tag));
+            Gauge.builder("rate-limit.keys", store, TokenBucketStore::size)
+                    .tag("group", tag)
+                    .register(meterRegistry);
+        }
+        return new RateLimitFilter(buckets, rejections);
+    }
 }
\ No newline at end of file
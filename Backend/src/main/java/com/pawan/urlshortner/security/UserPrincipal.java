@@ -45,6 +45,42 @@ public class UserPrincipal implements UserDetails {
         );
     }
 
+    /**
+     * Builds a principal from the signed username and role claims of a JWT
+     */
+    public static UserPrincipal fromClaims(String id, String username, Collection<String> roles) {
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .collect(Collectors.toList());
+
+        UserPrincipal principal = new UserPrincipal();
+        principal.setId(id);
+        principal.setUsername(username);
+        principal.setAuthorities(authorities);
+        return principal;
+    }
+
+    /**
+     * Role names without the ROLE_ prefix, as carried in the JWT
+     */
+    @JsonIgnore
+    public List<String> getRoleNames() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith("ROLE_") ? authority.substring(5) : authority)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Id-only User reference, enough for repository queries keyed on the owner
+     */
+    public User toUserReference() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
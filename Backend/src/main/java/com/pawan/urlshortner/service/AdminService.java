@@ -1,95 +1,204 @@
 package com.pawan.urlshortner.service;
 
+import com.pawan.urlshortner.cache.HotLinkTracker;
+import com.pawan.urlshortner.cache.InvalidationBus;
+import com.pawan.urlshortner.dto.response.CleanupTaskResponse;
 import com.pawan.urlshortner.dto.response.DashboardStatsResponse;
+import com.pawan.urlshortner.dto.response.JobStatusResponse;
+import com.pawan.urlshortner.dto.response.TrendingUrlResponse;
 import com.pawan.urlshortner.dto.response.UrlResponse;
 import com.pawan.urlshortner.dto.response.UserResponse;
+import com.pawan.urlshortner.exception.CustomException;
 import com.pawan.urlshortner.exception.ResourceNotFoundException;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.CleanupTask;
 import com.pawan.urlshortner.model.Role;
+import com.pawan.urlshortner.model.RedirectPolicy;
 import com.pawan.urlshortner.model.UrlMapping;
 import com.pawan.urlshortner.model.User;
 import com.pawan.urlshortner.repository.ClickRepository;
+import com.pawan.urlshortner.repository.RedirectStore;
 import com.pawan.urlshortner.repository.UrlMappingRepository;
 import com.pawan.urlshortner.repository.UserRepository;
+import com.pawan.urlshortner.security.PrincipalCache;
+import com.pawan.urlshortner.util.SlidingWindowHeavyHitters.HeavyHitter;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class AdminService {
 
+    private static final String EXPIRED_URL_CLEANUP_JOB = "expired-url-cleanup";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UrlMappingRepository urlMappingRepository;
 
+    @Autowired
+    private RedirectStore redirectStore;
+
     @Autowired
     private ClickRepository clickRepository;
 
     @Autowired
     private ClickService clickService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private ExpiredUrlCleanup expiredUrlCleanup;
+
+    // Absent when app.redirect.hot-links.enabled is false
+    @Autowired(required = false)
+    private HotLinkTracker hotLinkTracker;
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    // Virtual threads when spring.threads.virtual.enabled is set on Java 21, a bounded pool otherwise
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor applicationTaskExecutor;
+
     @Value("${app.base-url}")
     private String baseUrl;
 
+    @Value("${app.jobs.expired-url-cleanup.schedule:PT15M}")
+    private String expiredUrlCleanupSchedule;
+
+    @PostConstruct
+    public void registerJobs() {
+        jobScheduler.register(EXPIRED_URL_CLEANUP_JOB, JobSchedule.parse(expiredUrlCleanupSchedule),
+                expiredUrlCleanup::run);
+    }
+
     /**
      * Gets comprehensive dashboard statistics for admin
      */
     public DashboardStatsResponse getAdminDashboardStats() {
         DashboardStatsResponse stats = new DashboardStatsResponse();
 
-        // Get basic counts
-        stats.setTotalUrls(urlMappingRepository.count());
-        stats.setTotalClicks(clickRepository.count());
-
-        // Get time-based click stats
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfToday = now.truncatedTo(ChronoUnit.DAYS);
         LocalDateTime startOfWeek = now.minusDays(7);
         LocalDateTime startOfMonth = now.minusDays(30);
 
-        stats.setTodayClicks(clickRepository.countByClickedAtAfter(startOfToday));
-        stats.setThisWeekClicks(clickRepository.countByClickedAtAfter(startOfWeek));
-        stats.setThisMonthClicks(clickRepository.countByClickedAtAfter(startOfMonth));
+        // The queries are independent, so fan them out and wait for all of them
+        CompletableFuture<Long> totalUrls = supplyAsync(urlMappingRepository::count);
+        CompletableFuture<Long> totalClicks = supplyAsync(clickRepository::count);
+        CompletableFuture<Long> todayClicks = supplyAsync(() -> clickRepository.countByClickedAtAfter(startOfToday));
+        CompletableFuture<Long> weekClicks = supplyAsync(() -> clickRepository.countByClickedAtAfter(startOfWeek));
+        CompletableFuture<Long> monthClicks = supplyAsync(() -> clickRepository.countByClickedAtAfter(startOfMonth));
 
         // Get recent URLs (last 5)
-        Pageable recentPageable = PageRequest.of(0, 5);
-        Page<UrlMapping> recentUrls = urlMappingRepository.findAllByOrderByCreatedAtDesc(recentPageable);
-        stats.setRecentUrls(recentUrls.getContent().stream()
-                .map(this::convertToUrlResponse)
-                .collect(Collectors.toList()));
+        CompletableFuture<List<UrlResponse>> recentUrls = supplyAsync(() ->
+                urlMappingRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, 5)).getContent().stream()
+                        .map(this::convertToUrlResponse)
+                        .collect(Collectors.toList()));
 
         // Get top URLs by clicks (last 5)
-        List<UrlMapping> allUrls = urlMappingRepository.findAll();
-        List<UrlResponse> topUrls = allUrls.stream()
-                .sorted((u1, u2) -> Long.compare(u2.getClickCount(), u1.getClickCount()))
-                .limit(5)
-                .map(this::convertToUrlResponse)
-                .collect(Collectors.toList());
-        stats.setTopUrls(topUrls);
+        CompletableFuture<List<UrlResponse>> topUrls = supplyAsync(() ->
+                urlMappingRepository.findTop5ByOrderByClickCountDesc().stream()
+                        .map(this::convertToUrlResponse)
+                        .collect(Collectors.toList()));
+
+        // Links getting the most redirects right now, across all nodes
+        CompletableFuture<List<TrendingUrlResponse>> trendingUrls = supplyAsync(this::getTrendingUrls);
 
         // Get analytics data
-        stats.setClicksByDate(getClicksByDateForAdmin(30));
-        stats.setClicksByCountry(getClicksByCountryForAdmin(30));
-        stats.setClicksByDevice(getClicksByDeviceForAdmin(30));
+        CompletableFuture<Map<String, Long>> clicksByDate = supplyAsync(() -> getClicksByDateForAdmin(30));
+        CompletableFuture<Map<String, Long>> clicksByCountry = supplyAsync(() -> getClicksByCountryForAdmin(30));
+        CompletableFuture<Map<String, Long>> clicksByDevice = supplyAsync(() -> getClicksByDeviceForAdmin(30));
+
+        stats.setTotalUrls(await(totalUrls));
+        stats.setTotalClicks(await(totalClicks));
+        stats.setTodayClicks(await(todayClicks));
+        stats.setThisWeekClicks(await(weekClicks));
+        stats.setThisMonthClicks(await(monthClicks));
+        stats.setRecentUrls(await(recentUrls));
+        stats.setTopUrls(await(topUrls));
+        stats.setTrendingUrls(await(trendingUrls));
+        stats.setClicksByDate(await(clicksByDate));
+        stats.setClicksByCountry(await(clicksByCountry));
+        stats.setClicksByDevice(await(clicksByDevice));
 
         return stats;
     }
 
+    /**
+     * Gets the current cluster-wide hot links with their recent click counts
+     */
+    public List<TrendingUrlResponse> getTrendingUrls() {
+        List<HeavyHitter> hotLinks = hotLinkTracker != null ? hotLinkTracker.getClusterHotLinks() : List.of();
+        if (hotLinks.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, UrlMapping> urlsByCode = urlMappingRepository
+                .findByShortCodeIn(hotLinks.stream().map(HeavyHitter::key).toList()).stream()
+                .collect(Collectors.toMap(UrlMapping::getShortCode, Function.identity()));
+
+        List<TrendingUrlResponse> trending = new ArrayList<>();
+        for (HeavyHitter hotLink : hotLinks) {
+            UrlMapping urlMapping = urlsByCode.get(hotLink.key());
+            if (urlMapping != null) {
+                trending.add(new TrendingUrlResponse(urlMapping.getShortCode(),
+                        baseUrl + "/s/" + urlMapping.getShortCode(), urlMapping.getOriginalUrl(),
+                        urlMapping.getTitle(), hotLink.count()));
+            }
+        }
+        return trending;
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, applicationTaskExecutor);
+    }
+
+    /**
+     * Waits for a fan-out query and rethrows its original exception
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Gets all users with their statistics
      */
@@ -125,6 +234,7 @@ public class AdminService {
 
         user.setEnabled(!user.isEnabled());
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
 
         log.info("User {} status changed to: {}", user.getUsername(), user.isEnabled() ? "Active" : "Inactive");
 
@@ -152,6 +262,7 @@ public class AdminService {
 
         user.setRoles(roles);
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
 
         log.info("User {} role changed. New roles: {}", user.getUsername(), roles);
 
@@ -166,11 +277,13 @@ public class AdminService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
         // Delete all URLs created by this user
-        List<UrlMapping> userUrls = urlMappingRepository.findByCreatedByOrderByCreatedAtDesc(user);
-        urlMappingRepository.deleteAll(userUrls);
+        List<UrlMapping> userUrls = redirectStore.findByOwner(userId);
+        userUrls.forEach(redirectStore::delete);
+        invalidationBus.publish(userUrls.stream().map(UrlMapping::getShortCode).toList());
 
         // Delete the user
         userRepository.delete(user);
+        principalCache.invalidate(userId);
 
         log.info("User {} and all associated URLs deleted", user.getUsername());
     }
@@ -179,12 +292,13 @@ public class AdminService {
      * Deactivates/Activates a URL
      */
     public UrlResponse toggleUrlStatus(String urlId) {
-        UrlMapping urlMapping = urlMappingRepository.findById(urlId)
+        UrlMapping urlMapping = redirectStore.findById(urlId)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "id", urlId));
 
         urlMapping.setActive(!urlMapping.isActive());
         urlMapping.setUpdatedAt(LocalDateTime.now());
-        UrlMapping updatedUrl = urlMappingRepository.save(urlMapping);
+        UrlMapping updatedUrl = redirectStore.save(urlMapping);
+        invalidationBus.publish(urlMapping.getShortCode());
 
         log.info("URL {} status changed to: {}", urlMapping.getShortCode(), urlMapping.isActive() ? "Active" : "Inactive");
 
@@ -195,10 +309,11 @@ public class AdminService {
      * Deletes a URL and all its clicks
      */
     public void deleteUrl(String urlId) {
-        UrlMapping urlMapping = urlMappingRepository.findById(urlId)
+        UrlMapping urlMapping = redirectStore.findById(urlId)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "id", urlId));
 
-        urlMappingRepository.delete(urlMapping);
+        redirectStore.delete(urlMapping);
+        invalidationBus.publish(urlMapping.getShortCode());
 
         log.info("URL {} deleted by admin", urlMapping.getShortCode());
     }
@@ -241,27 +356,39 @@ public class AdminService {
     }
 
     /**
-     * Cleans up expired URLs
+     * Queues an expired URL cleanup, or picks up the unfinished one, and
+     * starts the cleanup job in the background. Returns the task to poll, or
+     * answers 409 when the job is already running on some node; that run or
+     * the next scheduled one works through the task.
      */
-    public int cleanupExpiredUrls() {
-        List<UrlMapping> expiredUrls = urlMappingRepository.findExpiredUrls(LocalDateTime.now());
-
-        for (UrlMapping url : expiredUrls) {
-            url.setActive(false);
+    public CleanupTaskResponse cleanupExpiredUrls() {
+        CleanupTask task = expiredUrlCleanup.queue();
+        if (!jobScheduler.runInBackground(EXPIRED_URL_CLEANUP_JOB)) {
+            throw new CustomException(HttpStatus.CONFLICT,
+                    "Expired URL cleanup is already running; task " + task.getId() + " is left to it");
         }
+        return expiredUrlCleanup.getStatus(task.getId());
+    }
 
-        urlMappingRepository.saveAll(expiredUrls);
-
-        log.info("Cleaned up {} expired URLs", expiredUrls.size());
+    /**
+     * Progress of an expired URL cleanup task
+     */
+    public CleanupTaskResponse getCleanupStatus(String taskId) {
+        return expiredUrlCleanup.getStatus(taskId);
+    }
 
-        return expiredUrls.size();
+    /**
+     * Lease, schedule and last run of every background job
+     */
+    public List<JobStatusResponse> getJobStatuses() {
+        return jobScheduler.status();
     }
 
     /**
      * Gets count of expired URLs
      */
     private long getExpiredUrlsCount() {
-        return urlMappingRepository.findExpiredUrls(LocalDateTime.now()).size();
+        return urlMappingRepository.countExpiredUrls(LocalDateTime.now());
     }
 
     /**
@@ -364,6 +491,7 @@ public class AdminService {
         response.setDescription(urlMapping.getDescription());
         response.setActive(urlMapping.isActive());
         response.setExpirationDate(urlMapping.getExpirationDate());
+        response.setRedirectPolicy(RedirectPolicy.orDefault(urlMapping.getRedirectPolicy()));
         response.setCreatedAt(urlMapping.getCreatedAt());
         response.setUpdatedAt(urlMapping.getUpdatedAt());
         response.setClickCount(urlMapping.getClickCount());
@@ -9,6 +9,7 @@ import com.pawan.urlshortner.model.Role;
 import com.pawan.urlshortner.model.User;
 import com.pawan.urlshortner.repository.UserRepository;
 import com.pawan.urlshortner.security.JwtTokenProvider;
+import com.pawan.urlshortner.security.UserPrincipal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -86,13 +87,10 @@ public class AuthService {
 
         User result = userRepository.save(user);
 
-        // Auto login after registration
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        signUpRequest.getUsername(),
-                        signUpRequest.getPassword()
-                )
-        );
+        // Auto login after registration; the password was just hashed, so don't verify it again
+        UserPrincipal userPrincipal = UserPrincipal.create(result);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                userPrincipal, null, userPrincipal.getAuthorities());
 
         String jwt = tokenProvider.generateToken(authentication);
         String refreshToken = tokenProvider.generateRefreshToken(authentication);
@@ -0,0 +1,138 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.util.IpAddresses;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Converts clicks between the readable form captured from requests and the
+ * compact stored form: dictionary ids for user agent and referer host, and
+ * 4/16-byte binary IP addresses, optionally truncated for privacy.
+ */
+@Component
+public class ClickCodec {
+
+    public static final String USER_AGENT_COLLECTION = "click_user_agents";
+    public static final String REFERER_HOST_COLLECTION = "click_referer_hosts";
+
+    private static final String DIRECT_REFERER = "Direct";
+    private static final String UNKNOWN_USER_AGENT = "Unknown";
+    private static final int MAX_USER_AGENT_LENGTH = 512;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.clicks.dictionary.max-cached-entries:50000}")
+    private int maxCachedEntries;
+
+    @Value("${app.clicks.ip-truncation.enabled:false}")
+    private boolean truncateIp;
+
+    private ClickDictionary userAgents;
+    private ClickDictionary refererHosts;
+
+    @PostConstruct
+    public void init() {
+        userAgents = new ClickDictionary(mongoTemplate, USER_AGENT_COLLECTION, maxCachedEntries);
+        refererHosts = new ClickDictionary(mongoTemplate, REFERER_HOST_COLLECTION, maxCachedEntries);
+        userAgents.ensureIndexes();
+        refererHosts.ensureIndexes();
+    }
+
+    /**
+     * Fills the stored fields of a click from its readable fields
+     */
+    public void encode(Click click) {
+        encode(click, true);
+    }
+
+    /**
+     * Fills the stored fields of a click; without interning, dictionary ids
+     * are set to a placeholder so the encoded size can still be measured
+     */
+    void encode(Click click, boolean intern) {
+        click.setIp(toBytes(click.getIpAddress()));
+
+        String userAgent = normalizeUserAgent(click.getUserAgent());
+        String refererHost = refererHost(click.getReferer());
+        if (intern) {
+            click.setUserAgentId(userAgents.intern(userAgent));
+            click.setRefererHostId(refererHosts.intern(refererHost));
+        } else {
+            click.setUserAgentId(userAgent != null ? 0 : null);
+            click.setRefererHostId(refererHost != null ? 0 : null);
+        }
+    }
+
+    /**
+     * Fills the readable fields of a click from its stored fields
+     */
+    public void decode(Click click) {
+        click.setIpAddress(fromBytes(click.getIp()));
+
+        String userAgent = userAgents.lookup(click.getUserAgentId());
+        click.setUserAgent(userAgent != null ? userAgent : UNKNOWN_USER_AGENT);
+
+        String refererHost = refererHosts.lookup(click.getRefererHostId());
+        click.setReferer(refererHost != null ? refererHost : DIRECT_REFERER);
+    }
+
+    public ClickDictionary getUserAgents() {
+        return userAgents;
+    }
+
+    public ClickDictionary getRefererHosts() {
+        return refererHosts;
+    }
+
+    /**
+     * Parses an IP literal into its 4 or 16 raw bytes, never doing a DNS lookup
+     */
+    public byte[] toBytes(String ipAddress) {
+        byte[] bytes = IpAddresses.parse(ipAddress);
+        if (bytes != null && truncateIp) {
+            // Keep the /24 of IPv4 and the /48 of IPv6
+            int keep = bytes.length == 4 ? 3 : 6;
+            for (int i = keep; i < bytes.length; i++) {
+                bytes[i] = 0;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Formats raw address bytes back into an IP literal
+     */
+    public String fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return InetAddress.getByAddress(bytes).getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static String normalizeUserAgent(String userAgent) {
+        if (userAgent == null || UNKNOWN_USER_AGENT.equals(userAgent)) {
+            return null;
+        }
+        return userAgent.length() > MAX_USER_AGENT_LENGTH ? userAgent.substring(0, MAX_USER_AGENT_LENGTH) : userAgent;
+    }
+
+    private static String refererHost(String referer) {
+        if (referer == null || DIRECT_REFERER.equals(referer)) {
+            return null;
+        }
+        return UrlShortenerUtil.extractDomain(referer);
+    }
+}
@@ -0,0 +1,125 @@
+package com.pawan.urlshortner.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Interns strings into a dictionary collection of { _id: int, v: string }
+ * documents so that clicks can reference them by a small integer id.
+ * Ids are allocated from a shared counter document, so several nodes can
+ * intern concurrently; the unique index on "v" settles races.
+ */
+public class ClickDictionary {
+
+    private static final String COUNTERS_COLLECTION = "click_dictionary_counters";
+    private static final String VALUE_FIELD = "v";
+
+    private final MongoTemplate mongoTemplate;
+    private final String collectionName;
+
+    // Bounded and evicting least recently used, so new values keep being cached once full
+    private final Cache<String, Integer> idsByValue;
+    private final Cache<Integer, String> valuesById;
+
+    public ClickDictionary(MongoTemplate mongoTemplate, String collectionName, int maxCachedEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionName = collectionName;
+        this.idsByValue = Caffeine.newBuilder().maximumSize(maxCachedEntries).build();
+        this.valuesById = Caffeine.newBuilder().maximumSize(maxCachedEntries).build();
+    }
+
+    /**
+     * Creates the unique index on the interned value
+     */
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(collectionName)
+                .ensureIndex(new Index().on(VALUE_FIELD, Sort.Direction.ASC).unique());
+    }
+
+    /**
+     * Returns the id for the given value, allocating one if the value is new
+     */
+    public Integer intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        Integer id = idsByValue.getIfPresent(value);
+        if (id != null) {
+            return id;
+        }
+
+        Document existing = findByValue(value);
+        id = existing != null ? existing.getInteger("_id") : insert(value);
+        remember(id, value);
+        return id;
+    }
+
+    /**
+     * Returns the value for the given id, or null if it is unknown
+     */
+    public String lookup(Integer id) {
+        if (id == null) {
+            return null;
+        }
+
+        String value = valuesById.getIfPresent(id);
+        if (value != null) {
+            return value;
+        }
+
+        Document document = mongoTemplate.findById(id, Document.class, collectionName);
+        if (document == null) {
+            return null;
+        }
+        value = document.getString(VALUE_FIELD);
+        remember(id, value);
+        return value;
+    }
+
+    /**
+     * Number of values stored in the dictionary collection
+     */
+    public long size() {
+        return mongoTemplate.getCollection(collectionName).estimatedDocumentCount();
+    }
+
+    private int insert(String value) {
+        int id = nextId();
+        try {
+            mongoTemplate.insert(new Document("_id", id).append(VALUE_FIELD, value), collectionName);
+            return id;
+        } catch (DuplicateKeyException e) {
+            // Another node interned the same value first; the allocated id is simply skipped
+            return findByValue(value).getInteger("_id");
+        }
+    }
+
+    private int nextId() {
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(collectionName)),
+                new Update().inc("seq", 1),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class,
+                COUNTERS_COLLECTION);
+        return counter.getInteger("seq");
+    }
+
+    private Document findByValue(String value) {
+        return mongoTemplate.findOne(Query.query(Criteria.where(VALUE_FIELD).is(value)), Document.class, collectionName);
+    }
+
+    private void remember(Integer id, String value) {
+        idsByValue.put(value, id);
+        valuesById.put(id, value);
+    }
+}
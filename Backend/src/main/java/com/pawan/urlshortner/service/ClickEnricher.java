@@ -0,0 +1,86 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.model.Click;
+import org.springframework.stereotype.Component;
+
+/**
+ * Derives device, browser and location fields for a raw click.
+ * Runs on the enrichment workers, never on the request thread.
+ */
+@Component
+public class ClickEnricher {
+
+    /**
+     * Fills the derived fields of the given click from its raw fields
+     */
+    public void enrich(Click click) {
+        click.setCountry(getCountryFromIp(click.getIpAddress()));
+        click.setCity(getCityFromIp(click.getIpAddress()));
+        click.setDevice(getDeviceType(click.getUserAgent()));
+        click.setBrowser(getBrowserType(click.getUserAgent()));
+    }
+
+    /**
+     * Simple device type detection from user agent
+     */
+    private String getDeviceType(String userAgent) {
+        if (userAgent == null) return "Unknown";
+
+        userAgent = userAgent.toLowerCase();
+
+        if (userAgent.contains("mobile") || userAgent.contains("android") || userAgent.contains("iphone")) {
+            return "Mobile";
+        } else if (userAgent.contains("tablet") || userAgent.contains("ipad")) {
+            return "Tablet";
+        } else {
+            return "Desktop";
+        }
+    }
+
+    /**
+     * Simple browser type detection from user agent
+     */
+    private String getBrowserType(String userAgent) {
+        if (userAgent == null) return "Unknown";
+
+        userAgent = userAgent.toLowerCase();
+
+        if (userAgent.contains("chrome")) {
+            return "Chrome";
+        } else if (userAgent.contains("firefox")) {
+            return "Firefox";
+        } else if (userAgent.contains("safari")) {
+            return "Safari";
+        } else if (userAgent.contains("edge")) {
+            return "Edge";
+        } else if (userAgent.contains("opera")) {
+            return "Opera";
+        } else {
+            return "Other";
+        }
+    }
+
+    /**
+     * Mock country detection (in production, use a GeoIP service)
+     */
+    private String getCountryFromIp(String ipAddress) {
+        // In production, integrate with a GeoIP service like MaxMind
+        // For demo purposes, return a placeholder
+        if (ipAddress != null && ipAddress.startsWith("127.")) {
+            return "Local";
+        }
+        return "Unknown";
+    }
+
+    /**
+     * Mock city detection (in production, use a GeoIP service)
+     */
+    private String getCityFromIp(String ipAddress) {
+        // In production, integrate with a GeoIP service like MaxMind
+        // For demo purposes, return a placeholder
+        if (ipAddress != null && ipAddress.startsWith("127.")) {
+            return "Localhost";
+        }
+        return "Unknown";
+    }
+}
@@ -0,0 +1,388 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.model.UrlMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Two-stage click ingestion.
+ *
+ * The raw stage appends clicks exactly as captured from the request and bumps
+ * the per-URL click counters in bulk. The enrichment stage runs separately on
+ * a pool of workers, classifies user agent and location in batches and writes
+ * the derived fields back with one bulk update per batch. When enrichment
+ * falls behind, raw clicks keep being appended and the overflow is picked up
+ * later from Mongo. Clicks appended by other processes, such as the reactive
+ * redirect edge, are picked up by the click-backlog-sweep job, which runs on
+ * one node at a time. Turned off by {@code app.clicks.enabled=false}, in
+ * which case redirects are served without recording clicks.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.clicks.enabled", havingValue = "true", matchIfMissing = true)
+public class ClickPipeline {
+
+    private static final long POLL_TIMEOUT_MS = 200;
+    private static final String BACKLOG_SWEEP_JOB = "click-backlog-sweep";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ClickEnricher clickEnricher;
+
+    @Autowired
+    private ClickCodec clickCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ThreadFactory workerThreadFactory;
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    @Value("${app.clicks.raw.queue-capacity:100000}")
+    private int rawQueueCapacity;
+
+    @Value("${app.clicks.raw.batch-size:500}")
+    private int rawBatchSize;
+
+    @Value("${app.clicks.enrichment.queue-capacity:50000}")
+    private int enrichmentQueueCapacity;
+
+    @Value("${app.clicks.enrichment.batch-size:200}")
+    private int enrichmentBatchSize;
+
+    @Value("${app.clicks.enrichment.workers:2}")
+    private int enrichmentWorkers;
+
+    @Value("${app.jobs.click-backlog-sweep.schedule:PT30S}")
+    private String backlogSweepSchedule;
+
+    // Younger unenriched clicks are most likely still queued on the node that wrote them
+    @Value("${app.clicks.enrichment.backlog-grace-ms:30000}")
+    private long backlogGraceMs;
+
+    private BlockingQueue<Click> rawQueue;
+    private BlockingQueue<Click> enrichmentQueue;
+
+    // Clicks this node deferred to Mongo instead of the enrichment queue, and how
+    // many of those a backlog load has since seen through; guarded by backlogLock
+    private final Object backlogLock = new Object();
+    private long deferredToStore;
+    private long settledInStore;
+    private volatile LocalDateTime oldestStoredBacklog;
+    private final AtomicBoolean backlogLoading = new AtomicBoolean(false);
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private Counter droppedClicks;
+    private Counter deferredClicks;
+    private Counter enrichedClicks;
+    private Timer enrichmentBatchTimer;
+
+    @PostConstruct
+    public void start() {
+        try {
+            // Only unenriched clicks are indexed, so the index stays as small as the backlog
+            mongoTemplate.indexOps(Click.class).ensureIndex(new Index().on("ts", Sort.Direction.ASC)
+                    .partial(PartialIndexFilter.of(Criteria.where("ea").is(null))));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the click backlog index: {}", e.getMessage());
+        }
+
+        rawQueue = new ArrayBlockingQueue<>(rawQueueCapacity);
+        enrichmentQueue = new ArrayBlockingQueue<>(enrichmentQueueCapacity);
+
+        droppedClicks = meterRegistry.counter("clicks.raw.dropped");
+        deferredClicks = meterRegistry.counter("clicks.enrichment.deferred");
+        enrichedClicks = meterRegistry.counter("clicks.enrichment.completed");
+        enrichmentBatchTimer = meterRegistry.timer("clicks.enrichment.batch");
+        Gauge.builder("clicks.raw.queue.size", rawQueue, Collection::size).register(meterRegistry);
+        Gauge.builder("clicks.enrichment.queue.size", enrichmentQueue, Collection::size).register(meterRegistry);
+        Gauge.builder("clicks.enrichment.lag", this, ClickPipeline::enrichmentLagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        running = true;
+        workers.add(startWorker("click-raw-writer", this::runRawWriter));
+        for (int i = 0; i < enrichmentWorkers; i++) {
+            workers.add(startWorker("click-enricher-" + i, this::runEnricher));
+        }
+        jobScheduler.register(BACKLOG_SWEEP_JOB, JobSchedule.parse(backlogSweepSchedule), this::sweepStoredBacklog);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands a raw click to the append stage without blocking.
+     * Returns false if the raw queue is full and the click was dropped.
+     */
+    public boolean submit(Click click) {
+        if (!rawQueue.offer(click)) {
+            droppedClicks.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Age in seconds of the oldest click that has not been enriched yet
+     */
+    public double enrichmentLagSeconds() {
+        LocalDateTime oldest = oldestStoredBacklog;
+        oldest = older(oldest, rawQueue.peek());
+        oldest = older(oldest, enrichmentQueue.peek());
+        if (oldest == null) {
+            return 0;
+        }
+        return Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    private void runRawWriter() {
+        List<Click> batch = new ArrayList<>(rawBatchSize);
+        while (running || !rawQueue.isEmpty()) {
+            try {
+                Click first = rawQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                rawQueue.drainTo(batch, rawBatchSize - 1);
+                appendRaw(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to append {} raw clicks", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void appendRaw(List<Click> batch) {
+        for (Click click : batch) {
+            clickCodec.encode(click);
+        }
+        Collection<Click> inserted = mongoTemplate.insert(batch, Click.class);
+        incrementClickCounts(batch);
+
+        for (Click click : inserted) {
+            if (!enrichmentQueue.offer(click)) {
+                deferToStore(click);
+            }
+        }
+    }
+
+    private void incrementClickCounts(List<Click> batch) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Click click : batch) {
+            counts.merge(click.getUrlMapping().getId(), 1L, Long::sum);
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class);
+        counts.forEach((urlMappingId, count) -> ops.updateOne(
+                Query.query(Criteria.where("_id").is(urlMappingId)),
+                new Update().inc("clickCount", count)));
+        ops.execute();
+    }
+
+    private void deferToStore(Click click) {
+        synchronized (backlogLock) {
+            deferredToStore++;
+            if (oldestStoredBacklog == null) {
+                oldestStoredBacklog = click.getClickedAt();
+            }
+        }
+        deferredClicks.increment();
+    }
+
+    private void runEnricher() {
+        List<Click> batch = new ArrayList<>(enrichmentBatchSize);
+        while (running) {
+            try {
+                Click first = enrichmentQueue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    enrichmentQueue.drainTo(batch, enrichmentBatchSize - 1);
+                } else if (!loadStoredBacklog(batch)) {
+                    continue;
+                }
+                enrichBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to enrich {} clicks", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Pulls the oldest unenriched clicks from Mongo once the in-memory queue
+     * is drained, if this node deferred any. A short read settles only the
+     * clicks deferred before the query started; any deferred while it ran
+     * may have been appended too late for it and keep the backlog pending.
+     */
+    private boolean loadStoredBacklog(List<Click> batch) {
+        if (!backlogPending() || !backlogLoading.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            long deferred;
+            synchronized (backlogLock) {
+                deferred = deferredToStore;
+            }
+            List<Click> pending = findStoredBacklog(LocalDateTime.now());
+            synchronized (backlogLock) {
+                if (pending.size() < enrichmentBatchSize) {
+                    settledInStore = deferred;
+                    if (deferredToStore == deferred) {
+                        oldestStoredBacklog = null;
+                    }
+                } else {
+                    oldestStoredBacklog = pending.get(pending.size() - 1).getClickedAt();
+                }
+            }
+            batch.addAll(pending);
+            return !pending.isEmpty();
+        } finally {
+            backlogLoading.set(false);
+        }
+    }
+
+    private boolean backlogPending() {
+        synchronized (backlogLock) {
+            return deferredToStore != settledInStore;
+        }
+    }
+
+    /**
+     * Job body: enriches unenriched clicks older than the grace period, from
+     * whichever process appended them. Returns the number of clicks enriched.
+     */
+    private long sweepStoredBacklog(JobContext context) {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(backlogGraceMs));
+        long enriched = 0;
+        while (true) {
+            context.checkLease();
+            List<Click> pending = findStoredBacklog(before);
+            if (pending.isEmpty()) {
+                return enriched;
+            }
+            enrichBatch(pending);
+            enriched += pending.size();
+            if (pending.size() < enrichmentBatchSize) {
+                return enriched;
+            }
+        }
+    }
+
+    /**
+     * Oldest unenriched clicks recorded before the given time, served by the
+     * partial index on ts
+     */
+    private List<Click> findStoredBacklog(LocalDateTime before) {
+        Query query = Query.query(Criteria.where("enrichedAt").is(null)
+                        .and("clickedAt").lt(before)
+                        .and("device").is(null))
+                .with(Sort.by(Sort.Direction.ASC, "clickedAt"))
+                .limit(enrichmentBatchSize);
+        List<Click> pending = mongoTemplate.find(query, Click.class);
+        for (Click click : pending) {
+            clickCodec.decode(click);
+        }
+        return pending;
+    }
+
+    private void enrichBatch(List<Click> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime enrichedAt = LocalDateTime.now();
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Click.class);
+        for (Click click : batch) {
+            clickEnricher.enrich(click);
+            click.setEnrichedAt(enrichedAt);
+            ops.updateOne(Query.query(Criteria.where("_id").is(click.getId())),
+                    new Update()
+                            .set("country", click.getCountry())
+                            .set("city", click.getCity())
+                            .set("device", click.getDevice())
+                            .set("browser", click.getBrowser())
+                            .set("enrichedAt", enrichedAt));
+        }
+        ops.execute();
+
+        enrichedClicks.increment(batch.size());
+        sample.stop(enrichmentBatchTimer);
+    }
+
+    private static LocalDateTime older(LocalDateTime current, Click candidate) {
+        if (candidate == null || candidate.getClickedAt() == null) {
+            return current;
+        }
+        if (current == null || candidate.getClickedAt().isBefore(current)) {
+            return candidate.getClickedAt();
+        }
+        return current;
+    }
+
+    private Thread startWorker(String name, Runnable task) {
+        Thread thread = workerThreadFactory.newThread(task);
+        thread.setName(name);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,193 @@
+package com.pawan.urlshortner.service;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
+import com.pawan.urlshortner.dto.response.ClickStorageReportResponse;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.Click;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Rewrites click documents from the legacy verbose layout into the compact
+ * layout and reports the storage size of both forms.
+ *
+ * Clicks are read and queried by their compact field names only, so the
+ * click-schema-migration job migrates legacy documents as soon as a node
+ * starts and again on its schedule, which picks up clicks written by nodes
+ * still running the old layout during a rolling deploy.
+ */
+@Slf4j
+@Service
+public class ClickSchemaMigrationService {
+
+    static final String JOB = "click-schema-migration";
+
+    private static final String LEGACY_CLICKED_AT = "clickedAt";
+    private static final int BATCH_SIZE = 1000;
+    // The driver's registry, which knows the DBRef every legacy click holds
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ClickCodec clickCodec;
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    @Value("${app.jobs.click-schema-migration.schedule:PT10M}")
+    private String schedule;
+
+    @PostConstruct
+    public void start() {
+        try {
+            // Sparse, so it only holds legacy clicks and finding none is cheap once they are migrated
+            mongoTemplate.indexOps(mongoTemplate.getCollectionName(Click.class))
+                    .ensureIndex(new Index().on(LEGACY_CLICKED_AT, Sort.Direction.ASC).sparse());
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the legacy click index: {}", e.getMessage());
+        }
+
+        jobScheduler.register(JOB, JobSchedule.parse(schedule),
+                context -> migrate(false, context).getDocumentsMigrated());
+        try {
+            jobScheduler.runInBackground(JOB);
+        } catch (RuntimeException e) {
+            // The next scheduled run migrates them
+            log.warn("Could not start the click schema migration: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Migrates legacy click documents in _id order. In dry-run mode nothing is
+     * written and dictionary ids are not allocated; only sizes are measured.
+     */
+    public ClickStorageReportResponse migrate(boolean dryRun) {
+        return migrate(dryRun, null);
+    }
+
+    /**
+     * Job body: the migration, stopping between batches once the lease is lost
+     */
+    ClickStorageReportResponse migrate(boolean dryRun, JobContext context) {
+        MongoCollection<Document> clicks = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Click.class));
+        Bson legacyFilter = Filters.exists(LEGACY_CLICKED_AT);
+
+        long scanned = 0;
+        long migrated = 0;
+        long legacyBytes = 0;
+        long compactBytes = 0;
+        Object lastId = null;
+
+        while (true) {
+            if (context != null) {
+                context.checkLease();
+            }
+            Bson filter = lastId == null ? legacyFilter : Filters.and(legacyFilter, Filters.gt("_id", lastId));
+            List<Document> batch = clicks.find(filter)
+                    .sort(Sorts.ascending("_id"))
+                    .limit(BATCH_SIZE)
+                    .into(new ArrayList<>());
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+            for (Document legacy : batch) {
+                Document compact = toCompact(legacy, !dryRun);
+                legacyBytes += bsonSize(legacy);
+                compactBytes += bsonSize(compact);
+                if (!dryRun) {
+                    // A no-op for a click another run has migrated meanwhile
+                    writes.add(new ReplaceOneModel<>(Filters.and(Filters.eq("_id", legacy.get("_id")), legacyFilter),
+                            compact));
+                }
+            }
+
+            if (!writes.isEmpty()) {
+                clicks.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+                migrated += writes.size();
+            }
+
+            scanned += batch.size();
+            lastId = batch.get(batch.size() - 1).get("_id");
+            log.info("Click schema migration progress: {} scanned, {} migrated", scanned, migrated);
+        }
+
+        ClickStorageReportResponse report = new ClickStorageReportResponse();
+        report.setDryRun(dryRun);
+        report.setDocumentsScanned(scanned);
+        report.setDocumentsMigrated(migrated);
+        report.setLegacyBytes(legacyBytes);
+        report.setCompactBytes(compactBytes);
+        report.setLegacyAvgBytes(scanned > 0 ? (double) legacyBytes / scanned : 0);
+        report.setCompactAvgBytes(scanned > 0 ? (double) compactBytes / scanned : 0);
+        report.setSavingsPercent(legacyBytes > 0 ? 100.0 * (legacyBytes - compactBytes) / legacyBytes : 0);
+        report.setUserAgentDictionarySize(clickCodec.getUserAgents().size());
+        report.setRefererHostDictionarySize(clickCodec.getRefererHosts().size());
+
+        log.info("Click schema migration finished (dryRun={}): {} documents, {} -> {} bytes ({}% saved)",
+                dryRun, scanned, legacyBytes, compactBytes, String.format("%.1f", report.getSavingsPercent()));
+
+        return report;
+    }
+
+    private Document toCompact(Document legacy, boolean intern) {
+        Click click = new Click();
+        click.setIpAddress(legacy.getString("ipAddress"));
+        click.setUserAgent(legacy.getString("userAgent"));
+        click.setReferer(legacy.getString("referer"));
+        clickCodec.encode(click, intern);
+
+        Date clickedAt = legacy.getDate(LEGACY_CLICKED_AT);
+        Date enrichedAt = legacy.getDate("enrichedAt");
+
+        Document compact = new Document("_id", legacy.get("_id"));
+        putIfPresent(compact, "m", legacy.get("urlMapping"));
+        putIfPresent(compact, "ip", click.getIp() != null ? new Binary(click.getIp()) : null);
+        putIfPresent(compact, "ua", click.getUserAgentId());
+        putIfPresent(compact, "rh", click.getRefererHostId());
+        putIfPresent(compact, "co", legacy.getString("country"));
+        putIfPresent(compact, "ci", legacy.getString("city"));
+        putIfPresent(compact, "dv", legacy.getString("device"));
+        putIfPresent(compact, "br", legacy.getString("browser"));
+        putIfPresent(compact, "ts", clickedAt);
+        // Legacy clicks were enriched synchronously when they were recorded
+        putIfPresent(compact, "ea", enrichedAt != null ? enrichedAt : clickedAt);
+        return compact;
+    }
+
+    private static void putIfPresent(Document document, String key, Object value) {
+        if (value != null) {
+            document.put(key, value);
+        }
+    }
+
+    private static long bsonSize(Document document) {
+        return new RawBsonDocument(document, DOCUMENT_CODEC).getByteBuffer().remaining();
+    }
+}
@@ -26,24 +26,33 @@ public class ClickService {
     @Autowired
     private ClickRepository clickRepository;
 
+    // Absent when app.clicks.enabled is false
+    @Autowired(required = false)
+    private ClickPipeline clickPipeline;
+
+    @Autowired
+    private ClickCodec clickCodec;
+
     /**
-     * Records a click for the given URL mapping
+     * Records a click for the given URL mapping.
+     * Only the raw request fields are captured here; enrichment happens
+     * asynchronously in the click pipeline.
      */
     public void recordClick(UrlMapping urlMapping, HttpServletRequest request) {
+        if (clickPipeline == null) {
+            return;
+        }
         try {
             Click click = new Click();
             click.setUrlMapping(urlMapping);
             click.setIpAddress(getClientIpAddress(request));
             click.setUserAgent(getUserAgent(request));
             click.setReferer(getReferer(request));
-            click.setCountry(getCountryFromIp(click.getIpAddress()));
-            click.setCity(getCityFromIp(click.getIpAddress()));
-            click.setDevice(getDeviceType(click.getUserAgent()));
-            click.setBrowser(getBrowserType(click.getUserAgent()));
             click.setClickedAt(LocalDateTime.now());
 
-            clickRepository.save(click);
-            log.info("Click recorded for URL: {} from IP: {}", urlMapping.getShortCode(), click.getIpAddress());
+            if (!clickPipeline.submit(click)) {
+                log.debug("Click pipeline is full, dropped click for URL: {}", urlMapping.getShortCode());
+            }
         } catch (Exception e) {
             log.error("Failed to record click for URL: " + urlMapping.getShortCode(), e);
         }
@@ -177,6 +186,8 @@ public class ClickService {
      * Converts Click entity to ClickResponse DTO
      */
     private ClickResponse convertToClickResponse(Click click) {
+        clickCodec.decode(click);
+
         ClickResponse response = new ClickResponse();
         response.setId(click.getId());
         response.setUrlMappingId(click.getUrlMapping().getId());
@@ -224,68 +235,4 @@ public class ClickService {
         String referer = request.getHeader("Referer");
         return referer != null ? referer : "Direct";
     }
-
-    /**
-     * Simple device type detection from user agent
-     */
-    private String getDeviceType(String userAgent) {
-        if (userAgent == null) return "Unknown";
-
-        userAgent = userAgent.toLowerCase();
-
-        if (userAgent.contains("mobile") || userAgent.contains("android") || userAgent.contains("iphone")) {
-            return "Mobile";
-        } else if (userAgent.contains("tablet") || userAgent.contains("ipad")) {
-            return "Tablet";
-        } else {
-            return "Desktop";
-        }
-    }
-
-    /**
-     * Simple browser type detection from user agent
-     */
-    private String getBrowserType(String userAgent) {
-        if (userAgent == null) return "Unknown";
-
-        userAgent = userAgent.toLowerCase();
-
-        if (userAgent.contains("chrome")) {
-            return "Chrome";
-        } else if (userAgent.contains("firefox")) {
-            return "Firefox";
-        } else if (userAgent.contains("safari")) {
-            return "Safari";
-        } else if (userAgent.contains("edge")) {
-            return "Edge";
-        } else if (userAgent.contains("opera")) {
-            return "Opera";
-        } else {
-            return "Other";
-        }
-    }
-
-    /**
-     * Mock country detection (in production, use a GeoIP service)
-     */
-    private String getCountryFromIp(String ipAddress) {
-        // In production, integrate with a GeoIP service like MaxMind
-        // For demo purposes, return a placeholder
-        if (ipAddress != null && ipAddress.startsWith("127.")) {
-            return "Local";
-        }
-        return "Unknown";
-    }
-
-    /**
-     * Mock city detection (in production, use a GeoIP service)
-     */
-    private String getCityFromIp(String ipAddress) {
-        // In production, integrate with a GeoIP service like MaxMind
-        // For demo purposes, return a placeholder
-        if (ipAddress != null && ipAddress.startsWith("127.")) {
-            return "Localhost";
-        }
-        return "Unknown";
-    }
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.cache.InvalidationBus;
+import com.pawan.urlshortner.dto.response.CleanupTaskResponse;
+import com.pawan.urlshortner.exception.ResourceNotFoundException;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.model.CleanupTask;
+import com.pawan.urlshortner.model.UrlMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flips expired links inactive in bounded chunks. Each chunk takes the next
+ * {@code chunk-size} expired active links after the checkpoint in _id order,
+ * flips them with one updateMany, publishes their short codes to the cache
+ * invalidation bus and checkpoints the last id on the task document.
+ *
+ * Tasks run inside the expired-url-cleanup job, so only the lease holder
+ * works on them; checkpoints carry the lease's fencing token and are
+ * rejected once a newer run has claimed the task. A task that is
+ * interrupted, by an error, a lost lease or a node going away, is resumed
+ * from its checkpoint by the next run of the job.
+ */
+@Slf4j
+@Component
+public class ExpiredUrlCleanup {
+
+    private static final List<CleanupTask.Status> UNFINISHED =
+            List.of(CleanupTask.Status.PENDING, CleanupTask.Status.RUNNING, CleanupTask.Status.INTERRUPTED);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.jobs.expired-url-cleanup.chunk-size:500}")
+    private int chunkSize;
+
+    // How long finished tasks are kept for status polling
+    @Value("${app.jobs.expired-url-cleanup.task-retention-ms:604800000}")
+    private long taskRetentionMs;
+
+    private Counter expiredLinks;
+
+    @PostConstruct
+    public void start() {
+        expiredLinks = meterRegistry.counter("links.expired");
+        try {
+            mongoTemplate.indexOps(CleanupTask.class).ensureIndex(new Index().on("finishedAt", Sort.Direction.ASC)
+                    .expire(taskRetentionMs, TimeUnit.MILLISECONDS));
+            mongoTemplate.indexOps(CleanupTask.class).ensureIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.ASC));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the cleanup task indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the unfinished task if there is one, otherwise queues a new
+     * task for links expired by now
+     */
+    public CleanupTask queue() {
+        CleanupTask unfinished = findUnfinished();
+        return unfinished != null ? unfinished : create();
+    }
+
+    public CleanupTaskResponse getStatus(String taskId) {
+        CleanupTask task = mongoTemplate.findById(taskId, CleanupTask.class);
+        if (task == null) {
+            throw new ResourceNotFoundException("Cleanup task", "id", taskId);
+        }
+        return toResponse(task);
+    }
+
+    /**
+     * Job body: works through unfinished tasks oldest first, queuing one when
+     * there are none and some link has expired. Returns the number of links
+     * flipped.
+     */
+    public long run(JobContext context) {
+        CleanupTask task = findUnfinished();
+        if (task == null && hasExpiredLinks()) {
+            task = create();
+        }
+        long expired = 0;
+        while (task != null) {
+            expired += process(task, context);
+            task = findUnfinished();
+        }
+        return expired;
+    }
+
+    private long process(CleanupTask task, JobContext context) {
+        long token = context.getFencingToken();
+        LocalDateTime now = LocalDateTime.now();
+        CleanupTask claimed = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(task.getId())
+                        .and("status").in(UNFINISHED)
+                        .orOperator(Criteria.where("fencingToken").is(null), Criteria.where("fencingToken").lt(token))),
+                new Update()
+                        .set("status", CleanupTask.Status.RUNNING)
+                        .set("fencingToken", token)
+                        .set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                CleanupTask.class);
+        if (claimed == null) {
+            throw new IllegalStateException("Cleanup task " + task.getId() + " was claimed by a newer run");
+        }
+        if (claimed.getStartedAt() == null) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(task.getId())),
+                    new Update().set("startedAt", now), CleanupTask.class);
+        }
+        log.info("Cleanup task {} {} from {} (token {})", task.getId(),
+                claimed.getLastId() == null ? "starting" : "resuming", claimed.getLastId(), token);
+
+        long expired = 0;
+        String lastId = claimed.getLastId();
+        try {
+            while (true) {
+                context.checkLease();
+                List<UrlMapping> chunk = nextChunk(claimed.getCutoff(), lastId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+
+                List<String> ids = chunk.stream().map(UrlMapping::getId).toList();
+                long modified = mongoTemplate.updateMulti(
+                        Query.query(Criteria.where("_id").in(ids)
+                                .and("isActive").is(true)
+                                .and("expirationDate").lte(claimed.getCutoff())),
+                        new Update().set("isActive", false).set("updatedAt", LocalDateTime.now()),
+                        UrlMapping.class).getModifiedCount();
+                invalidationBus.publish(chunk.stream().map(UrlMapping::getShortCode).toList());
+                expiredLinks.increment(modified);
+
+                expired += modified;
+                lastId = ids.get(ids.size() - 1);
+                checkpoint(task.getId(), token, new Update()
+                        .set("lastId", lastId)
+                        .inc("expired", modified)
+                        .inc("chunks", 1));
+            }
+        } catch (RuntimeException e) {
+            markInterrupted(task.getId(), token, e);
+            throw e;
+        }
+
+        checkpoint(task.getId(), token, new Update()
+                .set("status", CleanupTask.Status.COMPLETED)
+                .unset("error")
+                .set("finishedAt", LocalDateTime.now()));
+        log.info("Cleanup task {} completed, {} links expired in this run", task.getId(), expired);
+        return expired;
+    }
+
+    /**
+     * Next expired active links after lastId, in _id order. Only ids and
+     * short codes are read.
+     */
+    private List<UrlMapping> nextChunk(LocalDateTime cutoff, String lastId) {
+        Criteria criteria = Criteria.where("isActive").is(true).and("expirationDate").lte(cutoff);
+        if (lastId != null) {
+            criteria = criteria.and("_id").gt(lastId);
+        }
+        Query query = Query.query(criteria).with(Sort.by("_id")).limit(chunkSize);
+        query.fields().include("shortCode");
+        return mongoTemplate.find(query, UrlMapping.class);
+    }
+
+    /**
+     * Records progress unless a newer run has claimed the task
+     */
+    private void checkpoint(String taskId, long token, Update update) {
+        long matched = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(taskId).and("fencingToken").is(token)),
+                update.set("updatedAt", LocalDateTime.now()),
+                CleanupTask.class).getMatchedCount();
+        if (matched == 0) {
+            throw new IllegalStateException("Cleanup task " + taskId + " was claimed by a newer run");
+        }
+    }
+
+    private void markInterrupted(String taskId, long token, RuntimeException cause) {
+        try {
+            checkpoint(taskId, token, new Update()
+                    .set("status", CleanupTask.Status.INTERRUPTED)
+                    .set("error", String.valueOf(cause.getMessage())));
+        } catch (RuntimeException e) {
+            // Still resumed from its last checkpoint, it just keeps showing RUNNING until then
+            log.warn("Could not mark cleanup task {} interrupted: {}", taskId, e.getMessage());
+        }
+    }
+
+    private CleanupTask findUnfinished() {
+        return mongoTemplate.findOne(Query.query(Criteria.where("status").in(UNFINISHED))
+                .with(Sort.by("createdAt")), CleanupTask.class);
+    }
+
+    /**
+     * Whether any active link is past its expiration date, answered from the
+     * expirationDate index without counting
+     */
+    private boolean hasExpiredLinks() {
+        return mongoTemplate.exists(Query.query(Criteria.where("isActive").is(true)
+                .and("expirationDate").lte(LocalDateTime.now())), UrlMapping.class);
+    }
+
+    private CleanupTask create() {
+        LocalDateTime now = LocalDateTime.now();
+        CleanupTask task = new CleanupTask();
+        task.setStatus(CleanupTask.Status.PENDING);
+        task.setCutoff(now);
+        task.setEstimatedTotal(mongoTemplate.count(Query.query(Criteria.where("isActive").is(true)
+                .and("expirationDate").lte(now)), UrlMapping.class));
+        task.setCreatedAt(now);
+        task.setUpdatedAt(now);
+        return mongoTemplate.insert(task);
+    }
+
+    private static CleanupTaskResponse toResponse(CleanupTask task) {
+        CleanupTaskResponse response = new CleanupTaskResponse();
+        response.setTaskId(task.getId());
+        response.setStatus(task.getStatus().name());
+        response.setCutoff(task.getCutoff());
+        response.setEstimatedTotal(task.getEstimatedTotal());
+        response.setExpired(task.getExpired());
+        response.setChunks(task.getChunks());
+        if (task.getStatus() == CleanupTask.Status.COMPLETED) {
+            response.setPercentComplete(100);
+        } else if (task.getEstimatedTotal() > 0) {
+            response.setPercentComplete(Math.min(99.9, 100.0 * task.getExpired() / task.getEstimatedTotal()));
+        }
+        response.setError(task.getError());
+        response.setCreatedAt(task.getCreatedAt());
+        response.setStartedAt(task.getStartedAt());
+        response.setUpdatedAt(task.getUpdatedAt());
+        response.setFinishedAt(task.getFinishedAt());
+        return response;
+    }
+}
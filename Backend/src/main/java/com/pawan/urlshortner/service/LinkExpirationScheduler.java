@@ -0,0 +1,264 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.cache.InvalidationBus;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flips links inactive when they expire, so the redirect path only has to
+ * read the expiration date and never writes.
+ *
+ * Runs as the link-expiration job, so one node at a time does the flipping.
+ * Each run seeds a hierarchical timing wheel from paged range queries over
+ * the links due before the run ends, overdue ones first, holding at most
+ * {@code max-scheduled} of them; links past the cap are left to later runs.
+ * The wheel then ticks until just before the next slot, flipping due links
+ * with batched updateMany calls and evicting them from every node's cache.
+ * Links created on the running node are added as they are saved; those
+ * created elsewhere are picked up by the next run, and the redirect path
+ * refuses them by their expiration date until then.
+ */
+@Slf4j
+@Component
+public class LinkExpirationScheduler {
+
+    static final String JOB = "link-expiration";
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    @Value("${app.jobs.link-expiration.schedule:PT5M}")
+    private String scheduleValue;
+
+    @Value("${app.links.expiration.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.links.expiration.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.links.expiration.max-scheduled:100000}")
+    private int maxScheduled;
+
+    @Value("${app.links.expiration.batch-size:500}")
+    private int batchSize;
+
+    private JobSchedule schedule;
+
+    // Both null outside a run; guarded by this
+    private HierarchicalTimingWheel<ScheduledExpiration> wheel;
+    // Deadline per scheduled link id, so a link is not scheduled twice
+    private Map<String, Long> scheduled;
+    private long runUntil;
+
+    private volatile boolean running;
+
+    private Counter expiredLinks;
+
+    private record ScheduledExpiration(String id, String shortCode) {
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            mongoTemplate.indexOps(UrlMapping.class)
+                    .ensureIndex(new Index().on("expirationDate", Sort.Direction.ASC));
+        } catch (RuntimeException e) {
+            log.warn("Could not ensure the link expiration index: {}", e.getMessage());
+        }
+
+        expiredLinks = meterRegistry.counter("links.expired");
+        Gauge.builder("links.expiration.scheduled", this, LinkExpirationScheduler::scheduledCount)
+                .register(meterRegistry);
+
+        running = true;
+        schedule = JobSchedule.parse(scheduleValue);
+        jobScheduler.register(JOB, schedule, this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Tracks a link that was just created or changed, if this node is running
+     * the job and the link falls due before the run ends; no-op otherwise
+     */
+    public void schedule(UrlMapping urlMapping) {
+        if (urlMapping.getExpirationDate() == null || !urlMapping.isActive()) {
+            return;
+        }
+        schedule(urlMapping.getId(), urlMapping.getShortCode(), toMillis(urlMapping.getExpirationDate()));
+    }
+
+    /**
+     * Job body: seeds the wheel and ticks it until just before the next slot,
+     * so the next run (here or on another node) can take the lease. Returns
+     * the number of links flipped.
+     */
+    private long run(JobContext context) throws InterruptedException {
+        long startedAt = System.currentTimeMillis();
+        long until = schedule.nextAfter(Instant.ofEpochMilli(startedAt)).toEpochMilli() - tickMs;
+        synchronized (this) {
+            wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_SIZE, WHEEL_LEVELS, startedAt);
+            scheduled = new HashMap<>();
+            runUntil = until;
+        }
+
+        long expired = 0;
+        try {
+            int seeded = seed(until, context);
+            log.debug("Link expiration run scheduled {} links due before {}", seeded, Instant.ofEpochMilli(until));
+
+            while (running) {
+                context.checkLease();
+                long now = System.currentTimeMillis();
+                List<ScheduledExpiration> dueNow = new ArrayList<>();
+                synchronized (this) {
+                    wheel.advance(now, expiration -> {
+                        scheduled.remove(expiration.id());
+                        dueNow.add(expiration);
+                    });
+                }
+                for (int from = 0; from < dueNow.size(); from += batchSize) {
+                    expired += expire(dueNow.subList(from, Math.min(from + batchSize, dueNow.size())));
+                }
+
+                if (now >= until) {
+                    break;
+                }
+                Thread.sleep(Math.min(tickMs, until - now));
+            }
+        } finally {
+            synchronized (this) {
+                wheel = null;
+                scheduled = null;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Schedules active links due before the given time, overdue ones first,
+     * a page at a time until the cap is reached
+     */
+    private int seed(long until, JobContext context) {
+        LocalDateTime end = LocalDateTime.ofInstant(Instant.ofEpochMilli(until), ZoneId.systemDefault());
+        LocalDateTime lastDate = null;
+        String lastId = null;
+        int count = 0;
+        while (count < maxScheduled) {
+            context.checkLease();
+            Criteria criteria = Criteria.where("isActive").is(true);
+            if (lastDate == null) {
+                criteria = criteria.and("expirationDate").lte(end);
+            } else {
+                criteria = criteria.orOperator(
+                        Criteria.where("expirationDate").gt(lastDate).lte(end),
+                        Criteria.where("expirationDate").is(lastDate).and("_id").gt(lastId));
+            }
+            int limit = Math.min(pageSize, maxScheduled - count);
+            Query query = Query.query(criteria)
+                    .with(Sort.by("expirationDate", "_id"))
+                    .limit(limit);
+            query.fields().include("shortCode", "expirationDate");
+
+            List<UrlMapping> page = mongoTemplate.find(query, UrlMapping.class);
+            for (UrlMapping urlMapping : page) {
+                schedule(urlMapping.getId(), urlMapping.getShortCode(), toMillis(urlMapping.getExpirationDate()));
+            }
+            count += page.size();
+            if (page.size() < limit) {
+                break;
+            }
+            UrlMapping last = page.get(page.size() - 1);
+            lastDate = last.getExpirationDate();
+            lastId = last.getId();
+        }
+        return count;
+    }
+
+    private synchronized void schedule(String id, String shortCode, long deadline) {
+        if (wheel == null || deadline > runUntil) {
+            return;
+        }
+        Long previous = scheduled.get(id);
+        if (previous == null && scheduled.size() >= maxScheduled) {
+            // Left for the next run's seed
+            return;
+        }
+        if (previous == null || previous != deadline) {
+            scheduled.put(id, deadline);
+            wheel.schedule(new ScheduledExpiration(id, shortCode), deadline);
+        }
+    }
+
+    /**
+     * Flips a batch in one updateMany. The filter re-checks the expiration date,
+     * so links that were deleted or extended in the meantime are left alone.
+     */
+    private int expire(List<ScheduledExpiration> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = batch.stream().map(ScheduledExpiration::id).toList();
+        Query query = Query.query(Criteria.where("_id").in(ids)
+                .and("isActive").is(true)
+                .and("expirationDate").lte(now));
+        long modified = mongoTemplate.updateMulti(query,
+                new Update().set("isActive", false).set("updatedAt", now), UrlMapping.class).getModifiedCount();
+
+        invalidationBus.publish(batch.stream().map(ScheduledExpiration::shortCode).toList());
+        expiredLinks.increment(modified);
+        log.info("Expired {} links", modified);
+        return (int) modified;
+    }
+
+    private synchronized int scheduledCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
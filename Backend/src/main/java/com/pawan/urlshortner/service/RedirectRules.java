@@ -0,0 +1,29 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.model.UrlMapping;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rules deciding whether a short link may be followed, shared by the servlet
+ * redirect path and the reactive redirect edge.
+ */
+public final class RedirectRules {
+
+    private RedirectRules() {
+    }
+
+    /**
+     * True if the link has an expiration date that has passed
+     */
+    public static boolean isExpired(UrlMapping urlMapping, LocalDateTime now) {
+        return urlMapping.getExpirationDate() != null && urlMapping.getExpirationDate().isBefore(now);
+    }
+
+    /**
+     * True if the link is active and not expired
+     */
+    public static boolean isRedirectable(UrlMapping urlMapping, LocalDateTime now) {
+        return urlMapping.isActive() && !isExpired(urlMapping, now);
+    }
+}
@@ -0,0 +1,85 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectEntry;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.cache.RedirectResult;
+import com.pawan.urlshortner.util.SingleFlight;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@Service
+public class RedirectService {
+
+    private static final byte[] NOT_FOUND_BODY = "URL not found or expired".getBytes(StandardCharsets.US_ASCII);
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private ClickService clickService;
+
+    @Autowired
+    private RedirectOutcomeRecorder redirectOutcomeRecorder;
+
+    /**
+     * Redirect short URL to original URL and record click. Misses are answered
+     * directly rather than through the error page dispatch.
+     */
+    public void redirect(String shortCode, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        RedirectResult result;
+        try {
+            result = redirectCache.resolve(shortCode);
+        } catch (SingleFlight.WaitTimeoutException e) {
+            log.warn("Redirect lookup for {} timed out waiting for a concurrent load", shortCode);
+            writeUnavailable(response);
+            return;
+        } catch (Exception e) {
+            log.error("Failed to redirect short code: " + shortCode, e);
+            writeUnavailable(response);
+            return;
+        }
+
+        redirectOutcomeRecorder.record(result.outcome(), shortCode);
+        if (result.outcome() == RedirectResult.Outcome.UNAVAILABLE) {
+            writeUnavailable(response);
+            return;
+        }
+        if (!result.isFound()) {
+            writeNotFound(response);
+            return;
+        }
+
+        RedirectEntry entry = result.entry();
+
+        // Capture the raw click; enrichment and persistence happen off the request thread
+        clickService.recordClick(entry.toUrlMappingReference(), request);
+
+        log.debug("Redirecting {} to {}", shortCode, entry.originalUrl());
+
+        // Headers were prepared with the cache entry; sendRedirect would re-resolve and re-encode the URL
+        response.setStatus(entry.status());
+        response.setHeader("Location", entry.location());
+        response.setHeader("Cache-Control", entry.cacheControl());
+    }
+
+    private static void writeUnavailable(HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentLength(0);
+    }
+
+    private static void writeNotFound(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        response.setContentType("text/plain");
+        response.setContentLength(NOT_FOUND_BODY.length);
+        response.getOutputStream().write(NOT_FOUND_BODY);
+    }
+}
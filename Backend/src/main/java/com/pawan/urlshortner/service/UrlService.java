@@ -1,12 +1,15 @@
 // UrlService.java
 package com.pawan.urlshortner.service;
 
+import com.pawan.urlshortner.cache.InvalidationBus;
 import com.pawan.urlshortner.dto.request.CreateUrlRequest;
 import com.pawan.urlshortner.dto.response.UrlResponse;
 import com.pawan.urlshortner.exception.BadRequestException;
 import com.pawan.urlshortner.exception.ResourceNotFoundException;
+import com.pawan.urlshortner.model.RedirectPolicy;
 import com.pawan.urlshortner.model.UrlMapping;
 import com.pawan.urlshortner.model.User;
+import com.pawan.urlshortner.repository.RedirectStore;
 import com.pawan.urlshortner.repository.UrlMappingRepository;
 import com.pawan.urlshortner.util.UrlShortenerUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -28,12 +31,21 @@ public class UrlService {
     @Autowired
     private UrlMappingRepository urlMappingRepository;
 
+    @Autowired
+    private RedirectStore redirectStore;
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private ClickService clickService;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private LinkExpirationScheduler linkExpirationScheduler;
+
     @Value("${app.base-url}")
     private String baseUrl;
 
@@ -42,7 +54,7 @@ public class UrlService {
 
         String shortCode;
         if (StringUtils.hasText(request.getCustomCode())) {
-            if (urlMappingRepository.existsByShortCode(request.getCustomCode())) {
+            if (redirectStore.existsByShortCode(request.getCustomCode())) {
                 throw new BadRequestException("Custom code already exists");
             }
             shortCode = request.getCustomCode();
@@ -57,38 +69,18 @@ public class UrlService {
         urlMapping.setTitle(request.getTitle());
         urlMapping.setDescription(request.getDescription());
         urlMapping.setExpirationDate(request.getExpirationDate());
+        urlMapping.setRedirectPolicy(RedirectPolicy.orDefault(request.getRedirectPolicy()));
         urlMapping.setCreatedAt(LocalDateTime.now());
         urlMapping.setUpdatedAt(LocalDateTime.now());
 
-        UrlMapping savedUrl = urlMappingRepository.save(urlMapping);
+        UrlMapping savedUrl = redirectStore.save(urlMapping);
+        linkExpirationScheduler.schedule(savedUrl);
         return convertToUrlResponse(savedUrl);
     }
 
-    public String getOriginalUrl(String shortCode) {
-        UrlMapping urlMapping = urlMappingRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> new ResourceNotFoundException("URL", "shortCode", shortCode));
-
-        if (!urlMapping.isActive()) {
-            throw new BadRequestException("URL is inactive");
-        }
-
-        if (urlMapping.getExpirationDate() != null &&
-                urlMapping.getExpirationDate().isBefore(LocalDateTime.now())) {
-            urlMapping.setActive(false);
-            urlMappingRepository.save(urlMapping);
-            throw new BadRequestException("URL has expired");
-        }
-
-        // Increment click count
-        urlMapping.setClickCount(urlMapping.getClickCount() + 1);
-        urlMappingRepository.save(urlMapping);
-
-        return urlMapping.getOriginalUrl();
-    }
-
     public List<UrlResponse> getUserUrls(String userId) {
         User user = userService.findById(userId);
-        List<UrlMapping> urls = urlMappingRepository.findByCreatedByOrderByCreatedAtDesc(user);
+        List<UrlMapping> urls = redirectStore.findByOwner(user.getId());
         return urls.stream()
                 .map(this::convertToUrlResponse)
                 .collect(Collectors.toList());
@@ -101,7 +93,7 @@ public class UrlService {
     }
 
     public UrlResponse getUrlById(String urlId, String userId) {
-        UrlMapping urlMapping = urlMappingRepository.findById(urlId)
+        UrlMapping urlMapping = redirectStore.findById(urlId)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "id", urlId));
 
         if (!urlMapping.getCreatedBy().getId().equals(userId)) {
@@ -112,18 +104,19 @@ public class UrlService {
     }
 
     public void deleteUrl(String urlId, String userId) {
-        UrlMapping urlMapping = urlMappingRepository.findById(urlId)
+        UrlMapping urlMapping = redirectStore.findById(urlId)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "id", urlId));
 
         if (!urlMapping.getCreatedBy().getId().equals(userId)) {
             throw new BadRequestException("Access denied");
         }
 
-        urlMappingRepository.delete(urlMapping);
+        redirectStore.delete(urlMapping);
+        invalidationBus.publish(urlMapping.getShortCode());
     }
 
     public UrlResponse toggleUrlStatus(String urlId, String userId) {
-        UrlMapping urlMapping = urlMappingRepository.findById(urlId)
+        UrlMapping urlMapping = redirectStore.findById(urlId)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "id", urlId));
 
         if (!urlMapping.getCreatedBy().getId().equals(userId)) {
@@ -132,7 +125,8 @@ public class UrlService {
 
         urlMapping.setActive(!urlMapping.isActive());
         urlMapping.setUpdatedAt(LocalDateTime.now());
-        UrlMapping updatedUrl = urlMappingRepository.save(urlMapping);
+        UrlMapping updatedUrl = redirectStore.save(urlMapping);
+        invalidationBus.publish(urlMapping.getShortCode());
 
         return convertToUrlResponse(updatedUrl);
     }
@@ -141,7 +135,7 @@ public class UrlService {
         String shortCode;
         do {
             shortCode = UrlShortenerUtil.generateShortCode();
-        } while (urlMappingRepository.existsByShortCode(shortCode));
+        } while (redirectStore.existsByShortCode(shortCode));
         return shortCode;
     }
 
@@ -155,6 +149,7 @@ public class UrlService {
         response.setDescription(urlMapping.getDescription());
         response.setActive(urlMapping.isActive());
         response.setExpirationDate(urlMapping.getExpirationDate());
+        response.setRedirectPolicy(RedirectPolicy.orDefault(urlMapping.getRedirectPolicy()));
         response.setCreatedAt(urlMapping.getCreatedAt());
         response.setUpdatedAt(urlMapping.getUpdatedAt());
         response.setClickCount(urlMapping.getClickCount());
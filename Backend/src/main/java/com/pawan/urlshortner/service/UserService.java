@@ -6,6 +6,7 @@ import com.pawan.urlshortner.dto.response.UserResponse;
 import com.pawan.urlshortner.exception.ResourceNotFoundException;
 import com.pawan.urlshortner.model.User;
 import com.pawan.urlshortner.repository.UserRepository;
+import com.pawan.urlshortner.security.PrincipalCache;
 import com.pawan.urlshortner.security.UserPrincipal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
@@ -98,6 +102,7 @@ public class UserService implements UserDetailsService {
 
         user.setUpdatedAt(LocalDateTime.now());
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
 
         return convertToUserResponse(updatedUser);
     }
@@ -111,6 +116,7 @@ public class UserService implements UserDetailsService {
     public void deleteUser(String userId) {
         User user = findById(userId);
         userRepository.delete(user);
+        principalCache.invalidate(userId);
     }
 
     private UserResponse convertToUserResponse(User user) {
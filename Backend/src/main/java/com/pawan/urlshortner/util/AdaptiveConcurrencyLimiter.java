@@ -0,0 +1,98 @@
+package com.pawan.urlshortner.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to observed latency, after the gradient
+ * limiter used by Netflix concurrency-limits.
+ *
+ * Two moving averages of request latency are kept: a short one reacting
+ * within a few requests and a long one describing normal latency. While the
+ * short average stays within {@code tolerance} of the long one, the limit
+ * grows by about its square root per update; once requests slow down the
+ * gradient (long / short) drops below 1 and shrinks the limit
+ * proportionally, down to half per update. Updates only happen while the
+ * limit is actually in use, so idle periods do not inflate it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double SMOOTHING = 0.2;
+    private static final double TOLERANCE = 1.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private boolean sampled;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Takes a slot if one is free. Every successful call must be followed by {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(Math.max(1, latencyNanos), inFlightBefore);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightBefore) {
+        if (!sampled) {
+            shortRttNanos = latencyNanos;
+            longRttNanos = latencyNanos;
+            sampled = true;
+        } else {
+            shortRttNanos += (latencyNanos - shortRttNanos) * SHORT_ALPHA;
+            longRttNanos += (latencyNanos - longRttNanos) * LONG_ALPHA;
+        }
+
+        // After a long overload the long average drifts up; pull it back once latency recovers
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Latency says nothing about capacity while most of the limit is unused
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        double smoothed = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,79 @@
+package com.pawan.urlshortner.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal circuit breaker. After {@code failureThreshold} consecutive
+ * failures it opens and rejects calls for {@code openMs}; then a single trial
+ * call is let through, which closes it on success or reopens it on failure.
+ * Calls slower than {@code slowCallMs} count as failures.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long slowCallNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInProgress = new AtomicBoolean();
+    private volatile long openedAt;
+    private volatile boolean open;
+
+    public CircuitBreaker(int failureThreshold, long openMs, long slowCallMs) {
+        this(failureThreshold, openMs, slowCallMs, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, long openMs, long slowCallMs, LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether a call may go ahead. A true result must be followed by
+     * {@link #onSuccess(long)} or {@link #onFailure()}.
+     */
+    public boolean tryAcquire() {
+        if (!open) {
+            return true;
+        }
+        if (nanoClock.getAsLong() - openedAt < openNanos) {
+            return false;
+        }
+        return trialInProgress.compareAndSet(false, true);
+    }
+
+    public void onSuccess(long durationNanos) {
+        if (durationNanos > slowCallNanos) {
+            onFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+        open = false;
+        trialInProgress.set(false);
+    }
+
+    public void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || open) {
+            openedAt = nanoClock.getAsLong();
+            open = true;
+        }
+        trialInProgress.set(false);
+    }
+
+    public State getState() {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return nanoClock.getAsLong() - openedAt < openNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
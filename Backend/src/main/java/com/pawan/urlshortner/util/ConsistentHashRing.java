@@ -0,0 +1,80 @@
+package com.pawan.urlshortner.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring over named members. Each member is placed
+ * at {@code virtualNodes} points so keys spread evenly, and adding or
+ * removing a member only moves the keys in the arcs it gains or loses,
+ * about 1/N of them. Build a new ring when membership changes.
+ */
+public class ConsistentHashRing {
+
+    private final Set<String> members;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.members = Set.copyOf(members);
+        int count = this.members.size() * virtualNodes;
+        long[] hashes = new long[count];
+        String[] names = new String[count];
+        int i = 0;
+        // Sorted so rings built from the same members are identical on every node
+        for (String member : new TreeSet<>(this.members)) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[i] = hash(member + "#" + v);
+                names[i++] = member;
+            }
+        }
+
+        Integer[] order = new Integer[count];
+        for (int j = 0; j < count; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+                ? Long.compare(hashes[a], hashes[b]) : names[a].compareTo(names[b]));
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int j = 0; j < count; j++) {
+            points[j] = hashes[order[j]];
+            owners[j] = names[order[j]];
+        }
+    }
+
+    /**
+     * The member owning the key: the first point at or after its hash,
+     * wrapping around. Null when the ring is empty.
+     */
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public Set<String> getMembers() {
+        return members;
+    }
+
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,149 @@
+package com.pawan.urlshortner.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for scheduling many deadlines cheaply.
+ *
+ * Level 0 has one slot per tick; each higher level has one slot per full
+ * rotation of the level below. Scheduling is O(1), and an item is moved down
+ * at most once per level as its deadline approaches. Deadlines beyond the
+ * span of the top level wait in an overflow list until they come into range.
+ *
+ * Items fire on the first advance at or after their deadline, rounded up to
+ * the next tick. Not thread-safe.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bitsPerLevel;
+    private final int mask;
+    private final ArrayDeque<Slot<T>>[][] levels;
+    private final List<Slot<T>> overflow = new ArrayList<>();
+    private final List<Slot<T>> due = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    private record Slot<T>(T item, long deadlineTick) {
+    }
+
+    /**
+     * @param wheelSize slots per level, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.bitsPerLevel = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        if ((long) bitsPerLevel * levelCount >= 62) {
+            throw new IllegalArgumentException("Timing wheel span too large");
+        }
+        this.mask = (1 << bitsPerLevel) - 1;
+        this.levels = new ArrayDeque[levelCount][1 << bitsPerLevel];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules an item; one already due fires on the next advance
+     */
+    public void schedule(T item, long deadlineMillis) {
+        long deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        place(new Slot<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and hands every due item to the consumer
+     */
+    public void advance(long nowMillis, Consumer<T> onDue) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        fireDue(onDue);
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Top-level rotation finished: overflow items may now fit
+            if ((currentTick & ((1L << (bitsPerLevel * levels.length)) - 1)) == 0 && !overflow.isEmpty()) {
+                List<Slot<T>> pending = new ArrayList<>(overflow);
+                overflow.clear();
+                pending.forEach(this::place);
+            }
+
+            // Cascade from the highest level whose slot boundary was just crossed
+            for (int level = levels.length - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (bitsPerLevel * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bitsPerLevel * level)) & mask));
+                }
+            }
+
+            ArrayDeque<Slot<T>> slot = levels[0][(int) (currentTick & mask)];
+            if (slot != null) {
+                due.addAll(slot);
+                slot.clear();
+            }
+            fireDue(onDue);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Time covered by the wheel levels; later deadlines wait in the overflow list
+     */
+    public long spanMillis() {
+        return tickMillis << (bitsPerLevel * levels.length);
+    }
+
+    private void place(Slot<T> slot) {
+        if (slot.deadlineTick() <= currentTick) {
+            due.add(slot);
+            return;
+        }
+
+        for (int level = 0; level < levels.length; level++) {
+            int higherShift = bitsPerLevel * (level + 1);
+            // Fits this level if it falls within the current rotation of the level above
+            if ((slot.deadlineTick() >>> higherShift) == (currentTick >>> higherShift)) {
+                int index = (int) ((slot.deadlineTick() >>> (bitsPerLevel * level)) & mask);
+                ArrayDeque<Slot<T>> bucket = levels[level][index];
+                if (bucket == null) {
+                    bucket = new ArrayDeque<>();
+                    levels[level][index] = bucket;
+                }
+                bucket.add(slot);
+                return;
+            }
+        }
+        overflow.add(slot);
+    }
+
+    private void cascade(int level, int index) {
+        ArrayDeque<Slot<T>> bucket = levels[level][index];
+        if (bucket == null || bucket.isEmpty()) {
+            return;
+        }
+        List<Slot<T>> pending = new ArrayList<>(bucket);
+        bucket.clear();
+        pending.forEach(this::place);
+    }
+
+    private void fireDue(Consumer<T> onDue) {
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Slot<T>> firing = new ArrayList<>(due);
+        due.clear();
+        size -= firing.size();
+        for (Slot<T> slot : firing) {
+            onDue.accept(slot.item());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.pawan.urlshortner.util;
+
+import java.util.Arrays;
+
+/**
+ * Strict parser for IP literals taken from request headers. Anything that is
+ * not a dotted-quad IPv4 or an RFC 4291 IPv6 literal is rejected, so client
+ * supplied values never reach name resolution.
+ */
+public final class IpAddresses {
+
+    private static final int IPV6_GROUPS = 8;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Returns the 4 raw bytes of an IPv4 literal (including an IPv4-mapped
+     * IPv6 one) or the 16 raw bytes of an IPv6 literal, or null if the value
+     * is not a literal
+     */
+    public static byte[] parse(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+        return address.indexOf(':') >= 0 ? parseIpv6(address) : parseIpv4(address);
+    }
+
+    private static byte[] parseIpv4(String address) {
+        String[] parts = address.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) {
+                return null;
+            }
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+
+    private static byte[] parseIpv6(String address) {
+        if (address.length() > 2 && address.charAt(0) == '[' && address.charAt(address.length() - 1) == ']') {
+            address = address.substring(1, address.length() - 1);
+        }
+        // A zone id only means something on the host that produced it
+        int zone = address.indexOf('%');
+        if (zone >= 0) {
+            address = address.substring(0, zone);
+        }
+
+        byte[] bytes;
+        int gap = address.indexOf("::");
+        if (gap < 0) {
+            bytes = parseGroups(address, true);
+            if (bytes == null || bytes.length != 16) {
+                return null;
+            }
+        } else {
+            if (address.indexOf("::", gap + 1) >= 0) {
+                return null;
+            }
+            String headPart = address.substring(0, gap);
+            String tailPart = address.substring(gap + 2);
+            byte[] head = headPart.isEmpty() ? new byte[0] : parseGroups(headPart, false);
+            byte[] tail = tailPart.isEmpty() ? new byte[0] : parseGroups(tailPart, true);
+            // "::" stands for at least one zero group
+            if (head == null || tail == null || head.length + tail.length > 14) {
+                return null;
+            }
+            bytes = new byte[16];
+            System.arraycopy(head, 0, bytes, 0, head.length);
+            System.arraycopy(tail, 0, bytes, 16 - tail.length, tail.length);
+        }
+
+        return isIpv4Mapped(bytes) ? Arrays.copyOfRange(bytes, 12, 16) : bytes;
+    }
+
+    /**
+     * Colon-separated groups of 1-4 hex digits, the last of which may be an
+     * IPv4 literal when allowed. Returns their bytes, or null if malformed.
+     */
+    private static byte[] parseGroups(String part, boolean allowIpv4Tail) {
+        String[] groups = part.split(":", -1);
+        if (groups.length > IPV6_GROUPS) {
+            return null;
+        }
+
+        byte[] bytes = new byte[16];
+        int length = 0;
+        for (int i = 0; i < groups.length; i++) {
+            String group = groups[i];
+            if (i == groups.length - 1 && allowIpv4Tail && group.indexOf('.') >= 0) {
+                byte[] ipv4 = parseIpv4(group);
+                if (ipv4 == null || length + 4 > 16) {
+                    return null;
+                }
+                System.arraycopy(ipv4, 0, bytes, length, 4);
+                length += 4;
+                continue;
+            }
+            if (group.isEmpty() || group.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < group.length(); j++) {
+                int digit = Character.digit(group.charAt(j), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                value = value << 4 | digit;
+            }
+            bytes[length++] = (byte) (value >>> 8);
+            bytes[length++] = (byte) value;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xff && bytes[11] == (byte) 0xff;
+    }
+}
@@ -0,0 +1,612 @@
+package com.pawan.urlshortner.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded log-structured merge store of string keys to byte values, kept in
+ * one local directory. Writes are appended to a write-ahead log and applied
+ * to a sorted in-memory memtable; a full memtable is flushed to an immutable
+ * sorted table file, and once there are more than {@code maxTables} of those
+ * they are merged into one, dropping overwritten values and deletions.
+ *
+ * Reads take no lock: they check the memtable, then the table files from
+ * newest to oldest, skipping those whose Bloom filter rules the key out and
+ * searching the rest through a sparse in-memory index over a memory mapping.
+ * Writes, flushes and merges are serialized. On open the tables are mapped
+ * and the log is replayed up to its first torn or corrupt record.
+ */
+public class LsmStore implements Closeable {
+
+    private static final String LOG_FILE = "wal.log";
+    private static final String TABLE_PREFIX = "table-";
+    private static final String TABLE_SUFFIX = ".sst";
+    private static final byte[] TOMBSTONE = new byte[0];
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Path directory;
+    private final long memtableBytes;
+    private final int maxTables;
+    private final boolean syncWrites;
+
+    private volatile ConcurrentSkipListMap<String, byte[]> memtable = new ConcurrentSkipListMap<>();
+    // Newest first; replaced wholesale, never mutated
+    private volatile List<Table> tables;
+
+    // Guarded by this
+    private final FileChannel log;
+    private long memtableSize;
+    private long nextSequence;
+    private boolean closed;
+
+    public LsmStore(Path directory, long memtableBytes, int maxTables, boolean syncWrites) throws IOException {
+        this.directory = directory;
+        this.memtableBytes = memtableBytes;
+        this.maxTables = Math.max(1, maxTables);
+        this.syncWrites = syncWrites;
+        Files.createDirectories(directory);
+
+        List<Table> opened = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                } else if (name.startsWith(TABLE_PREFIX) && name.endsWith(TABLE_SUFFIX)) {
+                    opened.add(Table.open(file, Long.parseLong(
+                            name.substring(TABLE_PREFIX.length(), name.length() - TABLE_SUFFIX.length()))));
+                }
+            }
+        }
+        opened.sort(Comparator.comparingLong(Table::sequence).reversed());
+        this.tables = List.copyOf(dropMerged(opened));
+        this.nextSequence = opened.isEmpty() ? 1 : opened.get(0).sequence() + 1;
+
+        this.log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayLog();
+    }
+
+    /**
+     * Returns the value stored for the key, or null. The array is shared and
+     * must not be modified.
+     */
+    public byte[] get(String key) {
+        byte[] value = memtable.get(key);
+        if (value == null) {
+            long hash = hash(key);
+            for (Table table : tables) {
+                value = table.get(key, hash);
+                if (value != null) {
+                    break;
+                }
+            }
+        }
+        return value == TOMBSTONE ? null : value;
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        write(key, value);
+    }
+
+    public synchronized void delete(String key) {
+        write(key, TOMBSTONE);
+    }
+
+    /**
+     * Writes the memtable out to a table file and empties the log
+     */
+    public synchronized void flush() {
+        checkOpen();
+        try {
+            flushMemtable();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int tableCount() {
+        return tables.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            log.close();
+        }
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Deletes tables left behind by a merge that crashed before removing
+     * them; they could otherwise resurrect deleted keys
+     */
+    private static List<Table> dropMerged(List<Table> newestFirst) throws IOException {
+        List<Table> live = new ArrayList<>();
+        long coveredFrom = Long.MAX_VALUE;
+        for (Table table : newestFirst) {
+            if (table.sequence() >= coveredFrom) {
+                Files.deleteIfExists(table.path());
+                continue;
+            }
+            live.add(table);
+            coveredFrom = Math.min(coveredFrom, table.coversFrom());
+        }
+        return live;
+    }
+
+    private void write(String key, byte[] value) {
+        checkOpen();
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Keys must not be empty");
+        }
+        try {
+            appendToLog(key, value);
+            memtable.put(key, value);
+            memtableSize += key.length() * 2L + value.length + ENTRY_OVERHEAD;
+            if (memtableSize >= memtableBytes) {
+                flushMemtable();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    /**
+     * Log record: [int length][int crc][int keyLength][key][int valueLength or -1][value]
+     */
+    private void appendToLog(String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int valueLength = value == TOMBSTONE ? 0 : value.length;
+        int length = Integer.BYTES * 2 + keyBytes.length + valueLength;
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES * 2 + length);
+        record.putInt(length).putInt(0)
+                .putInt(keyBytes.length).put(keyBytes)
+                .putInt(value == TOMBSTONE ? -1 : value.length).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES * 2, length);
+        record.putInt(Integer.BYTES, (int) crc.getValue()).flip();
+
+        while (record.hasRemaining()) {
+            log.write(record, log.size());
+        }
+        if (syncWrites) {
+            log.force(false);
+        }
+    }
+
+    private void replayLog() throws IOException {
+        long size = log.size();
+        ByteBuffer contents = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (contents.hasRemaining() && log.read(contents, contents.position()) > 0) {
+            // Keep reading until the buffer is full
+        }
+        contents.flip();
+
+        int valid = 0;
+        while (contents.remaining() >= Integer.BYTES * 2) {
+            int length = contents.getInt(valid);
+            int expected = contents.getInt(valid + Integer.BYTES);
+            int start = valid + Integer.BYTES * 2;
+            if (length < Integer.BYTES * 2 || length > contents.limit() - start) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(contents.array(), start, length);
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+
+            int keyLength = contents.getInt(start);
+            String key = new String(contents.array(), start + Integer.BYTES, keyLength, StandardCharsets.UTF_8);
+            int valueAt = start + Integer.BYTES + keyLength;
+            int valueLength = contents.getInt(valueAt);
+            byte[] value = valueLength < 0 ? TOMBSTONE
+                    : Arrays.copyOfRange(contents.array(), valueAt + Integer.BYTES, valueAt + Integer.BYTES + valueLength);
+            memtable.put(key, value);
+            memtableSize += key.length() * 2L + value.length + ENTRY_OVERHEAD;
+
+            valid = start + length;
+            contents.position(valid);
+        }
+        if (valid < size) {
+            // Drop the torn tail so later records follow valid ones
+            log.truncate(valid);
+        }
+    }
+
+    private void flushMemtable() throws IOException {
+        if (memtable.isEmpty()) {
+            return;
+        }
+        long sequence = nextSequence++;
+        Table table = Table.write(directory, sequence, sequence, memtable.entrySet().iterator(), false);
+        List<Table> updated = new ArrayList<>(tables.size() + 1);
+        updated.add(table);
+        updated.addAll(tables);
+        // Publish the table before dropping the memtable, so readers never miss the entries
+        tables = List.copyOf(updated);
+        memtable = new ConcurrentSkipListMap<>();
+        memtableSize = 0;
+        log.truncate(0);
+        log.force(true);
+
+        if (tables.size() > maxTables) {
+            compact();
+        }
+    }
+
+    /**
+     * Merges every table into one. Nothing older is left for a deletion to
+     * shadow, so tombstones are dropped too.
+     */
+    private void compact() throws IOException {
+        List<Table> sources = tables;
+        Table merged = Table.write(directory, nextSequence++, sources.get(sources.size() - 1).coversFrom(),
+                new MergingIterator(sources), true);
+        tables = List.of(merged);
+        for (Table source : sources) {
+            // Readers still on the old mapping keep it until they are done
+            Files.deleteIfExists(source.path());
+        }
+    }
+
+    /**
+     * Immutable sorted table file:
+     *
+     * <pre>
+     * entries  [int keyLength][key][int valueLength or -1][value], sorted by key,
+     *          never crossing a mapping window (zero padding before the boundary)
+     * index    [int count] then count x [int keyLength][key][long offset],
+     *          one for every INDEX_INTERVAL entries and for each window start
+     * bloom    [int longCount] then the filter's bits, BLOOM_BITS_PER_KEY a key
+     * footer   [long indexOffset][long coversFrom][int magic]
+     * </pre>
+     */
+    private record Table(Path path, long sequence, long coversFrom, ByteBuffer[] windows, String[] indexKeys,
+                         long[] indexOffsets, long dataEnd, long[] bloom) {
+
+        private static final int MAGIC = 0x4c534d31;
+        private static final int FOOTER_BYTES = Long.BYTES * 2 + Integer.BYTES;
+        private static final int INDEX_INTERVAL = 32;
+        private static final int BLOOM_BITS_PER_KEY = 10;
+        private static final int BLOOM_HASHES = 7;
+        private static final int WINDOW_SHIFT = 30;
+        private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+
+        static Table write(Path directory, long sequence, long coversFrom,
+                           Iterator<Map.Entry<String, byte[]>> entries, boolean dropTombstones) throws IOException {
+            Path target = directory.resolve(String.format("%s%020d%s", TABLE_PREFIX, sequence, TABLE_SUFFIX));
+            Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            List<byte[]> indexKeys = new ArrayList<>();
+            List<Long> indexOffsets = new ArrayList<>();
+            long[] hashes = new long[1024];
+            int count = 0;
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                long position = 0;
+                int sinceIndexed = INDEX_INTERVAL;
+                while (entries.hasNext()) {
+                    Map.Entry<String, byte[]> entry = entries.next();
+                    byte[] value = entry.getValue();
+                    if (dropTombstones && value == TOMBSTONE) {
+                        continue;
+                    }
+                    byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    long length = Integer.BYTES * 2L + key.length + value.length;
+                    if (length > WINDOW_SIZE) {
+                        throw new IllegalArgumentException("Entry larger than a mapping window");
+                    }
+                    long windowOffset = position & (WINDOW_SIZE - 1);
+                    if (windowOffset + length > WINDOW_SIZE) {
+                        out.write(new byte[(int) (WINDOW_SIZE - windowOffset)]);
+                        position += WINDOW_SIZE - windowOffset;
+                        sinceIndexed = INDEX_INTERVAL;
+                    }
+                    if (sinceIndexed == INDEX_INTERVAL) {
+                        indexKeys.add(key);
+                        indexOffsets.add(position);
+                        sinceIndexed = 0;
+                    }
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.writeInt(value == TOMBSTONE ? -1 : value.length);
+                    out.write(value);
+                    position += length;
+                    sinceIndexed++;
+                    if (count == hashes.length) {
+                        hashes = Arrays.copyOf(hashes, count * 2);
+                    }
+                    hashes[count++] = hash(entry.getKey());
+                }
+
+                long indexOffset = position;
+                out.writeInt(indexKeys.size());
+                for (int i = 0; i < indexKeys.size(); i++) {
+                    out.writeInt(indexKeys.get(i).length);
+                    out.write(indexKeys.get(i));
+                    out.writeLong(indexOffsets.get(i));
+                }
+                long[] bloom = bloom(hashes, count);
+                out.writeInt(bloom.length);
+                for (long bits : bloom) {
+                    out.writeLong(bits);
+                }
+                out.writeLong(indexOffset);
+                out.writeLong(coversFrom);
+                out.writeInt(MAGIC);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return open(target, sequence);
+        }
+
+        static Table open(Path path, long sequence) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+                if (size < FOOTER_BYTES || channel.read(footer, size - FOOTER_BYTES) != FOOTER_BYTES
+                        || footer.getInt(Long.BYTES * 2) != MAGIC) {
+                    throw new IllegalArgumentException("Not a table file: " + path);
+                }
+                long dataEnd = footer.getLong(0);
+                long coversFrom = footer.getLong(Long.BYTES);
+
+                ByteBuffer index = ByteBuffer.allocate((int) (size - FOOTER_BYTES - dataEnd));
+                while (index.hasRemaining() && channel.read(index, dataEnd + index.position()) > 0) {
+                    // Keep reading until the index is complete
+                }
+                index.flip();
+                int count = index.getInt();
+                String[] keys = new String[count];
+                long[] offsets = new long[count];
+                for (int i = 0; i < count; i++) {
+                    byte[] key = new byte[index.getInt()];
+                    index.get(key);
+                    keys[i] = new String(key, StandardCharsets.UTF_8);
+                    offsets[i] = index.getLong();
+                }
+                long[] bloom = new long[index.getInt()];
+                index.asLongBuffer().get(bloom);
+
+                MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((dataEnd + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+                for (int i = 0; i < windows.length; i++) {
+                    long start = (long) i << WINDOW_SHIFT;
+                    windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, dataEnd - start));
+                }
+                return new Table(path, sequence, coversFrom, windows, keys, offsets, dataEnd, bloom);
+            }
+        }
+
+        private static long[] bloom(long[] hashes, int count) {
+            int bits = Math.max(Long.SIZE, Integer.highestOneBit(Math.max(1, count * BLOOM_BITS_PER_KEY - 1)) << 1);
+            long[] bloom = new long[bits / Long.SIZE];
+            for (int i = 0; i < count; i++) {
+                int h1 = (int) hashes[i];
+                int h2 = (int) (hashes[i] >>> 32);
+                for (int k = 0; k < BLOOM_HASHES; k++) {
+                    int bit = (h1 + k * h2) & (bits - 1);
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+            }
+            return bloom;
+        }
+
+        private boolean mightContain(long hash) {
+            int bits = bloom.length * Long.SIZE;
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int k = 0; k < BLOOM_HASHES; k++) {
+                int bit = (h1 + k * h2) & (bits - 1);
+                if ((bloom[bit >>> 6] & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The stored value, TOMBSTONE for a deletion, or null if the key is not in this table
+         */
+        byte[] get(String key, long hash) {
+            if (!mightContain(hash)) {
+                return null;
+            }
+            int block = Arrays.binarySearch(indexKeys, key);
+            if (block < 0) {
+                block = -block - 2;
+                if (block < 0) {
+                    return null;
+                }
+            }
+            long start = indexOffsets[block];
+            long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : dataEnd;
+            ByteBuffer window = windows[(int) (start >>> WINDOW_SHIFT)];
+            long windowStart = start & ~(WINDOW_SIZE - 1);
+            int limit = (int) Math.min(end - windowStart, window.limit());
+
+            byte[] ascii = asciiBytes(key);
+            int position = (int) (start - windowStart);
+            while (position < limit) {
+                int keyLength = window.getInt(position);
+                if (keyLength == 0) {
+                    return null;
+                }
+                int valueAt = position + Integer.BYTES + keyLength;
+                int valueLength = window.getInt(valueAt);
+                int comparison = ascii != null
+                        ? compare(window, position + Integer.BYTES, keyLength, ascii)
+                        : readKey(window, position + Integer.BYTES, keyLength).compareTo(key);
+                if (comparison == 0) {
+                    if (valueLength < 0) {
+                        return TOMBSTONE;
+                    }
+                    byte[] value = new byte[valueLength];
+                    window.get(valueAt + Integer.BYTES, value);
+                    return value;
+                }
+                if (comparison > 0) {
+                    return null;
+                }
+                position = valueAt + Integer.BYTES + Math.max(0, valueLength);
+            }
+            return null;
+        }
+
+        /**
+         * The key's bytes if it is plain ASCII, where unsigned UTF-8 byte
+         * order matches the String order the table is sorted in
+         */
+        private static byte[] asciiBytes(String key) {
+            byte[] bytes = new byte[key.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                char c = key.charAt(i);
+                if (c >= 0x80) {
+                    return null;
+                }
+                bytes[i] = (byte) c;
+            }
+            return bytes;
+        }
+
+        private static int compare(ByteBuffer window, int offset, int length, byte[] key) {
+            int shared = Math.min(length, key.length);
+            for (int i = 0; i < shared; i++) {
+                int difference = (window.get(offset + i) & 0xff) - key[i];
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length - key.length;
+        }
+
+        private static String readKey(ByteBuffer window, int offset, int length) {
+            byte[] bytes = new byte[length];
+            window.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Iterator<Map.Entry<String, byte[]>> iterator() {
+            return new Iterator<>() {
+                private long position;
+
+                @Override
+                public boolean hasNext() {
+                    if (position < dataEnd
+                            && windows[(int) (position >>> WINDOW_SHIFT)].getInt((int) (position & (WINDOW_SIZE - 1))) == 0) {
+                        // Padding runs to the end of the window
+                        position = (position & ~(WINDOW_SIZE - 1)) + WINDOW_SIZE;
+                    }
+                    return position < dataEnd;
+                }
+
+                @Override
+                public Map.Entry<String, byte[]> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ByteBuffer window = windows[(int) (position >>> WINDOW_SHIFT)];
+                    int offset = (int) (position & (WINDOW_SIZE - 1));
+                    byte[] key = new byte[window.getInt(offset)];
+                    window.get(offset + Integer.BYTES, key);
+                    int valueAt = offset + Integer.BYTES + key.length;
+                    int valueLength = window.getInt(valueAt);
+                    byte[] value = TOMBSTONE;
+                    if (valueLength >= 0) {
+                        value = new byte[valueLength];
+                        window.get(valueAt + Integer.BYTES, value);
+                    }
+                    position += Integer.BYTES * 2L + key.length + value.length;
+                    return new AbstractMap.SimpleImmutableEntry<>(new String(key, StandardCharsets.UTF_8), value);
+                }
+            };
+        }
+    }
+
+    /**
+     * Merges tables (newest first) into one sorted stream, keeping only the
+     * newest value for each key
+     */
+    private static final class MergingIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+        private record Head(Map.Entry<String, byte[]> entry, int age, Iterator<Map.Entry<String, byte[]>> rest) {
+        }
+
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(
+                Comparator.comparing((Head head) -> head.entry().getKey()).thenComparingInt(Head::age));
+
+        MergingIterator(List<Table> sources) {
+            for (int age = 0; age < sources.size(); age++) {
+                advance(sources.get(age).iterator(), age);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<String, byte[]> next() {
+            Head newest = heads.poll();
+            if (newest == null) {
+                throw new NoSuchElementException();
+            }
+            advance(newest.rest(), newest.age());
+            while (!heads.isEmpty() && heads.peek().entry().getKey().equals(newest.entry().getKey())) {
+                Head shadowed = heads.poll();
+                advance(shadowed.rest(), shadowed.age());
+            }
+            return newest.entry();
+        }
+
+        private void advance(Iterator<Map.Entry<String, byte[]>> iterator, int age) {
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), age, iterator));
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.pawan.urlshortner.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap hash map from positive long keys to byte arrays, meant to hold
+ * far more entries than fit comfortably on the heap. Keys live in
+ * open-addressing index tables of direct memory (16 bytes a slot); values are
+ * length-prefixed and appended to direct-memory slabs.
+ *
+ * The store is split into segments, each with its own write lock. Reads take
+ * no lock: slots are published with release/acquire ordering, slabs are
+ * append-only, and deleted slots stay tombstones until the segment is rebuilt.
+ * A rebuild (to grow the index, or to compact once more than half the slab
+ * bytes are dead) copies live entries into fresh buffers and swaps them in
+ * with one volatile write, so readers still on the old buffers see a
+ * consistent, if slightly older, view.
+ */
+public class OffHeapHashStore {
+
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final byte[] RETRY = new byte[0];
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int initialSlots;
+    private final int slabSize;
+
+    public OffHeapHashStore(int segmentCount, int initialSlotsPerSegment, int slabSize) {
+        int count = Integer.highestOneBit(Math.max(1, segmentCount));
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        this.initialSlots = Math.max(16, Integer.highestOneBit(Math.max(1, initialSlotsPerSegment - 1)) << 1);
+        this.slabSize = slabSize;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns a copy of the value stored for the key, or null
+     */
+    public byte[] get(long key) {
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        while (true) {
+            byte[] value = segment.table.find(key, hash);
+            if (value != RETRY) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Stores the value, replacing any previous one. Returns false if the value
+     * cannot fit in a slab.
+     */
+    public boolean put(long key, byte[] value) {
+        checkKey(key);
+        if (value.length + Integer.BYTES > slabSize) {
+            return false;
+        }
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            segment.put(key, hash, value);
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public boolean remove(long key) {
+        checkKey(key);
+        long hash = mix(key);
+        Segment segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            return segment.remove(key, hash);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every entry; readers still on the old buffers finish against them
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.live;
+        }
+        return size;
+    }
+
+    /**
+     * Direct memory currently held by index tables and slabs
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            Table table = segment.table;
+            bytes += (long) table.index.capacity() + (long) table.slabs.length * slabSize;
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 40) & segmentMask];
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY || key == TOMBSTONE) {
+            throw new IllegalArgumentException("Reserved key: " + key);
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long ref(int slab, int offset) {
+        return (long) slab << 32 | offset;
+    }
+
+    /**
+     * One generation of a segment's buffers. The index is mutated in place
+     * only by slot publication; the slab array itself is never mutated.
+     */
+    private record Table(ByteBuffer index, int mask, ByteBuffer[] slabs) {
+
+        static Table allocate(int slots) {
+            return new Table(ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder()),
+                    slots - 1, new ByteBuffer[0]);
+        }
+
+        byte[] find(long key, long hash) {
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int position = slot * SLOT_BYTES;
+                long k = (long) LONGS.getAcquire(index, position);
+                if (k == EMPTY) {
+                    return null;
+                }
+                if (k == key) {
+                    long ref = (long) LONGS.getAcquire(index, position + 8);
+                    int slab = (int) (ref >>> 32);
+                    if (slab >= slabs.length) {
+                        // Written into a slab added after this table was read
+                        return RETRY;
+                    }
+                    return read(slabs[slab], (int) ref);
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        static byte[] read(ByteBuffer slab, int offset) {
+            byte[] value = new byte[slab.getInt(offset)];
+            slab.get(offset + Integer.BYTES, value);
+            return value;
+        }
+    }
+
+    private final class Segment {
+
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Table table = Table.allocate(initialSlots);
+        volatile int live;
+
+        // Guarded by lock; the table writers append to, published as table
+        // except while a rebuild is filling it
+        private Table writable = table;
+        private int used;
+        private long liveBytes;
+        private long deadBytes;
+        private int slabPosition;
+
+        void put(long key, long hash, byte[] value) {
+            Table current = writable;
+            int position = probe(current, key, hash);
+            long existing = (long) LONGS.get(current.index, position);
+            if (existing == EMPTY && used + 1 > (current.mask + 1) * 3L / 4) {
+                rebuild(Math.max(initialSlots, (live + 1) * 2));
+                put(key, hash, value);
+                return;
+            }
+
+            long ref = append(value, true);
+            current = writable;
+            liveBytes += Integer.BYTES + value.length;
+            if (existing == key) {
+                deadBytes += slotBytes(current, position);
+                liveBytes -= slotBytes(current, position);
+                LONGS.setRelease(current.index, position + 8, ref);
+            } else {
+                LONGS.setRelease(current.index, position + 8, ref);
+                LONGS.setRelease(current.index, position, key);
+                used++;
+                live++;
+            }
+            compactIfWasteful();
+        }
+
+        void clear() {
+            writable = Table.allocate(initialSlots);
+            table = writable;
+            live = 0;
+            used = 0;
+            liveBytes = 0;
+            deadBytes = 0;
+            slabPosition = 0;
+        }
+
+        boolean remove(long key, long hash) {
+            Table current = writable;
+            int position = probe(current, key, hash);
+            if ((long) LONGS.get(current.index, position) != key) {
+                return false;
+            }
+            long bytes = slotBytes(current, position);
+            LONGS.setRelease(current.index, position, TOMBSTONE);
+            live--;
+            liveBytes -= bytes;
+            deadBytes += bytes;
+            compactIfWasteful();
+            return true;
+        }
+
+        /**
+         * Position of the key's slot, or of the empty slot ending its probe
+         * sequence. Tombstones are never reused in place, since a reader that
+         * matched the old key could otherwise pick up the new key's value.
+         */
+        private int probe(Table current, long key, long hash) {
+            int slot = (int) hash & current.mask;
+            while (true) {
+                int position = slot * SLOT_BYTES;
+                long k = (long) LONGS.get(current.index, position);
+                if (k == key || k == EMPTY) {
+                    return position;
+                }
+                slot = (slot + 1) & current.mask;
+            }
+        }
+
+        private long slotBytes(Table current, int position) {
+            long ref = (long) LONGS.get(current.index, position + 8);
+            return Integer.BYTES + current.slabs[(int) (ref >>> 32)].getInt((int) ref);
+        }
+
+        /**
+         * Copies the value into the current slab, starting a new one when it
+         * does not fit. The new slab is published before any slot refers to it.
+         */
+        private long append(byte[] value, boolean publish) {
+            ByteBuffer[] slabs = writable.slabs;
+            if (slabs.length == 0 || slabPosition + Integer.BYTES + value.length > slabSize) {
+                slabs = Arrays.copyOf(slabs, slabs.length + 1);
+                slabs[slabs.length - 1] = ByteBuffer.allocateDirect(slabSize);
+                slabPosition = 0;
+                writable = new Table(writable.index, writable.mask, slabs);
+                if (publish) {
+                    table = writable;
+                }
+            }
+            ByteBuffer slab = slabs[slabs.length - 1];
+            int offset = slabPosition;
+            slab.putInt(offset, value.length);
+            slab.put(offset + Integer.BYTES, value);
+            slabPosition += Integer.BYTES + value.length;
+            return ref(slabs.length - 1, offset);
+        }
+
+        private void compactIfWasteful() {
+            if (deadBytes >= slabSize && deadBytes > liveBytes) {
+                rebuild(Math.max(initialSlots, live * 2));
+            }
+        }
+
+        /**
+         * Rewrites live entries into a fresh index and fresh slabs, dropping
+         * tombstones and dead values, then publishes them in one write
+         */
+        private void rebuild(int minSlots) {
+            int slots = Integer.highestOneBit(Math.max(16, minSlots) - 1) << 1;
+            if (slots > MAX_SLOTS) {
+                throw new IllegalStateException("Off-heap segment is full");
+            }
+
+            Table old = writable;
+            writable = Table.allocate(slots);
+            slabPosition = 0;
+            used = 0;
+            liveBytes = 0;
+            deadBytes = 0;
+            for (int position = 0; position < old.index.capacity(); position += SLOT_BYTES) {
+                long key = (long) LONGS.get(old.index, position);
+                if (key == EMPTY || key == TOMBSTONE) {
+                    continue;
+                }
+                long ref = (long) LONGS.get(old.index, position + 8);
+                byte[] value = Table.read(old.slabs[(int) (ref >>> 32)], (int) ref);
+                long newRef = append(value, false);
+                Table fresh = writable;
+                int slot = (int) mix(key) & fresh.mask;
+                while ((long) LONGS.get(fresh.index, slot * SLOT_BYTES) != EMPTY) {
+                    slot = (slot + 1) & fresh.mask;
+                }
+                LONGS.set(fresh.index, slot * SLOT_BYTES + 8, newRef);
+                LONGS.setRelease(fresh.index, slot * SLOT_BYTES, key);
+                used++;
+                liveBytes += Integer.BYTES + value.length;
+            }
+            table = writable;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.pawan.urlshortner.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, later callers wait for its result up to a timeout. Nothing is kept
+ * once the load finishes, so failures reach every waiter and are not cached.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    /**
+     * Thrown to a waiter whose leader did not finish in time. Stackless: it is
+     * an expected outcome under load.
+     */
+    public static class WaitTimeoutException extends RuntimeException {
+        public WaitTimeoutException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    public V load(K key, Supplier<V> loader, long waitTimeoutMs) {
+        CompletableFuture<V> leader = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, leader);
+        if (existing == null) {
+            try {
+                V value = loader.get();
+                leader.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                leader.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, leader);
+            }
+        }
+
+        coalesced.increment();
+        try {
+            return existing.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            throw new WaitTimeoutException("Timed out waiting for in-flight load of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WaitTimeoutException("Interrupted waiting for in-flight load of " + key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Callers that waited on another caller's load instead of loading themselves
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long timedOutCount() {
+        return timedOut.sum();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
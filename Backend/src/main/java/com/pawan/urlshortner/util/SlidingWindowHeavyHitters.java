@@ -0,0 +1,155 @@
+package com.pawan.urlshortner.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Approximate top-K most frequent keys over a sliding window, in fixed memory.
+ *
+ * Counts go into a Count-Min sketch split into {@code windows} sub-window
+ * slices; {@link #rotate()} drops the oldest slice, so estimates cover the
+ * last {@code windows} rotations. A Space-Saving style candidate list of at
+ * most {@code capacity} keys tracks the heaviest ones: a key is admitted when
+ * its estimate beats the weakest candidate, which it then replaces.
+ *
+ * Recording is lock-free except when a key is admitted to the candidate list.
+ * Estimates never undercount within the window and overcount by at most
+ * about {@code e / width} of the window's total.
+ */
+public class SlidingWindowHeavyHitters {
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final int capacity;
+    private final AtomicIntegerArray[] slices;
+    private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+
+    private volatile int currentSlice;
+    private volatile long admissionThreshold;
+
+    public record HeavyHitter(String key, long count) {
+    }
+
+    /**
+     * @param width counters per sketch row, rounded up to a power of two
+     */
+    public SlidingWindowHeavyHitters(int depth, int width, int windows, int capacity) {
+        if (depth < 1 || width < 2 || windows < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid heavy hitter dimensions");
+        }
+        this.depth = depth;
+        this.width = Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.capacity = capacity;
+        this.slices = new AtomicIntegerArray[windows];
+        for (int i = 0; i < windows; i++) {
+            slices[i] = new AtomicIntegerArray(depth * this.width);
+        }
+    }
+
+    public void record(String key) {
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 ^ 0x9E3779B9) | 1;
+        AtomicIntegerArray slice = slices[currentSlice];
+        for (int row = 0; row < depth; row++) {
+            slice.incrementAndGet(row * width + ((h1 + row * h2) & mask));
+        }
+
+        if (candidates.containsKey(key)) {
+            return;
+        }
+        if (candidates.size() < capacity || estimate(h1, h2) > admissionThreshold) {
+            admit(key);
+        }
+    }
+
+    public long estimate(String key) {
+        int h1 = spread(key.hashCode());
+        return estimate(h1, spread(h1 ^ 0x9E3779B9) | 1);
+    }
+
+    /**
+     * Starts a new sub-window, forgetting counts from the oldest one
+     */
+    public synchronized void rotate() {
+        int next = (currentSlice + 1) % slices.length;
+        AtomicIntegerArray slice = slices[next];
+        for (int i = 0; i < slice.length(); i++) {
+            slice.set(i, 0);
+        }
+        currentSlice = next;
+
+        candidates.keySet().removeIf(key -> estimate(key) == 0);
+        admissionThreshold = candidates.size() < capacity ? 0 : weakest().count();
+    }
+
+    /**
+     * Candidates with at least {@code minCount} hits in the window, heaviest first
+     */
+    public List<HeavyHitter> top(long minCount) {
+        List<HeavyHitter> top = new ArrayList<>();
+        for (String key : candidates.keySet()) {
+            long count = estimate(key);
+            if (count >= minCount) {
+                top.add(new HeavyHitter(key, count));
+            }
+        }
+        top.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return top;
+    }
+
+    private synchronized void admit(String key) {
+        if (candidates.containsKey(key)) {
+            return;
+        }
+        if (candidates.size() >= capacity) {
+            HeavyHitter weakest = weakest();
+            if (estimate(key) <= weakest.count()) {
+                admissionThreshold = weakest.count();
+                return;
+            }
+            candidates.remove(weakest.key());
+        }
+        candidates.put(key, Boolean.TRUE);
+        if (candidates.size() >= capacity) {
+            admissionThreshold = weakest().count();
+        }
+    }
+
+    private HeavyHitter weakest() {
+        HeavyHitter weakest = null;
+        for (String key : candidates.keySet()) {
+            long count = estimate(key);
+            if (weakest == null || count < weakest.count()) {
+                weakest = new HeavyHitter(key, count);
+            }
+        }
+        return weakest != null ? weakest : new HeavyHitter(null, 0);
+    }
+
+    private long estimate(int h1, int h2) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + ((h1 + row * h2) & mask);
+            long sum = 0;
+            for (AtomicIntegerArray slice : slices) {
+                sum += slice.get(index);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+}
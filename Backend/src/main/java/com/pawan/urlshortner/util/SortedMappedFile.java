@@ -0,0 +1,212 @@
+package com.pawan.urlshortner.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only file of byte records keyed by positive longs, opened by memory
+ * mapping so a reader is usable as soon as the header is read. Layout:
+ *
+ * <pre>
+ * header   magic, version, createdAtMillis, count, indexOffset
+ * records  [int length][bytes], never crossing a mapping window
+ * index    count x [long key][long recordOffset], sorted by key
+ * </pre>
+ *
+ * Lookups binary search the index. Files larger than 2GB are mapped as
+ * several 1GB windows; index entries are 16-byte aligned so they never
+ * cross one either. Files are written to a temporary name and moved into
+ * place, so readers never see a partial file.
+ */
+public class SortedMappedFile {
+
+    private static final int MAGIC = 0x534d4631;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    private static final int WINDOW_SHIFT = 30;
+    private static final long WINDOW_SIZE = 1L << WINDOW_SHIFT;
+
+    private final MappedByteBuffer[] windows;
+    private final long createdAtMillis;
+    private final long count;
+    private final long indexOffset;
+
+    private SortedMappedFile(MappedByteBuffer[] windows) {
+        this.windows = windows;
+        ByteBuffer header = windows[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a sorted mapped file");
+        }
+        this.createdAtMillis = header.getLong(8);
+        this.count = header.getLong(16);
+        this.indexOffset = header.getLong(24);
+    }
+
+    public static SortedMappedFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IllegalArgumentException("Not a sorted mapped file");
+            }
+            MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i << WINDOW_SHIFT;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+            }
+            return new SortedMappedFile(windows);
+        }
+    }
+
+    /**
+     * Returns a copy of the record stored for the key, or null
+     */
+    public byte[] get(long key) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long entry = indexOffset + mid * INDEX_ENTRY_BYTES;
+            long midKey = getLong(entry);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return read(getLong(entry + Long.BYTES));
+            }
+        }
+        return null;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    private long getLong(long position) {
+        return windows[(int) (position >>> WINDOW_SHIFT)].getLong((int) (position & (WINDOW_SIZE - 1)));
+    }
+
+    private byte[] read(long position) {
+        ByteBuffer window = windows[(int) (position >>> WINDOW_SHIFT)];
+        int offset = (int) (position & (WINDOW_SIZE - 1));
+        byte[] record = new byte[window.getInt(offset)];
+        window.get(offset + Integer.BYTES, record);
+        return record;
+    }
+
+    /**
+     * Streams records in increasing key order into a new file. Nothing is
+     * visible at the target path until {@link #commit()}; closing without
+     * committing discards the partial output.
+     */
+    public static class Writer implements Closeable {
+
+        private final Path target;
+        private final Path recordsFile;
+        private final Path indexFile;
+        private final long createdAtMillis;
+        private final DataOutputStream records;
+        private final DataOutputStream index;
+        private long position = HEADER_BYTES;
+        private long count;
+        private long lastKey = Long.MIN_VALUE;
+        private boolean committed;
+
+        public Writer(Path target, long createdAtMillis) throws IOException {
+            this.target = target;
+            this.createdAtMillis = createdAtMillis;
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.recordsFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            this.indexFile = Files.createTempFile(directory, target.getFileName().toString(), ".idx.tmp");
+            this.records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsFile), 1 << 16));
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), 1 << 16));
+            records.write(new byte[HEADER_BYTES]);
+        }
+
+        public void append(long key, byte[] record) throws IOException {
+            if (key <= lastKey) {
+                throw new IllegalArgumentException("Keys must be strictly increasing");
+            }
+            long length = Integer.BYTES + (long) record.length;
+            if (length > WINDOW_SIZE) {
+                throw new IllegalArgumentException("Record larger than a mapping window");
+            }
+            long windowOffset = position & (WINDOW_SIZE - 1);
+            if (windowOffset + length > WINDOW_SIZE) {
+                pad(WINDOW_SIZE - windowOffset);
+            }
+
+            index.writeLong(key);
+            index.writeLong(position);
+            records.writeInt(record.length);
+            records.write(record);
+            position += length;
+            lastKey = key;
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Appends the index, writes the header and moves the file into place
+         */
+        public void commit() throws IOException {
+            index.close();
+            pad((INDEX_ENTRY_BYTES - (position & (INDEX_ENTRY_BYTES - 1))) & (INDEX_ENTRY_BYTES - 1));
+            long indexOffset = position;
+            Files.copy(indexFile, records);
+            records.close();
+
+            try (FileChannel channel = FileChannel.open(recordsFile, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(createdAtMillis)
+                        .putLong(count)
+                        .putLong(indexOffset)
+                        .flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            Files.move(recordsFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(indexFile);
+            committed = true;
+        }
+
+        private void pad(long bytes) throws IOException {
+            byte[] zeros = new byte[(int) Math.min(bytes, 8192)];
+            for (long left = bytes; left > 0; left -= zeros.length) {
+                records.write(zeros, 0, (int) Math.min(left, zeros.length));
+            }
+            position += bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            records.close();
+            index.close();
+            Files.deleteIfExists(recordsFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+}
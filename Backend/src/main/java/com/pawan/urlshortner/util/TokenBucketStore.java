@@ -0,0 +1,137 @@
+package com.pawan.urlshortner.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by client, held in a fixed number of independently
+ * locked stripes so concurrent checks rarely contend. Each bucket is stored as
+ * the single instant at which it would be full again (the GCRA form of a token
+ * bucket), so checking a known key allocates nothing. A bucket that has fully
+ * refilled carries no state, so inserts sweep a few of those from the idle end
+ * of the stripe; each stripe is also bounded and evicts its least recently
+ * used key when full.
+ */
+public class TokenBucketStore {
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketStore(long capacity, double refillPerSecond, int maxKeys, int stripeCount) {
+        this(capacity, refillPerSecond, maxKeys, stripeCount, System::nanoTime);
+    }
+
+    TokenBucketStore(long capacity, double refillPerSecond, int maxKeys, int stripeCount, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = capacity * intervalNanos;
+        this.nanoClock = nanoClock;
+
+        int count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        int perStripe = Math.max(1, maxKeys / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = count - 1;
+    }
+
+    /**
+     * Takes one token for the key. Returns the tokens left (zero or more) or,
+     * when the bucket is empty, a negative number whose magnitude is the time
+     * in nanos until the next token is earned.
+     */
+    public long tryConsume(String key) {
+        int h = key.hashCode();
+        Stripe stripe = stripes[(h ^ (h >>> 16)) & stripeMask];
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            return stripe.consume(key, now);
+        }
+    }
+
+    /**
+     * Nanos until a bucket with the given tokens left is full again
+     */
+    public long nanosUntilFull(long remaining) {
+        return (capacity - remaining) * intervalNanos;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+        long fullAt;
+
+        Bucket(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private static final int MAX_SWEEP = 4;
+
+        private final int maxKeys;
+
+        Stripe(int maxKeys) {
+            super(16, 0.75f, true);
+            this.maxKeys = maxKeys;
+        }
+
+        long consume(String key, long now) {
+            Bucket bucket = get(key);
+            long next = (bucket == null ? now : Math.max(bucket.fullAt, now)) + intervalNanos;
+            long debt = next - now;
+            if (debt > burstNanos) {
+                return -(debt - burstNanos);
+            }
+            if (bucket == null) {
+                put(key, new Bucket(next));
+                evict(now);
+            } else {
+                bucket.fullAt = next;
+            }
+            return (burstNanos - debt) / intervalNanos;
+        }
+
+        /**
+         * Drops a few refilled buckets from the idle end, then the least
+         * recently used one if the stripe is still over its bound
+         */
+        private void evict(long now) {
+            Iterator<Bucket> idle = values().iterator();
+            for (int i = 0; i < MAX_SWEEP && idle.hasNext(); i++) {
+                if (idle.next().fullAt > now) {
+                    break;
+                }
+                idle.remove();
+            }
+            if (size() > maxKeys) {
+                Iterator<Bucket> eldest = values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+}
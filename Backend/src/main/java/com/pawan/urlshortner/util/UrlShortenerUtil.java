@@ -8,6 +8,7 @@ public class UrlShortenerUtil {
     private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private static final int SHORT_CODE_LENGTH = 6;
     private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_PACKED_LENGTH = 9;
     private static final Pattern URL_PATTERN = Pattern.compile(
             "^(https?://)?" + // Protocol (optional)
                     "([\\w\\-\\.]+)" + // Domain
@@ -34,6 +35,32 @@ public class UrlShortenerUtil {
         return shortCode.toString();
     }
 
+    /**
+     * Packs a short code of up to 9 characters from [a-zA-Z0-9_-] into a
+     * positive long, 7 bits of ASCII a character, left-aligned, so packed codes
+     * sort in the same order as the strings. Returns -1 for codes that cannot
+     * be packed; packed codes are never 0.
+     */
+    public static long packShortCode(String shortCode) {
+        int length = shortCode.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < MAX_PACKED_LENGTH; i++) {
+            char c = i < length ? shortCode.charAt(i) : 0;
+            if (i < length && !isCodeChar(c)) {
+                return -1;
+            }
+            packed = packed << 7 | c;
+        }
+        return packed;
+    }
+
+    private static boolean isCodeChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+
     /**
      * Validates if the provided string is a valid URL
      */
@@ -0,0 +1,100 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.security.JwtTokenProvider;
+import com.pawan.urlshortner.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: the previous path
+ * (derive the key and parse the token twice), a single parse with the cached
+ * key and parser, and a hit in the verified-token digest cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    private JwtTokenProvider cachedProvider;
+    private JwtTokenProvider uncachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedProvider = newProvider(10_000);
+        uncachedProvider = newProvider(0);
+
+        UserPrincipal principal = UserPrincipal.fromClaims("65f0c0ffee0000000000beef", "bench", List.of("USER"));
+        token = cachedProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        cachedProvider.verify(token);
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        Jwts.parserBuilder().setSigningKey(legacySigningKey()).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(legacySigningKey()).build()
+                .parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return uncachedProvider.verify(token);
+    }
+
+    @Benchmark
+    public Claims digestCacheHit() {
+        return cachedProvider.verify(token);
+    }
+
+    private static JwtTokenProvider newProvider(int verifiedCacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(provider, "refreshTokenExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", verifiedCacheSize);
+        provider.init();
+        return provider;
+    }
+
+    /**
+     * Key derivation as it used to run on every call
+     */
+    private static SecretKey legacySigningKey() {
+        try {
+            return Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        } catch (IllegalArgumentException e) {
+            // Not Base64, fall through to padding the raw secret
+        }
+        byte[] keyBytes = SECRET.getBytes();
+        byte[] paddedKey = new byte[64];
+        System.arraycopy(keyBytes, 0, paddedKey, 0, Math.min(keyBytes.length, 64));
+        for (int i = keyBytes.length; i < 64; i++) {
+            paddedKey[i] = keyBytes[i % keyBytes.length];
+        }
+        return Keys.hmacShaKeyFor(paddedKey);
+    }
+}
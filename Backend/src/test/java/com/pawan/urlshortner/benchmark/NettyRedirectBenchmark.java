@@ -0,0 +1,94 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectEntry;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import com.pawan.urlshortner.edge.server.RedirectHttpHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-core throughput of the standalone redirect server's handler for a
+ * cached short code on a keep-alive connection: HTTP request decoding, cache
+ * lookup, response encoding and click capture. Socket I/O is left out by
+ * driving the pipeline through an EmbeddedChannel. Run with
+ * {@code -prof gc} to see allocation per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NettyRedirectBenchmark {
+
+    private static final String REQUEST = "GET /s/abc123 HTTP/1.1\r\n"
+            + "Host: sho.rt\r\n"
+            + "User-Agent: Mozilla/5.0 (benchmark)\r\n"
+            + "Accept: */*\r\n"
+            + "\r\n";
+
+    private EmbeddedChannel channel;
+    private ByteBuf request;
+
+    @Setup
+    public void setUp() {
+        RedirectCache redirectCache = new RedirectCache();
+        ReflectionTestUtils.setField(redirectCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(redirectCache, "maxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "ttlMs", TimeUnit.HOURS.toMillis(1));
+        redirectCache.init();
+        redirectCache.put(RedirectEntry.create("65f0c0ffee0000000000beef", "abc123",
+                "https://example.com/landing?utm_source=benchmark", Long.MAX_VALUE, null));
+
+        RedirectOutcomeRecorder outcomeRecorder = new RedirectOutcomeRecorder();
+        ReflectionTestUtils.setField(outcomeRecorder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outcomeRecorder, "missLogIntervalMs", 10_000L);
+        outcomeRecorder.init();
+
+        channel = new EmbeddedChannel(new HttpRequestDecoder(),
+                new RedirectHttpHandler(redirectCache, outcomeRecorder, Runnable::run, click -> { }, "/s/"));
+        request = Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer().writeBytes(REQUEST.getBytes(StandardCharsets.US_ASCII)));
+
+        String response = redirect().toString(StandardCharsets.US_ASCII);
+        if (!response.startsWith("HTTP/1.1 302 Found\r\nlocation: https://example.com/landing")) {
+            throw new IllegalStateException("Unexpected response: " + response);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public ByteBuf cachedRedirect() {
+        ByteBuf response = redirect();
+        response.release();
+        return response;
+    }
+
+    private ByteBuf redirect() {
+        channel.writeInbound(request.duplicate());
+        return channel.readOutbound();
+    }
+}
@@ -0,0 +1,56 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.util.OffHeapHashStore;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency in the off-heap short-code store at different sizes. Setup
+ * prints the direct memory used per entry for URLs of typical length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g", "-XX:MaxDirectMemorySize=4g"})
+public class OffHeapStoreBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int entries;
+
+    private long[] keys;
+    private OffHeapHashStore store;
+
+    @Setup
+    public void setUp() {
+        keys = new long[entries];
+        store = new OffHeapHashStore(64, 1024, 4 << 20);
+        for (int i = 0; i < entries; i++) {
+            keys[i] = UrlShortenerUtil.packShortCode(UrlShortenerUtil.generateShortCode());
+            String url = "https://example.com/articles/" + i + "?utm_source=newsletter";
+            store.put(keys[i], url.getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.printf("%n%d entries, %.1f bytes of direct memory per entry%n",
+                store.size(), (double) store.memoryBytes() / store.size());
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return store.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
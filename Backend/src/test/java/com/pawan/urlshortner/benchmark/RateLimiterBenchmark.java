@@ -0,0 +1,57 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.util.TokenBucketStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate-limit check throughput across up to 1M distinct client keys from
+ * several threads. Every key is seeded first, so the measured path is the
+ * steady state of checking a known client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RateLimiterBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int keyCount;
+
+    private String[] keys;
+    private TokenBucketStore store;
+
+    @Setup
+    public void setUp() {
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "10." + (i >>> 16 & 0xff) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+        }
+        // A slow refill keeps every seeded bucket resident for the whole run
+        store = new TokenBucketStore(1_000_000, 0.001, keyCount * 2, 64);
+        for (String key : keys) {
+            store.tryConsume(key);
+        }
+    }
+
+    @Benchmark
+    public long tryConsume() {
+        return store.tryConsume(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
@@ -0,0 +1,175 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.config.CorsConfig;
+import com.pawan.urlshortner.config.RedirectFastLaneFilter;
+import com.pawan.urlshortner.security.JwtAuthenticationEntryPoint;
+import com.pawan.urlshortner.security.JwtAuthenticationFilter;
+import com.pawan.urlshortner.security.JwtTokenProvider;
+import com.pawan.urlshortner.security.PrincipalCache;
+import com.pawan.urlshortner.security.SecurityConfig;
+import com.pawan.urlshortner.security.UserPrincipal;
+import com.pawan.urlshortner.service.RedirectService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Per-request overhead of a short-link redirect through the regular path
+ * (JwtAuthenticationFilter, the Spring Security chain built by SecurityConfig,
+ * CORS and MVC dispatch) against the fast-lane filter. The redirect itself is
+ * stubbed so only the framework overhead is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectFastLaneBenchmark {
+
+    private static final String TARGET_URL = "https://example.com/landing";
+
+    @Param({"none", "bearer"})
+    public String authorization;
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc regularPath;
+    private MockMvc fastLane;
+    private String bearerToken;
+
+    @EnableWebMvc
+    static class WebMvcConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // PrincipalCache polls token revocations; an empty collection keeps claims trusted
+        @Bean
+        MongoTemplate mongoTemplate() {
+            return Mockito.mock(MongoTemplate.class, Mockito.RETURNS_DEEP_STUBS);
+        }
+
+        @Bean
+        ThreadFactory workerThreadFactory() {
+            return Executors.defaultThreadFactory();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        MockServletContext servletContext = new MockServletContext();
+        servletContext.setContextPath("/api");
+
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(servletContext);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "app.jwt.secret", "mySecretKey123456789012345678901234567890",
+                "app.jwt.expiration", "3600000",
+                "app.jwt.refresh-expiration", "3600000")));
+        context.register(WebMvcConfig.class, CorsConfig.class, SecurityConfig.class,
+                JwtAuthenticationEntryPoint.class, JwtTokenProvider.class, PrincipalCache.class,
+                Class.forName("com.pawan.urlshortner.controller.UrlRedirectController"));
+        // Registered as a ready-made singleton so its UrlService/ClickService fields are not autowired
+        context.addBeanFactoryPostProcessor(beanFactory ->
+                beanFactory.registerSingleton("redirectService", new StubRedirectService()));
+        context.refresh();
+
+        // Spring Boot registers the JWT filter bean as a servlet filter as well as inside the security chain
+        Filter jwtFilter = context.getBean(JwtAuthenticationFilter.class);
+        Filter securityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        RedirectFastLaneFilter fastLaneFilter = new RedirectFastLaneFilter(context.getBean(RedirectService.class));
+
+        regularPath = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(jwtFilter, securityFilterChain)
+                .build();
+        fastLane = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(fastLaneFilter, jwtFilter, securityFilterChain)
+                .build();
+
+        UserPrincipal principal = UserPrincipal.fromClaims("65f0c0ffee0000000000beef", "bench", List.of("USER"));
+        bearerToken = context.getBean(JwtTokenProvider.class).generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        assertRedirect(regularPath.perform(request()).andReturn());
+        assertRedirect(fastLane.perform(request()).andReturn());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult regularPath() throws Exception {
+        return regularPath.perform(request()).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult fastLane() throws Exception {
+        return fastLane.perform(request()).andReturn();
+    }
+
+    private MockHttpServletRequestBuilder request() {
+        MockHttpServletRequestBuilder builder = get("/api/s/abc123")
+                .contextPath("/api")
+                .header("Origin", "http://localhost:3000")
+                .header("User-Agent", "Mozilla/5.0 (benchmark)");
+        if ("bearer".equals(authorization)) {
+            builder.header("Authorization", "Bearer " + bearerToken);
+        }
+        return builder;
+    }
+
+    private static void assertRedirect(MvcResult result) {
+        if (!TARGET_URL.equals(result.getResponse().getRedirectedUrl())) {
+            throw new IllegalStateException("Expected a redirect to " + TARGET_URL
+                    + " but got status " + result.getResponse().getStatus());
+        }
+    }
+
+    static class StubRedirectService extends RedirectService {
+        @Override
+        public void redirect(String shortCode, HttpServletRequest request, HttpServletResponse response)
+                throws IOException {
+            response.sendRedirect(TARGET_URL);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pawan.urlshortner.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test for comparing redirect deployments: a fixed number of concurrent connections each send
+ * the next request as soon as the previous one completes, and throughput and
+ * latency percentiles are reported after a warm-up.
+ *
+ * Start the app once normally and once with {@code -Pjava21}, or start the
+ * servlet app and the reactive redirect edge side by side, then run against
+ * each; several comma-separated targets are measured one after the other:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.pawan.urlshortner.benchmark.RedirectLoadTest \
+ *     -Dbenchmark="http://localhost:8080/api/s/abc123,http://localhost:8081/api/s/abc123 10000 60 10"
+ * </pre>
+ * Arguments are the target URLs, concurrent connections, measured seconds and
+ * warm-up seconds. 10k connections need a matching open-file limit
+ * ({@code ulimit -n}) on both the client and the server.
+ */
+public class RedirectLoadTest {
+
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final Recorder recorder = new Recorder(TimeUnit.SECONDS.toNanos(60), 3);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong redirects = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile long deadline;
+
+    RedirectLoadTest(URI target, ExecutorService executor) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        this.request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(30))
+                .header("User-Agent", "Mozilla/5.0 (load-test)")
+                .GET()
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] targets = (args.length > 0 ? args[0] : "http://localhost:8080/api/s/abc123").split(",");
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        for (String target : targets) {
+            // A fresh client per target so no connections are carried over between runs
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+            try {
+                new RedirectLoadTest(URI.create(target.trim()), executor)
+                        .run(connections, durationSeconds, warmupSeconds);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    void run(int connections, int durationSeconds, int warmupSeconds) throws InterruptedException {
+        System.out.printf("Target %s, %d connections, %ds warm-up, %ds measured%n",
+                request.uri(), connections, warmupSeconds, durationSeconds);
+
+        long start = System.nanoTime();
+        deadline = start + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        CountDownLatch finished = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            send(finished);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        recorder.reset();
+        completed.set(0);
+        redirects.set(0);
+        errors.set(0);
+        long measureStart = System.nanoTime();
+
+        finished.await();
+        double elapsedSeconds = (System.nanoTime() - measureStart) / 1e9;
+        report(recorder.getIntervalHistogram(), elapsedSeconds);
+    }
+
+    private void send(CountDownLatch finished) {
+        if (System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    long latency = System.nanoTime() - sentAt;
+                    recorder.recordValue(Math.min(latency, TimeUnit.SECONDS.toNanos(60)));
+                    completed.incrementAndGet();
+                    if (failure != null) {
+                        errors.incrementAndGet();
+                    } else if (response.statusCode() / 100 == 3) {
+                        redirects.incrementAndGet();
+                    }
+                    send(finished);
+                });
+    }
+
+    private void report(Histogram histogram, double elapsedSeconds) {
+        long total = completed.get();
+        System.out.printf("Requests: %d (%d redirects, %d errors, %d other statuses)%n",
+                total, redirects.get(), errors.get(), total - redirects.get() - errors.get());
+        System.out.printf("Throughput: %.0f req/s%n", total / elapsedSeconds);
+        System.out.printf("Latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,98 @@
+package com.pawan.urlshortner.benchmark;
+
+import com.pawan.urlshortner.model.RedirectPolicy;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.repository.EmbeddedRedirectStore;
+import com.pawan.urlshortner.repository.InMemoryRedirectStore;
+import com.pawan.urlshortner.repository.RedirectStore;
+import com.pawan.urlshortner.util.LsmStore;
+import com.pawan.urlshortner.util.UrlShortenerUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Short-code lookups against the local RedirectStore backends, with no
+ * network in the way. The embedded store is flushed after loading, so
+ * lookups go through its table files rather than the memtable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RedirectStoreBenchmark {
+
+    @Param({"memory", "embedded"})
+    private String backend;
+
+    @Param({"1000000"})
+    private int entries;
+
+    private String[] codes;
+    private RedirectStore store;
+    private LsmStore lsmStore;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (backend.equals("embedded")) {
+            directory = Files.createTempDirectory("redirect-store-bench");
+            lsmStore = new LsmStore(directory, 8 << 20, 8, false);
+            store = new EmbeddedRedirectStore(lsmStore);
+        } else {
+            store = new InMemoryRedirectStore();
+        }
+
+        codes = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            codes[i] = UrlShortenerUtil.generateShortCode();
+            UrlMapping urlMapping = new UrlMapping();
+            urlMapping.setShortCode(codes[i]);
+            urlMapping.setOriginalUrl("https://example.com/articles/" + i + "?utm_source=newsletter");
+            urlMapping.setRedirectPolicy(RedirectPolicy.TEMPORARY);
+            store.save(urlMapping);
+        }
+        if (lsmStore != null) {
+            lsmStore.flush();
+            System.out.printf("%n%d table files%n", lsmStore.tableCount());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (lsmStore == null) {
+            return;
+        }
+        lsmStore.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<UrlMapping> findByShortCode() {
+        return store.findByShortCode(codes[ThreadLocalRandom.current().nextInt(codes.length)]);
+    }
+}
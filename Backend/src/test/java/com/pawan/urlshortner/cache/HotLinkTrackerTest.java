@@ -0,0 +1,98 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.util.SlidingWindowHeavyHitters.HeavyHitter;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotLinkTrackerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final RedirectCache redirectCache = mock(RedirectCache.class);
+    private HotLinkTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new HotLinkTracker();
+        ReflectionTestUtils.setField(tracker, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(tracker, "redirectCache", redirectCache);
+        ReflectionTestUtils.setField(tracker, "workerThreadFactory", Executors.defaultThreadFactory());
+        ReflectionTestUtils.setField(tracker, "capacity", 32);
+        // Long enough that the scheduled rotation never runs; the test rotates by hand
+        ReflectionTestUtils.setField(tracker, "windowMs", 3_600_000L);
+        ReflectionTestUtils.setField(tracker, "subWindows", 6);
+        ReflectionTestUtils.setField(tracker, "minHits", 100L);
+        ReflectionTestUtils.setField(tracker, "sketchDepth", 4);
+        ReflectionTestUtils.setField(tracker, "sketchWidth", 4096);
+        tracker.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.stop();
+    }
+
+    @Test
+    void localCandidatesArePublishedBelowMinHits() {
+        record("spread", 40);
+        record("quiet", 1);
+
+        rotate();
+
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(HotLinkTracker.HOT_LINKS_COLLECTION));
+        List<?> links = update.getValue().getUpdateObject().get("$set", Document.class).get("links", List.class);
+        assertEquals(List.of(new Document("shortCode", "spread").append("hits", 40L),
+                new Document("shortCode", "quiet").append("hits", 1L)), links);
+    }
+
+    @Test
+    void linksSpreadOverNodesArePinnedOnceTheirTotalReachesMinHits() {
+        record("spread", 40);
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(HotLinkTracker.HOT_LINKS_COLLECTION)))
+                .thenReturn(List.of(
+                        report(link("spread", 40), link("cold", 30)),
+                        report(link("spread", 35), link("cold", 30)),
+                        report(link("spread", 30), link("local", 99))));
+
+        rotate();
+
+        // No node saw min-hits of it, but the cluster did
+        assertEquals(List.of(new HeavyHitter("spread", 105)), tracker.getClusterHotLinks());
+        verify(redirectCache).pin(List.of("spread"));
+    }
+
+    private void record(String shortCode, int hits) {
+        for (int i = 0; i < hits; i++) {
+            tracker.record(shortCode);
+        }
+    }
+
+    private void rotate() {
+        ReflectionTestUtils.invokeMethod(tracker, "rotate");
+    }
+
+    private static Document report(Document... links) {
+        return new Document("links", List.of(links));
+    }
+
+    private static Document link(String shortCode, long hits) {
+        return new Document("shortCode", shortCode).append("hits", hits);
+    }
+}
@@ -0,0 +1,169 @@
+package com.pawan.urlshortner.cache;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs two buses against the Mongo server at MONGODB_TEST_URI, following the
+ * feed with a tailable cursor in a scratch database that is dropped after
+ * each test; skipped when the variable is not set.
+ */
+class InvalidationBusTest {
+
+    private static final String DATABASE = "urlshortener_invalidation_test";
+    private static final long WAIT_MS = 5_000;
+
+    private final List<InvalidationBus> buses = new ArrayList<>();
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        String uri = System.getenv("MONGODB_TEST_URI");
+        assumeTrue(uri != null && !uri.isBlank(), "MONGODB_TEST_URI is not set");
+
+        client = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        mongoTemplate.getDb().drop();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (InvalidationBus bus : buses) {
+            stop(bus);
+        }
+        if (client != null) {
+            mongoTemplate.getDb().drop();
+            client.close();
+        }
+    }
+
+    @Test
+    void invalidationsReachTheOtherNode() throws InterruptedException {
+        RedirectCache publisherCache = mock(RedirectCache.class);
+        RedirectCache followerCache = mock(RedirectCache.class);
+        InvalidationBus publisher = newBus(publisherCache, new SimpleMeterRegistry(), 16_777_216);
+        newBus(followerCache, new SimpleMeterRegistry(), 16_777_216);
+
+        publisher.publish(List.of("abc123", "def456"));
+
+        verify(followerCache, timeout(WAIT_MS)).invalidate("abc123");
+        verify(followerCache, timeout(WAIT_MS)).invalidate("def456");
+        // Evicted locally on publish, and its own event is skipped when it comes back
+        verify(publisherCache, times(1)).invalidate("abc123");
+        verify(followerCache, never()).invalidateAll();
+    }
+
+    @Test
+    void followerResumesWhereItLeftOffAfterReconnecting() throws InterruptedException {
+        RedirectCache followerCache = mock(RedirectCache.class);
+        InvalidationBus publisher = newBus(mock(RedirectCache.class), new SimpleMeterRegistry(), 16_777_216);
+        InvalidationBus follower = newBus(followerCache, new SimpleMeterRegistry(), 16_777_216);
+        publisher.publish("before");
+        verify(followerCache, timeout(WAIT_MS)).invalidate("before");
+
+        stop(follower);
+        publisher.publish("while-away");
+        follower.start();
+
+        verify(followerCache, timeout(WAIT_MS)).invalidate("while-away");
+        verify(followerCache, never()).invalidateAll();
+    }
+
+    @Test
+    void followerDropsItsCacheWhenTheFeedWrappedPastIt() throws InterruptedException {
+        RedirectCache followerCache = mock(RedirectCache.class);
+        SimpleMeterRegistry followerMetrics = new SimpleMeterRegistry();
+        InvalidationBus publisher = newBus(mock(RedirectCache.class), new SimpleMeterRegistry(), 4096);
+        InvalidationBus follower = newBus(followerCache, followerMetrics, 4096);
+        publisher.publish("before");
+        verify(followerCache, timeout(WAIT_MS)).invalidate("before");
+
+        stop(follower);
+        // Wrapping is detected from ObjectId timestamps, which have second precision
+        Thread.sleep(1_100);
+        for (int i = 0; i < 200; i++) {
+            publisher.publish("overwritten-" + i);
+        }
+        follower.start();
+
+        verify(followerCache, timeout(WAIT_MS)).invalidateAll();
+        assertEquals(1, followerMetrics.counter("redirect.invalidation.resyncs").count());
+    }
+
+    @Test
+    void lagIsMeasuredFromThePublishTime() throws InterruptedException {
+        RedirectCache followerCache = mock(RedirectCache.class);
+        SimpleMeterRegistry followerMetrics = new SimpleMeterRegistry();
+        newBus(followerCache, followerMetrics, 16_777_216);
+
+        mongoTemplate.getCollection(InvalidationBus.COLLECTION).insertOne(new Document("codes", List.of("late"))
+                .append("origin", "another-node")
+                .append("at", new Date(System.currentTimeMillis() - 2_000)));
+
+        verify(followerCache, timeout(WAIT_MS)).invalidate("late");
+        Timer lag = followerMetrics.get("redirect.invalidation.lag").timer();
+        assertEquals(1, lag.count());
+        assertTrue(lag.max(TimeUnit.MILLISECONDS) >= 2_000);
+        assertEquals(1, followerMetrics.counter("redirect.invalidation.received").count());
+    }
+
+    private InvalidationBus newBus(RedirectCache redirectCache, MeterRegistry meterRegistry, long cappedSizeBytes)
+            throws InterruptedException {
+        InvalidationBus bus = new InvalidationBus();
+        ReflectionTestUtils.setField(bus, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(bus, "redirectCache", redirectCache);
+        ReflectionTestUtils.setField(bus, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bus, "workerThreadFactory", Executors.defaultThreadFactory());
+        ReflectionTestUtils.setField(bus, "enabled", true);
+        // Change streams need a replica set; the tailable cursor works on any server
+        ReflectionTestUtils.setField(bus, "mode", "tailable");
+        ReflectionTestUtils.setField(bus, "cappedSizeBytes", cappedSizeBytes);
+        ReflectionTestUtils.setField(bus, "resumeMarginMs", 5_000L);
+        ReflectionTestUtils.setField(bus, "retryDelayMs", 100L);
+        bus.start();
+        buses.add(bus);
+
+        // An insert that beats the worker would create the collection uncapped
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!mongoTemplate.collectionExists(InvalidationBus.COLLECTION) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return bus;
+    }
+
+    /**
+     * Stops the bus and waits for its worker, so a restart never runs two
+     */
+    private static void stop(InvalidationBus bus) throws InterruptedException {
+        bus.stop();
+        Thread worker = (Thread) ReflectionTestUtils.getField(bus, "worker");
+        if (worker != null) {
+            worker.join(WAIT_MS);
+        }
+    }
+}
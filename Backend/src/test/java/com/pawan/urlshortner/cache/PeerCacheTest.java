@@ -0,0 +1,163 @@
+package com.pawan.urlshortner.cache;
+
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.repository.InMemoryRedirectStore;
+import com.pawan.urlshortner.util.ConsistentHashRing;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeerCacheTest {
+
+    private static final String SELF = "http://self.invalid";
+    private static final String SECRET = "peer-secret";
+    // Generous, so only the slow owner below times out even on a loaded machine
+    private static final long TIMEOUT_MS = 500;
+
+    private final InMemoryRedirectStore store = new InMemoryRedirectStore();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger ownerRequests = new AtomicInteger();
+    private volatile OwnerBehaviour ownerBehaviour;
+    private HttpServer owner;
+    private RedirectCache redirectCache;
+    private String shortCode;
+
+    private interface OwnerBehaviour {
+        void respond(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        owner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        owner.setExecutor(Executors.newCachedThreadPool());
+        owner.createContext(PeerCache.PATH, exchange -> {
+            ownerRequests.incrementAndGet();
+            try {
+                if (!SECRET.equals(exchange.getRequestHeaders().getFirst(PeerCache.SECRET_HEADER))) {
+                    exchange.sendResponseHeaders(403, -1);
+                } else {
+                    ownerBehaviour.respond(exchange);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        owner.start();
+        String ownerUrl = "http://127.0.0.1:" + owner.getAddress().getPort();
+
+        redirectCache = new RedirectCache();
+        ReflectionTestUtils.setField(redirectCache, "redirectStore", store);
+        ReflectionTestUtils.setField(redirectCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(redirectCache, "maxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "ttlMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(redirectCache, "staleMaxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "staleTtlMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(redirectCache, "loadWaitTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "breakerFailureThreshold", 5);
+        ReflectionTestUtils.setField(redirectCache, "breakerOpenMs", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "breakerSlowCallMs", 1_000L);
+        redirectCache.init();
+
+        // Wired by hand rather than through start(), whose heartbeat would rebuild the ring from Mongo
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(SELF, ownerUrl), 128);
+        PeerCache peerCache = new PeerCache();
+        ReflectionTestUtils.setField(peerCache, "advertisedUrl", SELF);
+        ReflectionTestUtils.setField(peerCache, "secret", SECRET);
+        ReflectionTestUtils.setField(peerCache, "timeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(peerCache, "ring", ring);
+        ReflectionTestUtils.setField(peerCache, "httpClient", HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(TIMEOUT_MS))
+                .build());
+        ReflectionTestUtils.setField(peerCache, "ownerHits", meterRegistry.counter("hits"));
+        ReflectionTestUtils.setField(peerCache, "ownerMisses", meterRegistry.counter("misses"));
+        ReflectionTestUtils.setField(peerCache, "ownerErrors", meterRegistry.counter("errors"));
+        redirectCache.attachPeers(peerCache);
+
+        for (int i = 0; shortCode == null; i++) {
+            if (ring.ownerOf("code" + i).equals(ownerUrl)) {
+                shortCode = "code" + i;
+            }
+        }
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(shortCode);
+        urlMapping.setOriginalUrl("https://example.com/from-store");
+        store.save(urlMapping);
+    }
+
+    @AfterEach
+    void tearDown() {
+        owner.stop(0);
+    }
+
+    @Test
+    void ownerAnswersAreUsed() {
+        ownerBehaviour = exchange -> respond(exchange, new byte[]{(byte) RedirectResult.Outcome.NOT_FOUND.ordinal()});
+
+        assertEquals(RedirectResult.Outcome.NOT_FOUND, redirectCache.resolve(shortCode).outcome());
+        assertEquals(1, ownerRequests.get());
+    }
+
+    @Test
+    void slowOwnerFallsBackToTheStore() {
+        ownerBehaviour = exchange -> {
+            Thread.sleep(TIMEOUT_MS * 10);
+            respond(exchange, new byte[]{(byte) RedirectResult.Outcome.NOT_FOUND.ordinal()});
+        };
+
+        long startedAt = System.nanoTime();
+        RedirectResult result = redirectCache.resolve(shortCode);
+
+        assertEquals("https://example.com/from-store", result.entry().originalUrl());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < TIMEOUT_MS * 5);
+        assertEquals(1.0, meterRegistry.counter("errors").count());
+    }
+
+    @Test
+    void failingOwnerFallsBackToTheStore() {
+        ownerBehaviour = exchange -> exchange.sendResponseHeaders(503, -1);
+
+        RedirectResult result = redirectCache.resolve(shortCode);
+
+        assertEquals("https://example.com/from-store", result.entry().originalUrl());
+        assertEquals(1, ownerRequests.get());
+        assertEquals(1.0, meterRegistry.counter("errors").count());
+    }
+
+    @Test
+    void unreachableOwnerFallsBackToTheStore() {
+        owner.stop(0);
+
+        RedirectResult result = redirectCache.resolve(shortCode);
+
+        assertEquals("https://example.com/from-store", result.entry().originalUrl());
+        assertEquals(1.0, meterRegistry.counter("errors").count());
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.pawan.urlshortner.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.pawan.urlshortner.model.RedirectPolicy;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.repository.InMemoryRedirectStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedirectCacheTest {
+
+    private Runnable duringLookup = () -> { };
+    private final InMemoryRedirectStore store = new InMemoryRedirectStore() {
+        @Override
+        public Optional<UrlMapping> findByShortCode(String shortCode) {
+            Optional<UrlMapping> found = super.findByShortCode(shortCode);
+            duringLookup.run();
+            return found;
+        }
+    };
+    private RedirectCache redirectCache;
+
+    @BeforeEach
+    void setUp() {
+        redirectCache = new RedirectCache();
+        ReflectionTestUtils.setField(redirectCache, "redirectStore", store);
+        ReflectionTestUtils.setField(redirectCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(redirectCache, "maxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "ttlMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(redirectCache, "staleMaxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "staleTtlMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(redirectCache, "loadWaitTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "breakerFailureThreshold", 5);
+        ReflectionTestUtils.setField(redirectCache, "breakerOpenMs", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "breakerSlowCallMs", 1_000L);
+        redirectCache.init();
+    }
+
+    @Test
+    void loadsAreCached() {
+        store.save(link("abc123", "https://example.com/a"));
+
+        assertTrue(redirectCache.resolve("abc123").isFound());
+        assertNotNull(redirectCache.getIfPresent("abc123", System.currentTimeMillis()));
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        // The link changes after the load has read it, and the change invalidates the code
+        duringLookup = () -> {
+            saved.setOriginalUrl("https://example.com/b");
+            store.save(saved);
+            redirectCache.invalidate("abc123");
+        };
+
+        assertTrue(redirectCache.resolve("abc123").isFound());
+        assertNull(redirectCache.getIfPresent("abc123", System.currentTimeMillis()));
+
+        duringLookup = () -> { };
+        RedirectResult reloaded = redirectCache.resolve("abc123");
+        assertEquals("https://example.com/b", reloaded.entry().originalUrl());
+    }
+
+    @Test
+    void loadRacingAnInvalidateAllIsNotCached() {
+        store.save(link("abc123", "https://example.com/a"));
+        duringLookup = redirectCache::invalidateAll;
+
+        assertTrue(redirectCache.resolve("abc123").isFound());
+        assertNull(redirectCache.getIfPresent("abc123", System.currentTimeMillis()));
+    }
+
+    @Test
+    void hotLinksArePinnedFromTheStore() {
+        store.save(link("abc123", "https://example.com/a"));
+        UrlMapping inactive = link("def456", "https://example.com/b");
+        inactive.setActive(false);
+        store.save(inactive);
+
+        redirectCache.pin(List.of("abc123", "def456", "missing"));
+
+        // Nothing was resolved, so only the pinned set can answer
+        assertEquals("https://example.com/a",
+                redirectCache.getIfPresent("abc123", System.currentTimeMillis()).originalUrl());
+        assertNull(redirectCache.getIfPresent("def456", System.currentTimeMillis()));
+    }
+
+    @Test
+    void pinRacingAnInvalidationIsNotPinned() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        redirectCache.pin(List.of("abc123"));
+        // Deactivated after the next rotation has read it, and the change invalidates the code
+        duringLookup = () -> {
+            saved.setActive(false);
+            store.save(saved);
+            redirectCache.invalidate("abc123");
+        };
+
+        redirectCache.pin(List.of("abc123"));
+
+        assertNull(redirectCache.getIfPresent("abc123", System.currentTimeMillis()));
+        duringLookup = () -> { };
+        assertEquals(RedirectResult.Outcome.INACTIVE, redirectCache.resolve("abc123").outcome());
+    }
+
+    @Test
+    void staleEntriesAreServedWithTheirMaxAgeAsOfNow() {
+        long expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        // As built a day ago, when a full day was left before the link expired
+        RedirectEntry dayOld = RedirectEntry.create("id-1", "abc123", "https://example.com/a",
+                expiresAt + TimeUnit.DAYS.toMillis(1), RedirectPolicy.PERMANENT);
+        staleTier().put("abc123", new RedirectEntry("id-1", "abc123", "https://example.com/a", expiresAt,
+                RedirectPolicy.PERMANENT, 301, dayOld.location(), dayOld.cacheControl(), dayOld.httpResponse()));
+        duringLookup = () -> {
+            throw new IllegalStateException("store unavailable");
+        };
+
+        RedirectEntry served = redirectCache.resolve("abc123").entry();
+
+        long maxAge = Long.parseLong(served.cacheControl().substring("public, max-age=".length()));
+        assertTrue(maxAge <= 60, served.cacheControl());
+        assertTrue(new String(served.httpResponse(), StandardCharsets.US_ASCII)
+                .contains("cache-control: " + served.cacheControl() + "\r\n"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, RedirectEntry> staleTier() {
+        return (Cache<String, RedirectEntry>) ReflectionTestUtils.getField(redirectCache, "stale");
+    }
+
+    private static UrlMapping link(String shortCode, String originalUrl) {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(shortCode);
+        urlMapping.setOriginalUrl(originalUrl);
+        return urlMapping;
+    }
+}
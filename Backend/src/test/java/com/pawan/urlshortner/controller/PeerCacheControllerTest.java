@@ -0,0 +1,72 @@
+package com.pawan.urlshortner.controller;
+
+import com.pawan.urlshortner.cache.PeerCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PeerCacheControllerTest {
+
+    private static final String SECRET = "peer-secret";
+
+    private PeerCache peerCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // The secret check is PeerCache's own; only the lookup behind it is stubbed
+        peerCache = Mockito.spy(new PeerCache());
+        ReflectionTestUtils.setField(peerCache, "secret", SECRET);
+
+        PeerCacheController controller = new PeerCacheController();
+        ReflectionTestUtils.setField(controller, "peerCache", peerCache);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void requestsWithoutTheSecretAreForbidden() throws Exception {
+        mockMvc.perform(get("/internal/peer-cache/abc123"))
+                .andExpect(status().isForbidden());
+
+        verify(peerCache, never()).answer(anyString());
+    }
+
+    @Test
+    void requestsWithAWrongSecretAreForbidden() throws Exception {
+        mockMvc.perform(get("/internal/peer-cache/abc123").header(PeerCache.SECRET_HEADER, "not-the-secret"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/internal/peer-cache/abc123").header(PeerCache.SECRET_HEADER, SECRET + "x"))
+                .andExpect(status().isForbidden());
+
+        verify(peerCache, never()).answer(anyString());
+    }
+
+    @Test
+    void peersWithTheSecretGetTheAnswer() throws Exception {
+        doReturn(new byte[]{1, 2, 3}).when(peerCache).answer("abc123");
+
+        mockMvc.perform(get("/internal/peer-cache/abc123").header(PeerCache.SECRET_HEADER, SECRET))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/octet-stream"))
+                .andExpect(content().bytes(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void unavailableAnswersAreReportedSoThePeerTriesItself() throws Exception {
+        doReturn(null).when(peerCache).answer("abc123");
+
+        mockMvc.perform(get("/internal/peer-cache/abc123").header(PeerCache.SECRET_HEADER, SECRET))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
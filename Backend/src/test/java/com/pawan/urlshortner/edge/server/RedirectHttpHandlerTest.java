@@ -0,0 +1,137 @@
+package com.pawan.urlshortner.edge.server;
+
+import com.pawan.urlshortner.cache.RedirectCache;
+import com.pawan.urlshortner.cache.RedirectEntry;
+import com.pawan.urlshortner.cache.RedirectOutcomeRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedirectHttpHandlerTest {
+
+    private final Queue<Runnable> lookups = new ArrayDeque<>();
+    private RedirectCache redirectCache;
+    private RedirectOutcomeRecorder outcomeRecorder;
+    private EmbeddedChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        redirectCache = new RedirectCache();
+        ReflectionTestUtils.setField(redirectCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(redirectCache, "maxSize", 1_000L);
+        ReflectionTestUtils.setField(redirectCache, "ttlMs", TimeUnit.HOURS.toMillis(1));
+        redirectCache.init();
+        redirectCache.put(RedirectEntry.create("65f0c0ffee0000000000beef", "hit", "https://example.com/hit",
+                Long.MAX_VALUE, null));
+
+        outcomeRecorder = new RedirectOutcomeRecorder();
+        ReflectionTestUtils.setField(outcomeRecorder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outcomeRecorder, "missLogIntervalMs", 10_000L);
+        outcomeRecorder.init();
+
+        // Misses are resolved only when the test runs the queued lookups; with no store
+        // behind the cache they fail and are answered 503
+        channel = new EmbeddedChannel(new HttpRequestDecoder(),
+                new RedirectHttpHandler(redirectCache, outcomeRecorder, lookups::add, click -> { }, "/s/"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void pipelinedHitWaitsForEarlierMiss() {
+        channel.writeInbound(requests("miss", "hit"));
+
+        assertNull(channel.readOutbound(), "hit must not overtake the pending miss");
+        assertFalse(channel.config().isAutoRead());
+
+        runLookups();
+        assertTrue(readResponse().startsWith("HTTP/1.1 503"));
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 Found\r\nlocation: https://example.com/hit"));
+        assertNull(channel.readOutbound());
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    void queuedMissesAreResolvedOneAtATime() {
+        channel.writeInbound(requests("miss1", "hit", "miss2", "hit"));
+
+        runNextLookup();
+        assertTrue(readResponse().startsWith("HTTP/1.1 503"));
+        assertTrue(readResponse().startsWith("HTTP/1.1 302"));
+        assertNull(channel.readOutbound(), "second hit must wait for the second miss");
+        assertEquals(1, lookups.size());
+        assertFalse(channel.config().isAutoRead());
+
+        runNextLookup();
+        assertTrue(readResponse().startsWith("HTTP/1.1 503"));
+        assertTrue(readResponse().startsWith("HTTP/1.1 302"));
+        assertNull(channel.readOutbound());
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    void missesTheExecutorRejectsAreShedWith503() {
+        channel.finishAndReleaseAll();
+        // Every lookup thread busy and the queue full
+        channel = new EmbeddedChannel(new HttpRequestDecoder(), new RedirectHttpHandler(redirectCache,
+                outcomeRecorder, command -> {
+                    throw new RejectedExecutionException("lookup queue full");
+                }, click -> { }, "/s/"));
+
+        channel.writeInbound(requests("miss", "hit"));
+
+        assertEquals("HTTP/1.1 503 Service Unavailable\r\nretry-after: 1\r\ncontent-length: 0\r\n\r\n",
+                readResponse());
+        assertTrue(readResponse().startsWith("HTTP/1.1 302 Found\r\nlocation: https://example.com/hit"));
+        assertNull(channel.readOutbound());
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    private void runLookups() {
+        while (!lookups.isEmpty()) {
+            runNextLookup();
+        }
+    }
+
+    private void runNextLookup() {
+        lookups.poll().run();
+        channel.runPendingTasks();
+    }
+
+    private String readResponse() {
+        ByteBuf response = channel.readOutbound();
+        try {
+            return response.toString(StandardCharsets.US_ASCII);
+        } finally {
+            response.release();
+        }
+    }
+
+    private static ByteBuf requests(String... codes) {
+        StringBuilder pipelined = new StringBuilder();
+        for (String code : codes) {
+            pipelined.append("GET /s/").append(code).append(" HTTP/1.1\r\nHost: sho.rt\r\n\r\n");
+        }
+        return Unpooled.copiedBuffer(pipelined, StandardCharsets.US_ASCII);
+    }
+}
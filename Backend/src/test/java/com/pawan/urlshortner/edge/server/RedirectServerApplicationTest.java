@@ -0,0 +1,67 @@
+package com.pawan.urlshortner.edge.server;
+
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.repository.RedirectStore;
+import com.pawan.urlshortner.service.ClickPipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RedirectServerApplicationTest {
+
+    @TempDir
+    Path storeDirectory;
+
+    private ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        // No DATABASE_URL: with the embedded backend nothing may reach for Mongo
+        context = RedirectServerApplication.application().run(
+                "--app.redirect.store.backend=embedded",
+                "--app.redirect.store.embedded.path=" + storeDirectory,
+                "--app.redirect.store.embedded.sync-writes=false",
+                "--app.redirect.server.port=0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void embeddedBackendServesWithoutMongo() throws Exception {
+        assertNull(context.getBeanProvider(MongoTemplate.class).getIfAvailable());
+        assertNull(context.getBeanProvider(ClickPipeline.class).getIfAvailable());
+
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode("abc123");
+        urlMapping.setOriginalUrl("https://example.com/a");
+        context.getBean(RedirectStore.class).save(urlMapping);
+
+        int port = context.getBean(NettyRedirectServer.class).getLocalPort();
+        HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+        HttpResponse<Void> found = client.send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/s/abc123")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> missing = client.send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/s/missing")).build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(302, found.statusCode());
+        assertEquals("https://example.com/a", found.headers().firstValue("location").orElseThrow());
+        assertEquals(404, missing.statusCode());
+    }
+}
@@ -0,0 +1,72 @@
+package com.pawan.urlshortner.jobs;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JobScheduleTest {
+
+    @Test
+    void fixedRateSlotsAreAlignedToTheEpoch() {
+        JobSchedule schedule = JobSchedule.fixedRate(Duration.ofMinutes(15));
+        long period = Duration.ofMinutes(15).toMillis();
+
+        assertEquals(Instant.ofEpochMilli(period), schedule.nextAfter(Instant.EPOCH));
+        // Every node computes the same slot, wherever in the period it asks
+        Instant slot = Instant.ofEpochMilli(1_000 * period);
+        assertEquals(slot, schedule.nextAfter(slot.minusMillis(period - 1)));
+        assertEquals(slot, schedule.nextAfter(slot.minusMillis(1)));
+    }
+
+    @Test
+    void nextSlotIsStrictlyAfterTheInstant() {
+        JobSchedule schedule = JobSchedule.fixedRate(Duration.ofSeconds(30));
+        Instant slot = Instant.ofEpochSecond(30 * 1_000);
+
+        assertEquals(slot.plusSeconds(30), schedule.nextAfter(slot));
+    }
+
+    @Test
+    void instantsBeforeTheEpochRoundUp() {
+        JobSchedule schedule = JobSchedule.fixedRate(Duration.ofSeconds(10));
+
+        assertEquals(Instant.EPOCH, schedule.nextAfter(Instant.ofEpochMilli(-1)));
+        assertEquals(Instant.ofEpochSecond(-10), schedule.nextAfter(Instant.ofEpochSecond(-20)));
+    }
+
+    @Test
+    void cronSlotsFollowTheExpression() {
+        JobSchedule schedule = JobSchedule.cron("0 0 * * * *");
+        ZonedDateTime noon = ZonedDateTime.of(2026, 3, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+
+        assertEquals(noon.plusHours(1).toInstant(), schedule.nextAfter(noon.toInstant()));
+        assertEquals(noon.toInstant(), schedule.nextAfter(noon.minusMinutes(30).toInstant()));
+    }
+
+    @Test
+    void parsesDurationsMillisecondsAndCron() {
+        Instant now = Instant.ofEpochMilli(1_234_567);
+
+        assertEquals(JobSchedule.fixedRate(Duration.ofMinutes(15)).nextAfter(now),
+                JobSchedule.parse(" PT15M ").nextAfter(now));
+        assertEquals(JobSchedule.fixedRate(Duration.ofSeconds(30)).nextAfter(now),
+                JobSchedule.parse("30000").nextAfter(now));
+        assertEquals(JobSchedule.cron("0 */5 * * * *").nextAfter(now),
+                JobSchedule.parse("0 */5 * * * *").nextAfter(now));
+        assertEquals("every PT15M", JobSchedule.parse("PT15M").toString());
+        assertEquals("cron 0 */5 * * * *", JobSchedule.parse("0 */5 * * * *").toString());
+    }
+
+    @Test
+    void rejectsNonPositiveRatesAndBadExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> JobSchedule.parse("PT0S"));
+        assertThrows(IllegalArgumentException.class, () -> JobSchedule.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> JobSchedule.parse("every minute"));
+    }
+}
@@ -0,0 +1,219 @@
+package com.pawan.urlshortner.jobs;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobSchedulerTest {
+
+    private static final String JOB = "test-job";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private JobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new JobScheduler();
+        ReflectionTestUtils.setField(scheduler, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "workerThreadFactory", Executors.defaultThreadFactory());
+        // Manual runs only; scheduled slots are driven through acquire directly
+        ReflectionTestUtils.setField(scheduler, "enabled", false);
+        ReflectionTestUtils.setField(scheduler, "leaseMs", 60_000L);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    void manualRunTakesTheLeaseRunsAndReleasesIt() throws Exception {
+        whenAcquiring().thenReturn(new Document("_id", JOB).append("token", 7L));
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(JobScheduler.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        AtomicLong token = new AtomicLong();
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.register(JOB, JobSchedule.parse("PT1M"), context -> {
+            token.set(context.getFencingToken());
+            ran.countDown();
+            return 3;
+        });
+
+        assertTrue(scheduler.runInBackground(JOB));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(7, token.get());
+
+        ArgumentCaptor<Query> acquireQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> acquireUpdate = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(acquireQuery.capture(), acquireUpdate.capture(), options.capture(),
+                eq(Document.class), eq(JobScheduler.COLLECTION));
+        // Manual runs ignore the slot, but a first run still creates the lease with one
+        Document filter = acquireQuery.getValue().getQueryObject();
+        assertEquals(JOB, filter.get("_id"));
+        assertFalse(filter.containsKey("lastSlot"));
+        Document update = acquireUpdate.getValue().getUpdateObject();
+        assertEquals(1L, update.get("$inc", Document.class).get("token"));
+        assertEquals(0L, update.get("$setOnInsert", Document.class).get("lastSlot"));
+        assertTrue(options.getValue().isUpsert());
+
+        // The release is guarded by the run's token
+        ArgumentCaptor<Query> releaseQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> releaseUpdate = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, timeout(5_000)).updateFirst(releaseQuery.capture(), releaseUpdate.capture(),
+                eq(JobScheduler.COLLECTION));
+        assertEquals(new Document("_id", JOB).append("token", 7L), releaseQuery.getValue().getQueryObject());
+        Document lastRun = releaseUpdate.getValue().getUpdateObject().get("$set", Document.class)
+                .get("lastRun", Document.class);
+        assertEquals("SUCCEEDED", lastRun.get("outcome"));
+        assertEquals(3L, lastRun.get("processed"));
+        assertEquals(7L, lastRun.get("token"));
+    }
+
+    @Test
+    void manualRunIsRefusedWhileAnotherNodeHoldsTheLease() {
+        whenAcquiring().thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        AtomicLong runs = new AtomicLong();
+        scheduler.register(JOB, JobSchedule.parse("PT1M"), context -> runs.incrementAndGet());
+
+        assertFalse(scheduler.runInBackground(JOB));
+        assertEquals(0, runs.get());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), any(String.class));
+    }
+
+    @Test
+    void manualRunIsRefusedWhileTheJobRunsHere() throws Exception {
+        whenAcquiring().thenReturn(new Document("_id", JOB).append("token", 1L));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        scheduler.register(JOB, JobSchedule.parse("PT1M"), context -> {
+            started.countDown();
+            finish.await();
+            return 0;
+        });
+
+        assertTrue(scheduler.runInBackground(JOB));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertFalse(scheduler.runInBackground(JOB));
+        finish.countDown();
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Document.class), eq(JobScheduler.COLLECTION));
+    }
+
+    @Test
+    void unknownJobsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler.runInBackground("missing"));
+    }
+
+    @Test
+    void scheduledAcquireOnlyTakesSlotsNotRunYet() {
+        whenAcquiring().thenReturn(new Document("_id", JOB).append("token", 12L));
+
+        assertEquals(12L, acquire(1_800_000L));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(JobScheduler.COLLECTION));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(new Document("$lt", 1_800_000L), filter.get("lastSlot"));
+        // Free (expired) or already ours
+        List<?> holders = filter.get("$or", List.class);
+        assertEquals(2, holders.size());
+        assertTrue(((Document) holders.get(0)).containsKey("expiresAt"));
+        assertTrue(((Document) holders.get(1)).containsKey("owner"));
+        assertEquals(1_800_000L, update.getValue().getUpdateObject().get("$set", Document.class).get("lastSlot"));
+    }
+
+    @Test
+    void scheduledAcquireLosesToAHeldLeaseOrARunSlot() {
+        // The filter matched no lease, so the upsert collided with the existing one on _id
+        whenAcquiring().thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        assertNull(acquire(1_800_000L));
+    }
+
+    @Test
+    void renewalKeepsTheLeaseWhileTheTokenMatches() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(JobScheduler.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        JobContext context = new JobContext(JOB, 5);
+
+        renew(context);
+
+        assertTrue(context.isLeaseHeld());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(UpdateDefinition.class), eq(JobScheduler.COLLECTION));
+        assertEquals(new Document("_id", JOB).append("token", 5L), query.getValue().getQueryObject());
+    }
+
+    @Test
+    void renewalThatMatchesNothingLosesTheLease() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(JobScheduler.COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        JobContext context = new JobContext(JOB, 5);
+
+        renew(context);
+
+        assertFalse(context.isLeaseHeld());
+        assertThrows(IllegalStateException.class, context::checkLease);
+    }
+
+    @Test
+    void failedRenewalKeepsTheLeaseForTheNextAttempt() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(JobScheduler.COLLECTION)))
+                .thenThrow(new IllegalStateException("connection reset"));
+        JobContext context = new JobContext(JOB, 5);
+
+        renew(context);
+
+        assertTrue(context.isLeaseHeld());
+    }
+
+    private OngoingStubbing<Document> whenAcquiring() {
+        return when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Document.class), eq(JobScheduler.COLLECTION)));
+    }
+
+    private Long acquire(long slot) {
+        return ReflectionTestUtils.invokeMethod(scheduler, "acquire", JOB, slot);
+    }
+
+    private void renew(JobContext context) {
+        ReflectionTestUtils.invokeMethod(scheduler, "renew", context);
+    }
+}
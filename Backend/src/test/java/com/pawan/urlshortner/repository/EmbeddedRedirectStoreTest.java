@@ -0,0 +1,33 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.util.LsmStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class EmbeddedRedirectStoreTest extends RedirectStoreConformanceTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedRedirectStore open;
+
+    @Override
+    protected RedirectStore createStore() throws IOException {
+        open = new EmbeddedRedirectStore(new LsmStore(directory, 1 << 20, 4, false));
+        return open;
+    }
+
+    @Override
+    protected RedirectStore reopen() throws IOException {
+        open.close();
+        return createStore();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        open.close();
+    }
+}
@@ -0,0 +1,9 @@
+package com.pawan.urlshortner.repository;
+
+class InMemoryRedirectStoreTest extends RedirectStoreConformanceTest {
+
+    @Override
+    protected RedirectStore createStore() {
+        return new InMemoryRedirectStore();
+    }
+}
@@ -0,0 +1,66 @@
+package com.pawan.urlshortner.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against the Mongo server at MONGODB_TEST_URI, in a scratch database
+ * that is dropped after each test; skipped when the variable is not set.
+ */
+class MongoRedirectStoreTest extends RedirectStoreConformanceTest {
+
+    private static final String DATABASE = "urlshortener_store_test";
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    protected RedirectStore createStore() {
+        String uri = System.getenv("MONGODB_TEST_URI");
+        assumeTrue(uri != null && !uri.isBlank(), "MONGODB_TEST_URI is not set");
+
+        client = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        mongoTemplate.getDb().drop();
+        // createdBy is a DBRef, so the owners must exist for links to load with them
+        for (String ownerId : new String[]{"owner-1", "owner-2"}) {
+            User owner = new User();
+            owner.setId(ownerId);
+            mongoTemplate.save(owner);
+        }
+        mongoTemplate.indexOps(UrlMapping.class).ensureIndex(new Index().on("shortCode", Sort.Direction.ASC).unique());
+        return newStore();
+    }
+
+    @Override
+    protected RedirectStore reopen() {
+        return newStore();
+    }
+
+    @Override
+    protected long timePrecisionNanos() {
+        return 1_000_000;
+    }
+
+    private RedirectStore newStore() {
+        return new MongoRedirectStore(new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(UrlMappingRepository.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            mongoTemplate.getDb().drop();
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.pawan.urlshortner.repository;
+
+import com.pawan.urlshortner.model.RedirectPolicy;
+import com.pawan.urlshortner.model.UrlMapping;
+import com.pawan.urlshortner.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every RedirectStore backend must share. Backends that keep their
+ * data across restarts also override {@link #reopen()}.
+ */
+abstract class RedirectStoreConformanceTest {
+
+    private static final LocalDateTime EXPIRATION_DATE = LocalDateTime.of(2030, 1, 2, 3, 4, 5, 6_000);
+
+    private RedirectStore store;
+
+    protected abstract RedirectStore createStore() throws Exception;
+
+    /**
+     * The same data opened afresh, or null for backends that do not persist
+     */
+    protected RedirectStore reopen() throws Exception {
+        return null;
+    }
+
+    /**
+     * Finest time precision the backend keeps, in nanoseconds
+     */
+    protected long timePrecisionNanos() {
+        return 1;
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = createStore();
+    }
+
+    @Test
+    void savedLinksAreFoundByShortCode() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+
+        assertNotNull(saved.getId());
+        UrlMapping found = store.findByShortCode("abc123").orElseThrow();
+        assertEquals(saved.getId(), found.getId());
+        assertEquals("https://example.com/a", found.getOriginalUrl());
+        assertEquals("owner-1", found.getCreatedBy().getId());
+        assertEquals(RedirectPolicy.TEMPORARY, found.getRedirectPolicy());
+        assertEquals(EXPIRATION_DATE.minusNanos(EXPIRATION_DATE.getNano() % timePrecisionNanos()),
+                found.getExpirationDate());
+        assertTrue(found.isActive());
+        assertTrue(store.existsByShortCode("abc123"));
+    }
+
+    @Test
+    void missingCodesAreAbsent() {
+        store.save(link("abc123", "https://example.com/a"));
+
+        assertTrue(store.findByShortCode("abc124").isEmpty());
+        assertFalse(store.existsByShortCode("abc124"));
+    }
+
+    @Test
+    void savingAgainUpdatesTheLink() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        saved.setActive(false);
+        saved.setRedirectPolicy(RedirectPolicy.PERMANENT);
+        store.save(saved);
+
+        UrlMapping found = store.findByShortCode("abc123").orElseThrow();
+        assertEquals(saved.getId(), found.getId());
+        assertFalse(found.isActive());
+        assertEquals(RedirectPolicy.PERMANENT, found.getRedirectPolicy());
+    }
+
+    @Test
+    void deletedLinksAreGone() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        store.save(link("xyz789", "https://example.com/b"));
+        store.delete(saved);
+
+        assertTrue(store.findByShortCode("abc123").isEmpty());
+        assertFalse(store.existsByShortCode("abc123"));
+        assertTrue(store.existsByShortCode("xyz789"));
+    }
+
+    @Test
+    void linksAreFoundInBatches() {
+        store.save(link("abc123", "https://example.com/a"));
+        store.save(link("def456", "https://example.com/b"));
+        store.save(link("xyz789", "https://example.com/c"));
+
+        List<String> found = store.findByShortCodes(List.of("xyz789", "abc123", "missing", "abc123")).stream()
+                .map(UrlMapping::getShortCode)
+                .sorted()
+                .toList();
+        assertEquals(List.of("abc123", "xyz789"), found);
+        assertTrue(store.findByShortCodes(List.of()).isEmpty());
+    }
+
+    @Test
+    void linksAreFoundById() {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        store.save(link("xyz789", "https://example.com/b"));
+
+        assertEquals("abc123", store.findById(saved.getId()).orElseThrow().getShortCode());
+        assertTrue(store.findById("65f0c0ffee0000000000beef").isEmpty());
+
+        store.delete(saved);
+        assertTrue(store.findById(saved.getId()).isEmpty());
+    }
+
+    @Test
+    void ownersListTheirLinksNewestFirst() {
+        UrlMapping oldest = link("abc123", "https://example.com/a");
+        oldest.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        UrlMapping newest = link("def456", "https://example.com/b");
+        newest.setCreatedAt(LocalDateTime.of(2024, 3, 1, 0, 0));
+        UrlMapping other = link("xyz789", "https://example.com/c");
+        other.getCreatedBy().setId("owner-2");
+        store.save(oldest);
+        store.save(newest);
+        store.save(other);
+
+        List<UrlMapping> owned = store.findByOwner("owner-1");
+        assertEquals(List.of("def456", "abc123"), owned.stream().map(UrlMapping::getShortCode).toList());
+        assertEquals(List.of("xyz789"), store.findByOwner("owner-2").stream().map(UrlMapping::getShortCode).toList());
+        assertTrue(store.findByOwner("owner-3").isEmpty());
+
+        store.delete(owned.get(0));
+        assertEquals(List.of("abc123"), store.findByOwner("owner-1").stream().map(UrlMapping::getShortCode).toList());
+    }
+
+    @Test
+    void foundLinksAreCopies() {
+        store.save(link("abc123", "https://example.com/a"));
+        store.findByShortCode("abc123").orElseThrow().setOriginalUrl("https://evil.example");
+
+        assertEquals("https://example.com/a", store.findByShortCode("abc123").orElseThrow().getOriginalUrl());
+    }
+
+    @Test
+    void persistentBackendsKeepLinksAcrossRestarts() throws Exception {
+        UrlMapping saved = store.save(link("abc123", "https://example.com/a"));
+        store.delete(store.save(link("xyz789", "https://example.com/b")));
+
+        RedirectStore reopened = reopen();
+        if (reopened == null) {
+            return;
+        }
+        assertEquals(saved.getId(), reopened.findByShortCode("abc123").orElseThrow().getId());
+        assertFalse(reopened.existsByShortCode("xyz789"));
+        assertEquals("abc123", reopened.findById(saved.getId()).orElseThrow().getShortCode());
+        assertEquals(1, reopened.findByOwner("owner-1").size());
+    }
+
+    private static UrlMapping link(String shortCode, String originalUrl) {
+        User owner = new User();
+        owner.setId("owner-1");
+
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setShortCode(shortCode);
+        urlMapping.setOriginalUrl(originalUrl);
+        urlMapping.setCreatedBy(owner);
+        urlMapping.setRedirectPolicy(RedirectPolicy.TEMPORARY);
+        urlMapping.setExpirationDate(EXPIRATION_DATE);
+        urlMapping.setCreatedAt(LocalDateTime.now());
+        urlMapping.setUpdatedAt(LocalDateTime.now());
+        return urlMapping;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pawan.urlshortner.security;
+
+import com.pawan.urlshortner.dto.response.ApiResponse;
+import com.pawan.urlshortner.exception.GlobalExceptionHandler;
+import com.pawan.urlshortner.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BoundedPasswordEncoderTest {
+
+    private static final long WAIT_MS = 5_000;
+
+    private final PasswordEncoder delegate = mock(PasswordEncoder.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Holds every hash until the test releases it
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void fullPoolAndQueueAreRejectedImmediatelyWith503() throws Exception {
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 60_000, meterRegistry);
+        blockHashing();
+        callers.submit(() -> encoder.encode("running"));
+        callers.submit(() -> encoder.encode("queued"));
+        awaitGauges(1, 1);
+
+        long startedAt = System.nanoTime();
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> encoder.matches("rejected", "$2a$10$hash"));
+
+        // Rejected without waiting for a hash slot or the timeout
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1_000);
+        assertEquals(1, meterRegistry.counter("auth.password.rejected").count());
+        assertServiceUnavailable(ex);
+    }
+
+    @Test
+    void hashesOutlastingTheTimeoutAreAbandonedWith503() {
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, 100, meterRegistry);
+        blockHashing();
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> encoder.encode("slow"));
+
+        assertEquals(1, meterRegistry.counter("auth.password.rejected").count());
+        assertServiceUnavailable(ex);
+    }
+
+    @Test
+    void hashingRunsOnThePoolAndReturnsTheDelegateResult() {
+        encoder = new BoundedPasswordEncoder(delegate, 1, 1, WAIT_MS, meterRegistry);
+        when(delegate.encode("secret")).thenAnswer(invocation -> Thread.currentThread().getName());
+
+        assertTrue(encoder.encode("secret").startsWith("password-hash-"));
+        assertEquals(1, meterRegistry.timer("auth.password.hash").count());
+        assertEquals(1, meterRegistry.timer("auth.password.queue").count());
+    }
+
+    private void blockHashing() {
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            release.await();
+            return "$2a$10$hash";
+        });
+        when(delegate.matches(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return true;
+        });
+    }
+
+    private void awaitGauges(double active, double queued) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while ((meterRegistry.get("auth.password.active").gauge().value() < active
+                || meterRegistry.get("auth.password.queued").gauge().value() < queued)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void assertServiceUnavailable(ServiceUnavailableException ex) {
+        ResponseEntity<ApiResponse<Object>> response =
+                new GlobalExceptionHandler().handleServiceUnavailableException(ex, null);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("SERVICE_UNAVAILABLE", response.getBody().getError());
+    }
+}
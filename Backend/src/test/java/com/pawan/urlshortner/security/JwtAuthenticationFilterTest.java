@@ -0,0 +1,116 @@
+package com.pawan.urlshortner.security;
+
+import com.pawan.urlshortner.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String USER_ID = "65f0c0ffee0000000000beef";
+
+    private final PrincipalCache principalCache = mock(PrincipalCache.class);
+    private final ApplicationContext applicationContext = mock(ApplicationContext.class);
+    private final UserService userService = mock(UserService.class);
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        when(applicationContext.getBean(UserService.class)).thenReturn(userService);
+
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "mySecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "refreshTokenExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedCacheSize", 100);
+        tokenProvider.init();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "applicationContext", applicationContext);
+        ReflectionTestUtils.setField(filter, "principalCache", principalCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void trustedClaimsAuthenticateWithoutAUserLookup() throws Exception {
+        when(principalCache.trustsClaims(eq(USER_ID), any())).thenReturn(true);
+
+        Authentication authentication = authenticate(token("ADMIN", "USER"));
+
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        assertEquals(USER_ID, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals(List.of("ADMIN", "USER"), principal.getRoleNames());
+        verifyNoInteractions(applicationContext, userService);
+        // Cached as of the token issue time, so a later revocation drops it
+        verify(principalCache).put(eq(USER_ID), eq(principal), anyLong());
+    }
+
+    @Test
+    void revokedClaimsAreReplacedByTheStoredUser() throws Exception {
+        when(principalCache.trustsClaims(eq(USER_ID), any())).thenReturn(false);
+        UserPrincipal stored = UserPrincipal.fromClaims(USER_ID, "alice", List.of("USER"));
+        when(userService.loadUserById(USER_ID)).thenReturn(stored);
+
+        Authentication authentication = authenticate(token("ADMIN", "USER"));
+
+        assertSame(stored, authentication.getPrincipal());
+        assertEquals(List.of("USER"), stored.getRoleNames());
+        verify(principalCache).put(eq(USER_ID), eq(stored), anyLong());
+    }
+
+    @Test
+    void cachedPrincipalIsUsedBeforeTheClaims() throws Exception {
+        UserPrincipal cached = UserPrincipal.fromClaims(USER_ID, "alice", List.of("USER"));
+        when(principalCache.get(USER_ID)).thenReturn(cached);
+
+        assertSame(cached, authenticate(token("USER")).getPrincipal());
+        verifyNoInteractions(applicationContext, userService);
+    }
+
+    @Test
+    void invalidTokensLeaveTheRequestUnauthenticated() throws Exception {
+        assertNull(authenticate(token("USER") + "x"));
+        verifyNoInteractions(principalCache, applicationContext);
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private String token(String... roles) {
+        UserPrincipal principal = UserPrincipal.fromClaims(USER_ID, "alice", List.of(roles));
+        return tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.pawan.urlshortner.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    @Test
+    void verifiedTokensAreAnsweredFromTheDigestCache() {
+        JwtTokenProvider provider = newProvider(3_600_000, 100);
+        String token = token(provider, "user-1");
+
+        Claims claims = provider.verify(token);
+
+        assertEquals("user-1", claims.getSubject());
+        assertSame(claims, provider.verify(token));
+        assertEquals(1, verifiedTokens(provider).size());
+    }
+
+    @Test
+    void tamperedTokensAreRejectedAfterTheOriginalWasVerified() {
+        JwtTokenProvider provider = newProvider(3_600_000, 100);
+        String token = token(provider, "user-1");
+        assertNotNull(provider.verify(token));
+
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("USER", "ADMIN").getBytes(StandardCharsets.UTF_8));
+
+        // Claims swapped under the original signature, and the signature itself altered
+        assertNull(provider.verify(parts[0] + "." + forgedPayload + "." + parts[2]));
+        assertNull(provider.verify(token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA")));
+        assertEquals(1, verifiedTokens(provider).size());
+        assertNotNull(provider.verify(token));
+    }
+
+    @Test
+    void expiredTokensAreRejectedAfterACachedVerify() throws InterruptedException {
+        JwtTokenProvider provider = newProvider(2_000, 100);
+        String token = token(provider, "user-1");
+        Claims claims = provider.verify(token);
+        assertNotNull(claims);
+
+        while (System.currentTimeMillis() <= claims.getExpiration().getTime()) {
+            Thread.sleep(50);
+        }
+
+        assertNull(provider.verify(token));
+        assertTrue(verifiedTokens(provider).isEmpty());
+        assertNull(provider.verify(token));
+    }
+
+    @Test
+    void digestCacheIsBoundedByItsConfiguredSize() {
+        JwtTokenProvider provider = newProvider(3_600_000, 3);
+
+        for (int i = 0; i < 10; i++) {
+            String token = token(provider, "user-" + i);
+            assertEquals("user-" + i, provider.verify(token).getSubject());
+            assertTrue(verifiedTokens(provider).size() <= 3);
+        }
+        assertEquals(3, verifiedTokens(provider).size());
+
+        JwtTokenProvider uncached = newProvider(3_600_000, 0);
+        assertNotNull(uncached.verify(token(uncached, "user-1")));
+        assertTrue(verifiedTokens(uncached).isEmpty());
+    }
+
+    private static JwtTokenProvider newProvider(int expirationMs, int verifiedCacheSize) {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationInMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "refreshTokenExpirationInMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "verifiedCacheSize", verifiedCacheSize);
+        provider.init();
+        return provider;
+    }
+
+    private static String token(JwtTokenProvider provider, String userId) {
+        UserPrincipal principal = UserPrincipal.fromClaims(userId, "alice", List.of("USER"));
+        return provider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static Map<?, ?> verifiedTokens(JwtTokenProvider provider) {
+        return (Map<?, ?>) ReflectionTestUtils.getField(provider, "verifiedTokens");
+    }
+}
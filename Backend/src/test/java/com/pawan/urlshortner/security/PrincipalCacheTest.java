@@ -0,0 +1,210 @@
+package com.pawan.urlshortner.security;
+
+import com.pawan.urlshortner.dto.request.UpdateUserRequest;
+import com.pawan.urlshortner.model.Role;
+import com.pawan.urlshortner.model.User;
+import com.pawan.urlshortner.repository.ClickRepository;
+import com.pawan.urlshortner.repository.UrlMappingRepository;
+import com.pawan.urlshortner.repository.UserRepository;
+import com.pawan.urlshortner.service.AdminService;
+import com.pawan.urlshortner.service.UserService;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+
+    private static final String USER_ID = "65f0c0ffee0000000000beef";
+    private static final long POLL_INTERVAL_MS = 2_000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    // User id -> revocation time, standing in for the token_revocations collection
+    private final Map<String, Date> revocations = new HashMap<>();
+    private final List<PrincipalCache> caches = new ArrayList<>();
+    private PrincipalCache cache;
+    private PrincipalCache otherNode;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(anyString())).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), eq(PrincipalCache.REVOCATIONS_COLLECTION)))
+                .thenAnswer(invocation -> {
+                    String userId = invocation.getArgument(0, Query.class).getQueryObject().getString("_id");
+                    Date at = invocation.getArgument(1, UpdateDefinition.class).getUpdateObject()
+                            .get("$max", Document.class).getDate("at");
+                    revocations.merge(userId, at, (previous, next) -> next.after(previous) ? next : previous);
+                    return null;
+                });
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(PrincipalCache.REVOCATIONS_COLLECTION)))
+                .thenAnswer(invocation -> {
+                    Date since = invocation.getArgument(0, Query.class).getQueryObject()
+                            .get("at", Document.class).getDate("$gte");
+                    return revocations.entrySet().stream()
+                            .filter(revocation -> !revocation.getValue().before(since))
+                            .map(revocation -> new Document("_id", revocation.getKey()).append("at", revocation.getValue()))
+                            .toList();
+                });
+
+        user = new User();
+        user.setId(USER_ID);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setRoles(EnumSet.of(Role.USER));
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        cache = newCache();
+        otherNode = newCache();
+    }
+
+    @AfterEach
+    void tearDown() {
+        caches.forEach(PrincipalCache::stop);
+    }
+
+    @Test
+    void roleChangeRevokesTokensIssuedEarlierOnEveryNode() {
+        Date issuedBefore = secondsAgo(1);
+
+        adminService().toggleUserRole(USER_ID);
+
+        assertRevokedSince(issuedBefore);
+    }
+
+    @Test
+    void statusToggleRevokesTokensIssuedEarlierOnEveryNode() {
+        Date issuedBefore = secondsAgo(1);
+
+        adminService().toggleUserStatus(USER_ID);
+
+        assertRevokedSince(issuedBefore);
+    }
+
+    @Test
+    void profileUpdateRevokesTokensIssuedEarlierOnEveryNode() {
+        Date issuedBefore = secondsAgo(1);
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setFirstName("Alicia");
+
+        userService().updateUserProfile(USER_ID, request);
+
+        assertRevokedSince(issuedBefore);
+    }
+
+    @Test
+    void cachedPrincipalsOlderThanAPolledRevocationAreDropped() {
+        UserPrincipal principal = UserPrincipal.fromClaims(USER_ID, "alice", List.of("USER"));
+        otherNode.put(USER_ID, principal, secondsAgo(1).getTime());
+        assertSame(principal, otherNode.get(USER_ID));
+
+        cache.invalidate(USER_ID);
+        poll(otherNode);
+
+        assertNull(otherNode.get(USER_ID));
+        // A principal loaded after the change is served again
+        UserPrincipal reloaded = UserPrincipal.fromClaims(USER_ID, "alice", List.of("USER", "ADMIN"));
+        otherNode.put(USER_ID, reloaded, System.currentTimeMillis() + 1);
+        assertSame(reloaded, otherNode.get(USER_ID));
+    }
+
+    @Test
+    void claimsAreNotTrustedWhileTheRevocationViewIsStale() {
+        Date issuedAt = secondsAgo(1);
+        assertTrue(cache.trustsClaims(USER_ID, issuedAt));
+        assertFalse(cache.trustsClaims(USER_ID, null));
+
+        ReflectionTestUtils.setField(cache, "syncedAt", System.currentTimeMillis() - 3 * POLL_INTERVAL_MS - 1);
+        assertFalse(cache.trustsClaims(USER_ID, issuedAt));
+
+        // A failed poll leaves the view as old as it was
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(PrincipalCache.REVOCATIONS_COLLECTION)))
+                .thenThrow(new IllegalStateException("Mongo is unreachable"));
+        poll(cache);
+        assertFalse(cache.trustsClaims(USER_ID, issuedAt));
+    }
+
+    /**
+     * Tokens issued before the change are answered from Mongo on this node at
+     * once and on the other node after its next poll; later tokens are trusted
+     */
+    private void assertRevokedSince(Date issuedBefore) {
+        assertNotNull(revocations.get(USER_ID));
+        assertFalse(cache.trustsClaims(USER_ID, issuedBefore));
+
+        assertTrue(otherNode.trustsClaims(USER_ID, issuedBefore));
+        poll(otherNode);
+        assertFalse(otherNode.trustsClaims(USER_ID, issuedBefore));
+
+        Date issuedAfter = new Date(revocations.get(USER_ID).getTime() + 1_000);
+        assertTrue(cache.trustsClaims(USER_ID, issuedAfter));
+        assertTrue(otherNode.trustsClaims(USER_ID, issuedAfter));
+    }
+
+    private PrincipalCache newCache() {
+        PrincipalCache principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "mongoTemplate", mongoTemplate);
+        // The scheduled poll never runs; tests poll on their own thread
+        ReflectionTestUtils.setField(principalCache, "workerThreadFactory", (ThreadFactory) body -> new Thread(() -> { }));
+        ReflectionTestUtils.setField(principalCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100);
+        ReflectionTestUtils.setField(principalCache, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(principalCache, "pollIntervalMs", POLL_INTERVAL_MS);
+        ReflectionTestUtils.setField(principalCache, "skewMs", 5_000L);
+        principalCache.start();
+        caches.add(principalCache);
+        poll(principalCache);
+        return principalCache;
+    }
+
+    private AdminService adminService() {
+        AdminService adminService = new AdminService();
+        ReflectionTestUtils.setField(adminService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(adminService, "urlMappingRepository", mock(UrlMappingRepository.class));
+        ReflectionTestUtils.setField(adminService, "clickRepository", mock(ClickRepository.class));
+        ReflectionTestUtils.setField(adminService, "principalCache", cache);
+        return adminService;
+    }
+
+    private UserService userService() {
+        UserService userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "principalCache", cache);
+        return userService;
+    }
+
+    private static void poll(PrincipalCache principalCache) {
+        ReflectionTestUtils.invokeMethod(principalCache, "pollRevocations");
+    }
+
+    private static Date secondsAgo(long seconds) {
+        return new Date(System.currentTimeMillis() - seconds * 1_000);
+    }
+}
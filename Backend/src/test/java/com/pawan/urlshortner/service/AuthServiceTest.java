@@ -0,0 +1,79 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.dto.request.SignupRequest;
+import com.pawan.urlshortner.dto.response.JwtResponse;
+import com.pawan.urlshortner.model.User;
+import com.pawan.urlshortner.repository.UserRepository;
+import com.pawan.urlshortner.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private JwtTokenProvider tokenProvider;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode("s3cret-pass")).thenReturn("$2a$10$hash");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId("65f0c0ffee0000000000beef");
+            return user;
+        });
+
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "mySecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "refreshTokenExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedCacheSize", 100);
+        tokenProvider.init();
+
+        authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "authenticationManager", authenticationManager);
+        ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(authService, "tokenProvider", tokenProvider);
+    }
+
+    @Test
+    void signupIssuesATokenWithASingleHash() {
+        SignupRequest request = new SignupRequest();
+        request.setUsername("alice");
+        request.setEmail("alice@example.com");
+        request.setPassword("s3cret-pass");
+        request.setFirstName("Alice");
+        request.setLastName("Liddell");
+
+        JwtResponse response = authService.registerUser(request);
+
+        Claims claims = tokenProvider.verify(response.getToken());
+        assertEquals("65f0c0ffee0000000000beef", claims.getSubject());
+        assertEquals("alice", claims.get(JwtTokenProvider.USERNAME_CLAIM, String.class));
+        assertEquals(List.of("USER"), claims.get(JwtTokenProvider.ROLES_CLAIM, List.class));
+        assertEquals("65f0c0ffee0000000000beef", tokenProvider.getUserIdFromToken(response.getRefreshToken()));
+
+        // The password is hashed once to store it and never verified against that hash
+        verify(passwordEncoder, times(1)).encode("s3cret-pass");
+        verify(passwordEncoder, never()).matches(any(), any());
+        verifyNoInteractions(authenticationManager);
+    }
+}
@@ -0,0 +1,178 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.model.Click;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickCodecTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    // Dictionary collection -> id -> value, standing in for the dictionary documents
+    private final Map<String, Map<Integer, String>> dictionaries = new HashMap<>();
+    private final Map<String, Integer> counters = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(anyString())).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.findOne(any(Query.class), eq(Document.class), anyString())).thenAnswer(invocation -> {
+            String value = invocation.getArgument(0, Query.class).getQueryObject().getString("v");
+            return dictionary(invocation.getArgument(2)).entrySet().stream()
+                    .filter(entry -> entry.getValue().equals(value))
+                    .map(entry -> new Document("_id", entry.getKey()).append("v", value))
+                    .findFirst().orElse(null);
+        });
+        when(mongoTemplate.findById(any(), eq(Document.class), anyString())).thenAnswer(invocation -> {
+            String value = dictionary(invocation.getArgument(2)).get(invocation.getArgument(0, Integer.class));
+            return value != null ? new Document("_id", invocation.getArgument(0)).append("v", value) : null;
+        });
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(Document.class), anyString())).thenAnswer(invocation -> {
+            String collection = invocation.getArgument(0, Query.class).getQueryObject().getString("_id");
+            return new Document("seq", counters.merge(collection, 1, Integer::sum));
+        });
+        when(mongoTemplate.insert(any(Document.class), anyString())).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            dictionary(invocation.getArgument(1)).put(document.getInteger("_id"), document.getString("v"));
+            return document;
+        });
+    }
+
+    @Test
+    void readableFieldsSurviveTheRoundTrip() {
+        Click click = click("203.0.113.77", "Mozilla/5.0 (X11; Linux x86_64)", "https://News.example.com/story?id=1");
+        newCodec(false).encode(click);
+
+        assertArrayEquals(new byte[]{(byte) 203, 0, 113, 77}, click.getIp());
+
+        // Decoded on a node with a cold cache, so the values come from the dictionaries
+        Click stored = stored(click);
+        newCodec(false).decode(stored);
+
+        assertEquals("203.0.113.77", stored.getIpAddress());
+        assertEquals("Mozilla/5.0 (X11; Linux x86_64)", stored.getUserAgent());
+        assertEquals("news.example.com", stored.getReferer());
+    }
+
+    @Test
+    void ipv6AddressesSurviveTheRoundTrip() {
+        ClickCodec codec = newCodec(false);
+        Click click = click("2001:db8::8a2e:370:7334", null, null);
+
+        codec.encode(click);
+        codec.decode(click);
+
+        assertEquals(16, click.getIp().length);
+        assertEquals("2001:db8:0:0:0:8a2e:370:7334", click.getIpAddress());
+    }
+
+    @Test
+    void truncationKeepsOnlyTheNetworkPrefix() {
+        ClickCodec codec = newCodec(true);
+
+        assertEquals("203.0.113.0", codec.fromBytes(codec.toBytes("203.0.113.77")));
+        assertEquals("2001:db8:85a3:0:0:0:0:0", codec.fromBytes(codec.toBytes("2001:db8:85a3:8d3:1319:8a2e:370:7348")));
+    }
+
+    @Test
+    void missingValuesAreNotInternedAndDecodeToTheirDefaults() {
+        ClickCodec codec = newCodec(false);
+        Click click = click("not-an-ip", "Unknown", "Direct");
+
+        codec.encode(click);
+
+        assertNull(click.getIp());
+        assertNull(click.getUserAgentId());
+        assertNull(click.getRefererHostId());
+        verify(mongoTemplate, never()).insert(any(Document.class), anyString());
+
+        codec.decode(click);
+
+        assertNull(click.getIpAddress());
+        assertEquals("Unknown", click.getUserAgent());
+        assertEquals("Direct", click.getReferer());
+    }
+
+    @Test
+    void repeatedValuesShareOneDictionaryId() {
+        ClickCodec codec = newCodec(false);
+        Click first = click("198.51.100.1", "curl/8.0", "https://a.example.com/x");
+        Click second = click("198.51.100.2", "curl/8.0", "https://b.example.com/y");
+
+        codec.encode(first);
+        codec.encode(second);
+        // Another node finds the id already in the dictionary collection
+        Click third = click("198.51.100.3", "curl/8.0", null);
+        newCodec(false).encode(third);
+
+        assertEquals(first.getUserAgentId(), second.getUserAgentId());
+        assertEquals(first.getUserAgentId(), third.getUserAgentId());
+        assertNotEquals(first.getRefererHostId(), second.getRefererHostId());
+        verify(mongoTemplate, times(3)).insert(any(Document.class), anyString());
+    }
+
+    @Test
+    void encodingWithoutInterningAllocatesNoIds() {
+        Click click = click("198.51.100.1", "curl/8.0", "https://a.example.com/x");
+
+        newCodec(false).encode(click, false);
+
+        assertEquals(0, click.getUserAgentId());
+        assertEquals(0, click.getRefererHostId());
+        verify(mongoTemplate, never()).insert(any(Document.class), anyString());
+    }
+
+    private ClickCodec newCodec(boolean truncateIp) {
+        ClickCodec codec = new ClickCodec();
+        ReflectionTestUtils.setField(codec, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(codec, "maxCachedEntries", 100);
+        ReflectionTestUtils.setField(codec, "truncateIp", truncateIp);
+        codec.init();
+        return codec;
+    }
+
+    private Map<Integer, String> dictionary(String collection) {
+        return dictionaries.computeIfAbsent(collection, name -> new HashMap<>());
+    }
+
+    private static Click click(String ipAddress, String userAgent, String referer) {
+        Click click = new Click();
+        click.setIpAddress(ipAddress);
+        click.setUserAgent(userAgent);
+        click.setReferer(referer);
+        return click;
+    }
+
+    /**
+     * The click as read back from Mongo: stored fields only
+     */
+    private static Click stored(Click click) {
+        Click stored = new Click();
+        stored.setIp(click.getIp());
+        stored.setUserAgentId(click.getUserAgentId());
+        stored.setRefererHostId(click.getRefererHostId());
+        return stored;
+    }
+}
@@ -0,0 +1,227 @@
+package com.pawan.urlshortner.service;
+
+import com.pawan.urlshortner.jobs.Job;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.model.UrlMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickPipelineTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ClickEnricher clickEnricher = mock(ClickEnricher.class);
+    private final JobScheduler jobScheduler = mock(JobScheduler.class);
+    private final BulkOperations urlMappingOps = mock(BulkOperations.class);
+    private final BulkOperations clickOps = mock(BulkOperations.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Worker bodies in start order, raw writer first; tests run them on their own thread
+    private final List<Runnable> workerBodies = new ArrayList<>();
+    private final List<List<Click>> inserted = new ArrayList<>();
+    private ClickPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.indexOps(Click.class)).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.insert(anyCollection(), eq(Click.class))).thenAnswer(invocation -> {
+            List<Click> batch = new ArrayList<>(invocation.<Collection<Click>>getArgument(0));
+            inserted.add(batch);
+            return batch;
+        });
+        when(mongoTemplate.bulkOps(any(), eq(UrlMapping.class))).thenReturn(urlMappingOps);
+        when(mongoTemplate.bulkOps(any(), eq(Click.class))).thenReturn(clickOps);
+
+        pipeline = new ClickPipeline();
+        ReflectionTestUtils.setField(pipeline, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(pipeline, "clickEnricher", clickEnricher);
+        ReflectionTestUtils.setField(pipeline, "clickCodec", mock(ClickCodec.class));
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "workerThreadFactory", (ThreadFactory) body -> {
+            workerBodies.add(body);
+            return new Thread(() -> { });
+        });
+        ReflectionTestUtils.setField(pipeline, "jobScheduler", jobScheduler);
+        ReflectionTestUtils.setField(pipeline, "rawQueueCapacity", 100);
+        ReflectionTestUtils.setField(pipeline, "rawBatchSize", 2);
+        ReflectionTestUtils.setField(pipeline, "enrichmentQueueCapacity", 2);
+        ReflectionTestUtils.setField(pipeline, "enrichmentBatchSize", 3);
+        ReflectionTestUtils.setField(pipeline, "enrichmentWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "backlogSweepSchedule", "PT30S");
+        ReflectionTestUtils.setField(pipeline, "backlogGraceMs", 30_000L);
+        pipeline.start();
+    }
+
+    @Test
+    void rawClicksAreAppendedInBatchesWithOneCounterUpdatePerLink() {
+        submit("link-a", "link-a", "link-a", "link-b", "link-b");
+
+        drainRawQueue();
+
+        assertEquals(List.of(2, 2, 1), inserted.stream().map(List::size).toList());
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(urlMappingOps, times(4)).updateOne(queries.capture(), updates.capture());
+        verify(urlMappingOps, times(3)).execute();
+        List<String> increments = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            increments.add(queries.getAllValues().get(i).getQueryObject().getString("_id") + "+"
+                    + updates.getAllValues().get(i).getUpdateObject().get("$inc", Document.class).get("clickCount"));
+        }
+        // One $inc per link and batch: [a, a], [a, b], [b]
+        assertEquals(List.of("link-a+2", "link-a+1", "link-b+1", "link-b+1"), sortedWithinBatches(increments));
+    }
+
+    @Test
+    void clicksOverflowingTheEnrichmentQueueAreDeferredToTheStore() {
+        submit("link-a", "link-a", "link-a");
+
+        drainRawQueue();
+
+        assertEquals(1.0, meterRegistry.counter("clicks.enrichment.deferred").count());
+        assertTrue(backlogPending());
+        assertTrue(pipeline.enrichmentLagSeconds() > 0);
+
+        List<Click> deferred = List.of(inserted.get(1).get(0));
+        when(mongoTemplate.find(any(Query.class), eq(Click.class))).thenReturn(new ArrayList<>(deferred));
+        List<Click> batch = new ArrayList<>();
+        assertTrue(loadStoredBacklog(batch));
+
+        assertEquals(deferred, batch);
+        // A short read settles the backlog: nothing is queried again until more is deferred
+        assertFalse(backlogPending());
+        assertFalse(loadStoredBacklog(new ArrayList<>()));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Click.class));
+    }
+
+    @Test
+    void clicksDeferredWhileTheBacklogIsReadStayPending() {
+        Click early = click("link-a", LocalDateTime.now().minusMinutes(5));
+        Click late = click("link-b", LocalDateTime.now().minusMinutes(1));
+        ReflectionTestUtils.invokeMethod(pipeline, "deferToStore", early);
+        // The raw writer defers another click after the query has already run
+        when(mongoTemplate.find(any(Query.class), eq(Click.class))).thenAnswer(invocation -> {
+            ReflectionTestUtils.invokeMethod(pipeline, "deferToStore", late);
+            return new ArrayList<>(List.of(early));
+        });
+
+        assertTrue(loadStoredBacklog(new ArrayList<>()));
+
+        assertTrue(backlogPending());
+        assertTrue(pipeline.enrichmentLagSeconds() > 0);
+
+        when(mongoTemplate.find(any(Query.class), eq(Click.class))).thenReturn(new ArrayList<>(List.of(late)));
+        List<Click> batch = new ArrayList<>();
+        assertTrue(loadStoredBacklog(batch));
+        assertEquals(List.of(late), batch);
+        assertFalse(backlogPending());
+        assertEquals(0, pipeline.enrichmentLagSeconds());
+    }
+
+    @Test
+    void sweepEnrichesTheStoredBacklogInBatches() throws Exception {
+        ArgumentCaptor<Job> sweep = ArgumentCaptor.forClass(Job.class);
+        verify(jobScheduler).register(eq("click-backlog-sweep"), any(JobSchedule.class), sweep.capture());
+        List<Click> full = IntStream.range(0, 3).mapToObj(i -> stored("c" + i)).toList();
+        List<Click> last = List.of(stored("c3"));
+        when(mongoTemplate.find(any(Query.class), eq(Click.class)))
+                .thenReturn(new ArrayList<>(full), new ArrayList<>(last));
+        JobContext context = mock(JobContext.class);
+
+        assertEquals(4, sweep.getValue().run(context));
+
+        verify(context, times(2)).checkLease();
+        verify(clickEnricher, times(4)).enrich(any(Click.class));
+        verify(clickOps, times(2)).execute();
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(clickOps, times(4)).updateOne(any(Query.class), updates.capture());
+        Document set = updates.getValue().getUpdateObject().get("$set", Document.class);
+        assertTrue(set.keySet().containsAll(List.of("country", "city", "device", "browser", "enrichedAt")));
+
+        // Only clicks older than the grace period, which their own node may still have queued
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(query.capture(), eq(Click.class));
+        LocalDateTime before = (LocalDateTime) query.getValue().getQueryObject().get("clickedAt", Document.class)
+                .get("$lt");
+        assertTrue(before.isBefore(LocalDateTime.now().minusSeconds(29)));
+        assertEquals(3, query.getValue().getLimit());
+    }
+
+    private void submit(String... urlMappingIds) {
+        for (String urlMappingId : urlMappingIds) {
+            assertTrue(pipeline.submit(click(urlMappingId, LocalDateTime.now().minusSeconds(10))));
+        }
+    }
+
+    /**
+     * Runs the raw writer on this thread until its queue is empty
+     */
+    private void drainRawQueue() {
+        ReflectionTestUtils.setField(pipeline, "running", false);
+        workerBodies.get(0).run();
+    }
+
+    private boolean loadStoredBacklog(List<Click> batch) {
+        return Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(pipeline, "loadStoredBacklog", batch));
+    }
+
+    private boolean backlogPending() {
+        return Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(pipeline, "backlogPending"));
+    }
+
+    /**
+     * Counter updates within a bulk have no order, so they are compared per batch
+     */
+    private static List<String> sortedWithinBatches(List<String> increments) {
+        List<String> sorted = new ArrayList<>(increments.subList(1, 3));
+        sorted.sort(null);
+        List<String> result = new ArrayList<>();
+        result.add(increments.get(0));
+        result.addAll(sorted);
+        result.add(increments.get(3));
+        return result;
+    }
+
+    private static Click click(String urlMappingId, LocalDateTime clickedAt) {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setId(urlMappingId);
+        Click click = new Click();
+        click.setUrlMapping(urlMapping);
+        click.setClickedAt(clickedAt);
+        return click;
+    }
+
+    private static Click stored(String id) {
+        Click click = click("link-a", LocalDateTime.now().minusMinutes(1));
+        click.setId(id);
+        return click;
+    }
+}
@@ -0,0 +1,201 @@
+package com.pawan.urlshortner.service;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.pawan.urlshortner.dto.response.ClickStorageReportResponse;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.jobs.JobSchedule;
+import com.pawan.urlshortner.jobs.JobScheduler;
+import com.pawan.urlshortner.model.Click;
+import com.pawan.urlshortner.util.IpAddresses;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClickSchemaMigrationServiceTest {
+
+    private static final Date CLICKED_AT = new Date(1_772_366_400_000L);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ClickCodec clickCodec = mock(ClickCodec.class);
+    private final JobScheduler jobScheduler = mock(JobScheduler.class);
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> clicks = mock(MongoCollection.class);
+    @SuppressWarnings("unchecked")
+    private final FindIterable<Document> found = mock(FindIterable.class);
+    private final IndexOperations indexOps = mock(IndexOperations.class);
+    private final List<Bson> filters = new ArrayList<>();
+    private ClickSchemaMigrationService service;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Click.class)).thenReturn("clicks");
+        when(mongoTemplate.getCollection("clicks")).thenReturn(clicks);
+        when(mongoTemplate.indexOps("clicks")).thenReturn(indexOps);
+        when(clicks.find(any(Bson.class))).thenAnswer(invocation -> {
+            filters.add(invocation.getArgument(0));
+            return found;
+        });
+        when(found.sort(any())).thenReturn(found);
+        when(found.limit(anyInt())).thenReturn(found);
+        // Stands in for dictionary interning, which ClickCodecTest covers
+        doAnswer(invocation -> {
+            Click click = invocation.getArgument(0);
+            click.setIp(IpAddresses.parse(click.getIpAddress()));
+            click.setUserAgentId(click.getUserAgent() != null ? 7 : null);
+            click.setRefererHostId(click.getReferer() != null ? 3 : null);
+            return null;
+        }).when(clickCodec).encode(any(Click.class), anyBoolean());
+        when(clickCodec.getUserAgents()).thenReturn(mock(ClickDictionary.class));
+        when(clickCodec.getRefererHosts()).thenReturn(mock(ClickDictionary.class));
+
+        service = new ClickSchemaMigrationService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "clickCodec", clickCodec);
+        ReflectionTestUtils.setField(service, "jobScheduler", jobScheduler);
+        ReflectionTestUtils.setField(service, "schedule", "PT10M");
+    }
+
+    @Test
+    void migrationRunsAsALeasedJobAsSoonAsTheNodeStarts() {
+        service.start();
+
+        verify(indexOps).ensureIndex(any());
+        verify(jobScheduler).register(eq(ClickSchemaMigrationService.JOB), any(JobSchedule.class), any());
+        verify(jobScheduler).runInBackground(ClickSchemaMigrationService.JOB);
+    }
+
+    @Test
+    void legacyClicksAreRewrittenInTheCompactLayout() {
+        whenFinding(List.of(legacyClick("c1")), List.of());
+
+        ClickStorageReportResponse report = service.migrate(false, context());
+
+        List<WriteModel<Document>> writes = writes();
+        assertEquals(1, writes.size());
+        ReplaceOneModel<Document> replace = (ReplaceOneModel<Document>) writes.get(0);
+        // Only replaces a click that is still in the legacy layout
+        BsonDocument filter = replace.getFilter().toBsonDocument();
+        assertTrue(filter.toJson().contains("\"clickedAt\": {\"$exists\": true}"));
+        assertTrue(filter.toJson().contains("\"_id\": \"c1\""));
+
+        Document compact = replace.getReplacement();
+        assertEquals(new DBRef("url_mappings", "link-1"), compact.get("m"));
+        assertArrayEquals(new byte[]{(byte) 203, 0, 113, 77}, compact.get("ip", Binary.class).getData());
+        assertEquals(7, compact.get("ua"));
+        assertEquals(3, compact.get("rh"));
+        assertEquals("DE", compact.get("co"));
+        assertEquals("Berlin", compact.get("ci"));
+        assertEquals("Mobile", compact.get("dv"));
+        assertEquals("Firefox", compact.get("br"));
+        assertEquals(CLICKED_AT, compact.get("ts"));
+        // Legacy clicks were enriched when they were recorded
+        assertEquals(CLICKED_AT, compact.get("ea"));
+        for (String legacyField : List.of("urlMapping", "ipAddress", "userAgent", "referer", "clickedAt")) {
+            assertFalse(compact.containsKey(legacyField), legacyField);
+        }
+
+        assertEquals(1, report.getDocumentsScanned());
+        assertEquals(1, report.getDocumentsMigrated());
+        assertTrue(report.getCompactBytes() < report.getLegacyBytes());
+        verify(clickCodec).encode(any(Click.class), eq(true));
+    }
+
+    @Test
+    void dryRunMeasuresEveryBatchWithoutWriting() {
+        whenFinding(List.of(legacyClick("c1"), legacyClick("c2")), List.of(legacyClick("c3")), List.of());
+
+        ClickStorageReportResponse report = service.migrate(true);
+
+        verify(clicks, never()).bulkWrite(anyList(), any());
+        verify(clickCodec, times(3)).encode(any(Click.class), eq(false));
+        assertEquals(3, report.getDocumentsScanned());
+        assertEquals(0, report.getDocumentsMigrated());
+        assertTrue(report.isDryRun());
+        // Pages through the legacy clicks by _id
+        assertFalse(filters.get(0).toBsonDocument().toJson().contains("$gt"));
+        assertTrue(filters.get(1).toBsonDocument().toJson().contains("\"$gt\": \"c2\""));
+        assertTrue(filters.get(2).toBsonDocument().toJson().contains("\"$gt\": \"c3\""));
+    }
+
+    @Test
+    void jobStopsBetweenBatchesOnceItsLeaseIsLost() {
+        whenFinding(List.of(legacyClick("c1")), List.of(legacyClick("c2")), List.of());
+        JobContext context = context();
+        doNothing().doThrow(new IllegalStateException("Lease for job click-schema-migration was lost"))
+                .when(context).checkLease();
+
+        assertThrows(IllegalStateException.class, () -> service.migrate(false, context));
+
+        assertEquals(1, writes().size());
+        assertEquals(1, filters.size());
+    }
+
+    @SafeVarargs
+    private void whenFinding(List<Document>... batches) {
+        var stubbing = when(found.into(any()));
+        for (List<Document> batch : batches) {
+            stubbing = stubbing.thenAnswer(invocation -> {
+                List<Document> target = invocation.getArgument(0);
+                target.addAll(batch);
+                return target;
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WriteModel<Document>> writes() {
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(clicks).bulkWrite(writes.capture(), any());
+        return writes.getValue();
+    }
+
+    private static JobContext context() {
+        return mock(JobContext.class);
+    }
+
+    private static Document legacyClick(String id) {
+        return new Document("_id", id)
+                .append("urlMapping", new DBRef("url_mappings", "link-1"))
+                .append("ipAddress", "203.0.113.77")
+                .append("userAgent", "Mozilla/5.0 (Android 14; Mobile; rv:125.0) Gecko/125.0 Firefox/125.0")
+                .append("referer", "https://news.example.com/story")
+                .append("country", "DE")
+                .append("city", "Berlin")
+                .append("device", "Mobile")
+                .append("browser", "Firefox")
+                .append("clickedAt", CLICKED_AT);
+    }
+}
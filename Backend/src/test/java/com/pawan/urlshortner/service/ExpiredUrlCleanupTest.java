@@ -0,0 +1,285 @@
+package com.pawan.urlshortner.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.pawan.urlshortner.cache.InvalidationBus;
+import com.pawan.urlshortner.jobs.JobContext;
+import com.pawan.urlshortner.model.CleanupTask;
+import com.pawan.urlshortner.model.UrlMapping;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExpiredUrlCleanupTest {
+
+    private static final String JOB = "expired-url-cleanup";
+    private static final String TASK = "task-1";
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final InvalidationBus invalidationBus = mock(InvalidationBus.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExpiredUrlCleanup cleanup;
+
+    @BeforeEach
+    void setUp() {
+        cleanup = new ExpiredUrlCleanup();
+        ReflectionTestUtils.setField(cleanup, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(cleanup, "invalidationBus", invalidationBus);
+        ReflectionTestUtils.setField(cleanup, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cleanup, "chunkSize", 2);
+        ReflectionTestUtils.setField(cleanup, "taskRetentionMs", 60_000L);
+        // The mocked template has no index operations; start() only logs that
+        cleanup.start();
+    }
+
+    @Test
+    void nothingIsQueuedWhileNoLinkHasExpired() {
+        assertEquals(0, cleanup.run(context(1)));
+
+        verify(mongoTemplate, never()).insert(any(CleanupTask.class));
+        verify(mongoTemplate, never()).count(any(Query.class), eq(UrlMapping.class));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(UrlMapping.class));
+    }
+
+    @Test
+    void newTaskIsWorkedThroughInChunksAndCompleted() {
+        when(mongoTemplate.exists(any(Query.class), eq(UrlMapping.class))).thenReturn(true);
+        when(mongoTemplate.insert(any(CleanupTask.class))).thenAnswer(invocation -> {
+            CleanupTask task = invocation.getArgument(0);
+            task.setId(TASK);
+            return task;
+        });
+        whenClaiming().thenReturn(task(CleanupTask.Status.RUNNING, null, 1L));
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class)))
+                .thenReturn(List.of(link("id1", "a"), link("id2", "b")), List.of(link("id3", "c")), List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UrlMapping.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null), UpdateResult.acknowledged(1, 1L, null));
+        whenCheckpointing().thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertEquals(3, cleanup.run(context(1)));
+
+        List<Document> chunkQueries = chunkQueries();
+        assertEquals(3, chunkQueries.size());
+        assertFalse(chunkQueries.get(0).containsKey("_id"));
+        assertEquals(new Document("$gt", "id2"), chunkQueries.get(1).get("_id"));
+        assertEquals(new Document("$gt", "id3"), chunkQueries.get(2).get("_id"));
+        verify(invalidationBus).publish(List.of("a", "b"));
+        verify(invalidationBus).publish(List.of("c"));
+        assertEquals(3.0, meterRegistry.counter("links.expired").count());
+
+        // One checkpoint per chunk, then the completion, all guarded by the run's token
+        List<Checkpoint> checkpoints = checkpoints();
+        assertEquals(3, checkpoints.size());
+        assertEquals("id2", checkpoints.get(0).set().get("lastId"));
+        assertEquals(2L, checkpoints.get(0).inc().get("expired"));
+        assertEquals(1, checkpoints.get(0).inc().get("chunks"));
+        assertEquals("id3", checkpoints.get(1).set().get("lastId"));
+        assertEquals(1L, checkpoints.get(1).inc().get("expired"));
+        assertEquals(CleanupTask.Status.COMPLETED, checkpoints.get(2).set().get("status"));
+        assertTrue(checkpoints.get(2).update().get("$unset", Document.class).containsKey("error"));
+        checkpoints.forEach(checkpoint ->
+                assertEquals(new Document("_id", TASK).append("fencingToken", 1L), checkpoint.filter()));
+    }
+
+    @Test
+    void interruptedTaskIsResumedFromItsLastId() {
+        whenFindingUnfinished().thenReturn(task(CleanupTask.Status.PENDING, null, null), (CleanupTask) null);
+        whenClaiming().thenReturn(task(CleanupTask.Status.RUNNING, null, 1L));
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class)))
+                .thenReturn(List.of(link("id1", "a"), link("id2", "b")), List.of(link("id3", "c")));
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UrlMapping.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null))
+                .thenThrow(new IllegalStateException("connection reset"));
+        whenCheckpointing().thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> cleanup.run(context(1)));
+        assertEquals("connection reset", failure.getMessage());
+
+        List<Checkpoint> checkpoints = checkpoints();
+        assertEquals(2, checkpoints.size());
+        assertEquals("id2", checkpoints.get(0).set().get("lastId"));
+        assertEquals(CleanupTask.Status.INTERRUPTED, checkpoints.get(1).set().get("status"));
+        assertEquals("connection reset", checkpoints.get(1).set().get("error"));
+        assertFalse(checkpoints.get(1).set().containsKey("lastId"));
+
+        // The next run of the job finds the task where the first one left it
+        clearInvocations(mongoTemplate, invalidationBus);
+        whenFindingUnfinished().thenReturn(task(CleanupTask.Status.INTERRUPTED, "id2", 1L), (CleanupTask) null);
+        CleanupTask resumed = task(CleanupTask.Status.RUNNING, "id2", 2L);
+        resumed.setStartedAt(CUTOFF);
+        whenClaiming().thenReturn(resumed);
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class)))
+                .thenReturn(List.of(link("id3", "c")), List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UrlMapping.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertEquals(1, cleanup.run(context(2)));
+
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(claim.capture(), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CleanupTask.class));
+        List<?> claimable = claim.getValue().getQueryObject().get("$or", List.class);
+        assertEquals(new Document("fencingToken", new Document("$lt", 2L)), claimable.get(1));
+        assertEquals(new Document("$gt", "id2"), chunkQueries().get(0).get("_id"));
+        verify(invalidationBus).publish(List.of("c"));
+
+        checkpoints = checkpoints();
+        assertEquals(2, checkpoints.size());
+        assertEquals("id3", checkpoints.get(0).set().get("lastId"));
+        assertEquals(CleanupTask.Status.COMPLETED, checkpoints.get(1).set().get("status"));
+        assertEquals(2L, checkpoints.get(1).filter().get("fencingToken"));
+    }
+
+    @Test
+    void lostLeaseInterruptsTheTaskBeforeTheNextChunk() {
+        whenFindingUnfinished().thenReturn(task(CleanupTask.Status.PENDING, null, null));
+        whenClaiming().thenReturn(task(CleanupTask.Status.RUNNING, null, 1L));
+        whenCheckpointing().thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        JobContext context = context(1);
+        doThrow(new IllegalStateException("Lease for job " + JOB + " was lost")).when(context).checkLease();
+
+        assertThrows(IllegalStateException.class, () -> cleanup.run(context));
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(UrlMapping.class));
+        List<Checkpoint> checkpoints = checkpoints();
+        assertEquals(1, checkpoints.size());
+        assertEquals(CleanupTask.Status.INTERRUPTED, checkpoints.get(0).set().get("status"));
+    }
+
+    @Test
+    void checkpointIsRejectedOnceANewerRunHoldsTheTask() {
+        whenFindingUnfinished().thenReturn(task(CleanupTask.Status.PENDING, null, null));
+        whenClaiming().thenReturn(task(CleanupTask.Status.RUNNING, null, 1L));
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class)))
+                .thenReturn(List.of(link("id1", "a")));
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UrlMapping.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        // A run with a newer token claimed the task, so the fenced filter matches nothing
+        whenCheckpointing().thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> cleanup.run(context(1)));
+        assertTrue(failure.getMessage().contains("claimed by a newer run"));
+
+        // Neither the progress nor the interruption overwrote the newer run's state
+        List<Checkpoint> checkpoints = checkpoints();
+        assertEquals(2, checkpoints.size());
+        assertEquals("id1", checkpoints.get(0).set().get("lastId"));
+        assertEquals(CleanupTask.Status.INTERRUPTED, checkpoints.get(1).set().get("status"));
+        checkpoints.forEach(checkpoint -> assertEquals(1L, checkpoint.filter().get("fencingToken")));
+    }
+
+    @Test
+    void taskClaimedByANewerRunIsLeftAlone() {
+        whenFindingUnfinished().thenReturn(task(CleanupTask.Status.RUNNING, "id2", 3L));
+        whenClaiming().thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () -> cleanup.run(context(2)));
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(UrlMapping.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class),
+                eq(CleanupTask.class));
+    }
+
+    /**
+     * Context of a run holding the lease with the given fencing token
+     */
+    private static JobContext context(long fencingToken) {
+        JobContext context = mock(JobContext.class);
+        when(context.getJobName()).thenReturn(JOB);
+        when(context.getFencingToken()).thenReturn(fencingToken);
+        return context;
+    }
+
+    private OngoingStubbing<CleanupTask> whenFindingUnfinished() {
+        return when(mongoTemplate.findOne(any(Query.class), eq(CleanupTask.class)));
+    }
+
+    private OngoingStubbing<CleanupTask> whenClaiming() {
+        return when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CleanupTask.class)));
+    }
+
+    private OngoingStubbing<UpdateResult> whenCheckpointing() {
+        return when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class), eq(CleanupTask.class)));
+    }
+
+    private List<Document> chunkQueries() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).find(query.capture(), eq(UrlMapping.class));
+        return query.getAllValues().stream().map(Query::getQueryObject).toList();
+    }
+
+    /**
+     * Fenced task updates in call order; the unfenced startedAt write is left out
+     */
+    private List<Checkpoint> checkpoints() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, atLeastOnce())
+                .updateFirst(query.capture(), update.capture(), eq(CleanupTask.class));
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        for (int i = 0; i < query.getAllValues().size(); i++) {
+            Document filter = query.getAllValues().get(i).getQueryObject();
+            if (filter.containsKey("fencingToken")) {
+                checkpoints.add(new Checkpoint(filter, update.getAllValues().get(i).getUpdateObject()));
+            }
+        }
+        return checkpoints;
+    }
+
+    private record Checkpoint(Document filter, Document update) {
+        Document set() {
+            return update.get("$set", Document.class);
+        }
+
+        Document inc() {
+            return update.get("$inc", Document.class);
+        }
+    }
+
+    private static CleanupTask task(CleanupTask.Status status, String lastId, Long fencingToken) {
+        CleanupTask task = new CleanupTask();
+        task.setId(TASK);
+        task.setStatus(status);
+        task.setCutoff(CUTOFF);
+        task.setLastId(lastId);
+        task.setFencingToken(fencingToken);
+        return task;
+    }
+
+    private static UrlMapping link(String id, String shortCode) {
+        UrlMapping urlMapping = new UrlMapping();
+        urlMapping.setId(id);
+        urlMapping.setShortCode(shortCode);
+        return urlMapping;
+    }
+}
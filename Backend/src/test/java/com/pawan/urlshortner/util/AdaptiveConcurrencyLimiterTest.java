@@ -0,0 +1,68 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejectsOnceTheLimitIsInUse() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200);
+
+        saturate(limiter, 100, TimeUnit.MILLISECONDS.toNanos(5));
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit should grow under steady latency, was " + grown);
+
+        saturate(limiter, 1, TimeUnit.MILLISECONDS.toNanos(100));
+        int shrunk = limiter.getLimit();
+        assertTrue(shrunk < grown / 4, "limit should shrink as soon as latency rises, was " + shrunk);
+    }
+
+    @Test
+    void staysWithinBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 40);
+
+        saturate(limiter, 2_000, TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(40, limiter.getLimit());
+
+        // Latency doubling every round, as when a backend keeps degrading
+        int lowest = limiter.getLimit();
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, 1, TimeUnit.MILLISECONDS.toNanos(5L << round));
+            lowest = Math.min(lowest, limiter.getLimit());
+        }
+        assertEquals(5, lowest);
+    }
+
+    /**
+     * Fills the current limit, then completes every request with the given latency
+     */
+    private static void saturate(AdaptiveConcurrencyLimiter limiter, int rounds, long latencyNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(latencyNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void spreadsKeysEvenlyAcrossMembers() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf("code" + i), 1, Integer::sum);
+        }
+        assertEquals(4, owned.size());
+        owned.values().forEach(count ->
+                assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 * 0.2, "unbalanced: " + owned));
+    }
+
+    @Test
+    void addingAMemberOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "code" + i;
+            String owner = after.ownerOf(key);
+            if (!owner.equals(before.ownerOf(key))) {
+                assertEquals("d", owner);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2, "moved " + moved);
+    }
+
+    @Test
+    void ringsWithTheSameMembersAgree() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("b", "a"), 16);
+        ConsistentHashRing same = new ConsistentHashRing(List.of("a", "b"), 16);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(ring.ownerOf("code" + i), same.ownerOf("code" + i));
+        }
+        assertNull(new ConsistentHashRing(List.of(), 16).ownerOf("code"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void firesItemsAtTheirDeadlineAcrossLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 8, 3, START);
+        long[] offsets = {0, 1, 999, 1000, 1001, 7_999, 8_000, 8_001, 63_999, 64_000, 65_500, 511_000, 512_000, 2_000_000};
+        for (long offset : offsets) {
+            wheel.schedule(START + offset, START + offset);
+        }
+        assertEquals(offsets.length, wheel.size());
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= START + 2_100_000; now += 500) {
+            long time = now;
+            wheel.advance(now, deadline -> firedAt.put(deadline, time));
+        }
+
+        assertEquals(offsets.length, firedAt.size());
+        assertEquals(0, wheel.size());
+        firedAt.forEach((deadline, time) -> {
+            assertTrue(time >= deadline, "fired early: " + deadline + " at " + time);
+            assertTrue(time < deadline + 1000, "fired late: " + deadline + " at " + time);
+        });
+    }
+
+    @Test
+    void firesOverdueItemsOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 64, 4, START);
+        wheel.schedule("past", START - 60_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START, fired::add);
+
+        assertEquals(List.of("past"), fired);
+    }
+
+    @Test
+    void firesEveryItemWhenAdvancingInLargeSteps() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 16, 2, START);
+        Random random = new Random(42);
+        int[] deadlines = new int[5_000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = random.nextInt(20_000);
+            wheel.schedule(i, START + deadlines[i]);
+        }
+
+        boolean[] fired = new boolean[deadlines.length];
+        for (long now = START; now <= START + 21_000; now += 1 + random.nextInt(700)) {
+            long time = now;
+            wheel.advance(now, i -> {
+                assertTrue(time >= START + deadlines[i], "fired early: " + i);
+                fired[i] = true;
+            });
+        }
+        wheel.advance(START + 21_000, i -> fired[i] = true);
+
+        for (int i = 0; i < fired.length; i++) {
+            assertTrue(fired[i], "never fired: " + i);
+        }
+        assertEquals(0, wheel.size());
+    }
+}
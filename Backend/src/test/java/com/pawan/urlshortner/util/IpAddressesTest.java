@@ -0,0 +1,49 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IpAddressesTest {
+
+    @Test
+    void parsesIpv4Literals() throws Exception {
+        assertArrayEquals(new byte[]{(byte) 203, 0, 113, 7}, IpAddresses.parse("203.0.113.7"));
+        assertArrayEquals(new byte[]{0, 0, 0, 0}, IpAddresses.parse("0.0.0.0"));
+    }
+
+    @Test
+    void parsesIpv6LiteralsLikeTheJdk() throws Exception {
+        for (String literal : new String[]{"::", "::1", "1::", "2001:db8::1", "2001:DB8:0:0:8:800:200C:417A",
+                "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "fe80::1:2", "64:ff9b::192.0.2.33",
+                "1:2:3:4:5:6:1.2.3.4"}) {
+            assertArrayEquals(InetAddress.getByName(literal).getAddress(), IpAddresses.parse(literal), literal);
+        }
+    }
+
+    @Test
+    void stripsBracketsAndZoneIds() throws Exception {
+        byte[] expected = InetAddress.getByName("fe80::1").getAddress();
+        assertArrayEquals(expected, IpAddresses.parse("[fe80::1]"));
+        assertArrayEquals(expected, IpAddresses.parse("fe80::1%eth0"));
+    }
+
+    @Test
+    void returnsIpv4MappedAddressesAsIpv4() {
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, IpAddresses.parse("::ffff:1.2.3.4"));
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, IpAddresses.parse("::ffff:102:304"));
+    }
+
+    @Test
+    void rejectsAnythingThatIsNotALiteral() {
+        for (String value : new String[]{"", "localhost", "example.com", "example.com:80", "1.2.3", "1.2.3.4.5",
+                "256.1.1.1", "1.2.3.a", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7:8::", "1::2::3", ":::", ":1::",
+                "1::2:", "12345::", "g::1", "1:2:3:4:5:6:7", "::1.2.3.4:5", "1:2:3:4:5:6:7:1.2.3.4"}) {
+            assertNull(IpAddresses.parse(value), value);
+        }
+        assertNull(IpAddresses.parse(null));
+    }
+}
@@ -0,0 +1,108 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LsmStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void newestWriteWinsAcrossFlushesAndMerges() throws IOException {
+        Map<String, byte[]> expected = new HashMap<>();
+        Random random = new Random(42);
+        try (LsmStore store = new LsmStore(directory, 16 * 1024, 3, false)) {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "k" + random.nextInt(3_000);
+                if (random.nextInt(5) == 0) {
+                    store.delete(key);
+                    expected.remove(key);
+                } else {
+                    byte[] value = ("v" + i).getBytes(StandardCharsets.UTF_8);
+                    store.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            assertTrue(store.tableCount() <= 4);
+            assertMatches(expected, store);
+        }
+
+        try (LsmStore reopened = new LsmStore(directory, 16 * 1024, 3, false)) {
+            assertMatches(expected, reopened);
+        }
+    }
+
+    @Test
+    void replaysTheLogAndDropsATornTail() throws IOException {
+        try (LsmStore store = new LsmStore(directory, 1 << 20, 4, true)) {
+            store.put("a", bytes("1"));
+            store.put("b", bytes("2"));
+            store.delete("a");
+            store.put("c", bytes("3"));
+        }
+        try (FileChannel log = FileChannel.open(directory.resolve("wal.log"), StandardOpenOption.WRITE)) {
+            log.truncate(log.size() - 2);
+        }
+
+        try (LsmStore reopened = new LsmStore(directory, 1 << 20, 4, true)) {
+            assertNull(reopened.get("a"));
+            assertArrayEquals(bytes("2"), reopened.get("b"));
+            assertNull(reopened.get("c"));
+
+            // Writes after the torn record survive another restart
+            reopened.put("d", bytes("4"));
+        }
+        try (LsmStore reopened = new LsmStore(directory, 1 << 20, 4, true)) {
+            assertArrayEquals(bytes("2"), reopened.get("b"));
+            assertArrayEquals(bytes("4"), reopened.get("d"));
+        }
+    }
+
+    @Test
+    void deletionsShadowFlushedValues() throws IOException {
+        try (LsmStore store = new LsmStore(directory, 1 << 20, 8, false)) {
+            store.put("gone", bytes("old"));
+            store.put("kept", bytes("old"));
+            store.flush();
+            store.delete("gone");
+            store.put("kept", bytes("new"));
+            store.flush();
+
+            assertEquals(2, store.tableCount());
+            assertNull(store.get("gone"));
+            assertArrayEquals(bytes("new"), store.get("kept"));
+            assertNull(store.get("never"));
+        }
+    }
+
+    private static void assertMatches(Map<String, byte[]> expected, LsmStore store) {
+        for (int i = 0; i < 3_000; i++) {
+            String key = "k" + i;
+            byte[] value = expected.get(key);
+            if (value == null) {
+                assertNull(store.get(key), key);
+            } else {
+                assertArrayEquals(value, store.get(key), key);
+            }
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
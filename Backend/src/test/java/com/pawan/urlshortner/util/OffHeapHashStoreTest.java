@@ -0,0 +1,108 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapHashStoreTest {
+
+    @Test
+    void putGetReplaceAndRemove() {
+        OffHeapHashStore store = new OffHeapHashStore(4, 16, 1024);
+
+        store.put(42, bytes("first"));
+        store.put(42, bytes("second"));
+        assertArrayEquals(bytes("second"), store.get(42));
+        assertEquals(1, store.size());
+
+        assertTrue(store.remove(42));
+        assertFalse(store.remove(42));
+        assertNull(store.get(42));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void growsAcrossRebuilds() {
+        OffHeapHashStore store = new OffHeapHashStore(2, 16, 4096);
+
+        for (long key = 1; key <= 50_000; key++) {
+            store.put(key, value(key));
+        }
+
+        assertEquals(50_000, store.size());
+        for (long key = 1; key <= 50_000; key++) {
+            assertArrayEquals(value(key), store.get(key));
+        }
+    }
+
+    @Test
+    void compactionReclaimsDeletedValues() {
+        OffHeapHashStore store = new OffHeapHashStore(1, 16, 4096);
+        for (long key = 1; key <= 10_000; key++) {
+            store.put(key, value(key));
+        }
+        long before = store.memoryBytes();
+
+        for (long key = 1; key <= 10_000; key++) {
+            if (key % 10 != 0) {
+                store.remove(key);
+            }
+        }
+
+        assertTrue(store.memoryBytes() < before / 2, "slabs are rewritten once most bytes are dead");
+        for (long key = 10; key <= 10_000; key += 10) {
+            assertArrayEquals(value(key), store.get(key));
+        }
+    }
+
+    @Test
+    void readersNeverSeeAnotherKeysValueWhileWritersChurn() throws InterruptedException {
+        OffHeapHashStore store = new OffHeapHashStore(4, 16, 8192);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (long key = 1; key <= 5_000; key++) {
+                    store.put(key, value(key));
+                }
+                for (long key = 1; key <= 5_000; key += 2) {
+                    store.remove(key);
+                }
+            }
+            running.set(false);
+        });
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (long key = 1; key <= 5_000; key++) {
+                    byte[] found = store.get(key);
+                    if (found != null && ByteBuffer.wrap(found).getLong() != key) {
+                        failure.set("key " + key + " returned another key's value");
+                    }
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertNull(failure.get());
+    }
+
+    private static byte[] value(long key) {
+        return ByteBuffer.allocate(8 + (int) (key % 40)).putLong(key).array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes();
+    }
+}
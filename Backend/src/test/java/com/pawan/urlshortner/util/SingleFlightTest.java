@@ -0,0 +1,110 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.load("abc123", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "value";
+                }, 5_000)));
+            }
+
+            while (singleFlight.coalescedCount() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresReachWaitersAndAreNotCached() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.load("abc123", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("mongo down");
+            }, 5_000));
+            started.await();
+            Future<String> waiter = executor.submit(() -> singleFlight.load("abc123", () -> "unused", 5_000));
+            while (singleFlight.coalescedCount() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception failure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(IllegalStateException.class, failure.getCause().getClass());
+
+            assertEquals("recovered", singleFlight.load("abc123", () -> "recovered", 5_000));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersGiveUpAfterTimeout() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> singleFlight.load("abc123", () -> {
+                started.countDown();
+                await(release);
+                return "slow";
+            }, 5_000));
+            started.await();
+
+            assertThrows(SingleFlight.WaitTimeoutException.class,
+                    () -> singleFlight.load("abc123", () -> "unused", 20));
+            assertEquals(1, singleFlight.timedOutCount());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
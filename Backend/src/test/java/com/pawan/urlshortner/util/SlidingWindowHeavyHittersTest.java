@@ -0,0 +1,56 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowHeavyHittersTest {
+
+    @Test
+    void findsHeavyKeysAmongLongTail() {
+        SlidingWindowHeavyHitters heavyHitters = new SlidingWindowHeavyHitters(4, 1024, 3, 8);
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 20) {
+                heavyHitters.record("viral");
+            } else if (roll < 30) {
+                heavyHitters.record("popular");
+            } else {
+                heavyHitters.record("tail-" + random.nextInt(50_000));
+            }
+        }
+
+        List<SlidingWindowHeavyHitters.HeavyHitter> top = heavyHitters.top(1_000);
+
+        assertEquals(2, top.size());
+        assertEquals("viral", top.get(0).key());
+        assertEquals("popular", top.get(1).key());
+        assertTrue(top.get(0).count() >= 19_000 && top.get(0).count() < 22_000);
+    }
+
+    @Test
+    void forgetsKeysOnceTheyLeaveTheWindow() {
+        SlidingWindowHeavyHitters heavyHitters = new SlidingWindowHeavyHitters(4, 256, 2, 4);
+        for (int i = 0; i < 500; i++) {
+            heavyHitters.record("old");
+        }
+        heavyHitters.rotate();
+        for (int i = 0; i < 300; i++) {
+            heavyHitters.record("new");
+        }
+        assertEquals(500, heavyHitters.estimate("old"));
+
+        heavyHitters.rotate();
+
+        assertEquals(0, heavyHitters.estimate("old"));
+        List<SlidingWindowHeavyHitters.HeavyHitter> top = heavyHitters.top(1);
+        assertEquals(1, top.size());
+        assertEquals("new", top.get(0).key());
+        assertEquals(300, top.get(0).count());
+    }
+}
@@ -0,0 +1,86 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SortedMappedFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesAndLooksUpRecordsByKey() throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        try (SortedMappedFile.Writer writer = new SortedMappedFile.Writer(file, 1234)) {
+            for (long key = 10; key <= 10_000; key += 10) {
+                writer.append(key, record(key));
+            }
+            writer.commit();
+        }
+
+        SortedMappedFile mapped = SortedMappedFile.open(file);
+        assertEquals(1234, mapped.getCreatedAtMillis());
+        assertEquals(1_000, mapped.size());
+        assertArrayEquals(record(10), mapped.get(10));
+        assertArrayEquals(record(5_550), mapped.get(5_550));
+        assertArrayEquals(record(10_000), mapped.get(10_000));
+        assertNull(mapped.get(5));
+        assertNull(mapped.get(5_555));
+        assertNull(mapped.get(20_000));
+    }
+
+    @Test
+    void packedShortCodesSortLikeTheCodes() throws IOException {
+        TreeSet<String> codes = new TreeSet<>(List.of("-", "_x", "my-alias", "my_alias", "A", "Zz9", "a", "aa"));
+        for (int i = 0; i < 1_000; i++) {
+            codes.add(UrlShortenerUtil.generateShortCode(1 + i % 9));
+        }
+
+        // Appending in string order fails unless packed keys increase with it
+        Path file = directory.resolve("codes.bin");
+        try (SortedMappedFile.Writer writer = new SortedMappedFile.Writer(file, 0)) {
+            for (String code : codes) {
+                writer.append(UrlShortenerUtil.packShortCode(code), code.getBytes(StandardCharsets.UTF_8));
+            }
+            writer.commit();
+        }
+
+        SortedMappedFile mapped = SortedMappedFile.open(file);
+        for (String code : codes) {
+            assertArrayEquals(code.getBytes(StandardCharsets.UTF_8), mapped.get(UrlShortenerUtil.packShortCode(code)));
+        }
+        assertEquals(-1, UrlShortenerUtil.packShortCode("much-too-long"));
+        assertEquals(-1, UrlShortenerUtil.packShortCode("caf\u00e9"));
+    }
+
+    @Test
+    void rejectsKeysOutOfOrderAndDiscardsUncommittedOutput() throws IOException {
+        Path file = directory.resolve("partial.bin");
+        try (SortedMappedFile.Writer writer = new SortedMappedFile.Writer(file, 0)) {
+            writer.append(2, record(2));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(1, record(1)));
+        }
+
+        assertFalse(Files.exists(file));
+        try (var leftovers = Files.list(directory)) {
+            assertEquals(0, leftovers.count());
+        }
+    }
+
+    private static byte[] record(long key) {
+        return ("https://example.com/" + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
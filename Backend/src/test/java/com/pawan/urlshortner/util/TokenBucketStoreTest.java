@@ -0,0 +1,58 @@
+package com.pawan.urlshortner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void allowsBurstThenRefillsAtConfiguredRate() {
+        TokenBucketStore store = new TokenBucketStore(3, 2.0, 100, 4, now::get);
+
+        assertEquals(2, store.tryConsume("a"));
+        assertEquals(1, store.tryConsume("a"));
+        assertEquals(0, store.tryConsume("a"));
+
+        long retry = store.tryConsume("a");
+        assertEquals(-TimeUnit.MILLISECONDS.toNanos(500), retry);
+
+        advance(500);
+        assertEquals(0, store.tryConsume("a"));
+        advance(1_500);
+        assertEquals(2, store.tryConsume("a"));
+    }
+
+    @Test
+    void keysAreIndependent() {
+        TokenBucketStore store = new TokenBucketStore(1, 1.0, 100, 4, now::get);
+
+        assertEquals(0, store.tryConsume("a"));
+        assertTrue(store.tryConsume("a") < 0);
+        assertEquals(0, store.tryConsume("b"));
+    }
+
+    @Test
+    void dropsRefilledBucketsAndStaysBounded() {
+        TokenBucketStore store = new TokenBucketStore(5, 1.0, 8, 1, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            store.tryConsume("key-" + i);
+        }
+        assertEquals(8, store.size());
+
+        advance(10_000);
+        store.tryConsume("fresh");
+        assertTrue(store.size() < 8, "refilled buckets are evicted as new keys arrive");
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
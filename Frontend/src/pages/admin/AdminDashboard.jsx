@@ -55,8 +55,22 @@ const AdminDashboard = () => {
       const response = await adminService.cleanupExpiredUrls();
       
       if (response.success) {
-        toast.success(`Cleaned up ${response.data} expired URLs`);
         setShowCleanupModal(false);
+        toast.success('Expired URL cleanup started');
+
+        // The cleanup runs in the background; poll it for up to a minute
+        let task = response.data;
+        for (let polls = 0; task.status !== 'COMPLETED' && polls < 30; polls++) {
+          await new Promise((resolve) => setTimeout(resolve, 2000));
+          task = (await adminService.getCleanupStatus(task.taskId)).data;
+        }
+        if (task.status === 'COMPLETED') {
+          toast.success(`Cleaned up ${task.expired} expired URLs`);
+        } else if (task.status === 'INTERRUPTED') {
+          toast.error(`Expired URL cleanup interrupted: ${task.error}`);
+        } else {
+          toast(`Expired URL cleanup still running (${Math.round(task.percentComplete)}%)`);
+        }
         // Refresh stats
         await fetchSystemStats();
         await fetchDashboardData();
@@ -112,6 +112,15 @@ export const adminService = {
     }
   },
 
+  getCleanupStatus: async (taskId) => {
+    try {
+      const response = await apiRequest.get(API_ENDPOINTS.ADMIN.CLEANUP_STATUS(taskId));
+      return response;
+    } catch (error) {
+      throw error;
+    }
+  },
+
   getAnalytics: async (days = 30) => {
     try {
       const response = await apiRequest.get(API_ENDPOINTS.ADMIN.ANALYTICS, { days });
@@ -43,6 +43,7 @@ export const API_ENDPOINTS = {
     DELETE_URL: (id) => `/admin/urls/${id}`,
     SYSTEM_STATS: '/admin/system-stats',
     CLEANUP_EXPIRED: '/admin/cleanup-expired-urls',
+    CLEANUP_STATUS: (taskId) => `/admin/cleanup-expired-urls/${taskId}`,
     ANALYTICS: '/admin/analytics',
     ACTIVITY_LOG: '/admin/activity-log',
     HEALTH: '/admin/health',